@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.TestInfo;
+import org.openjdk.jcstress.infra.collectors.DiskReadCollector;
+import org.openjdk.jcstress.infra.collectors.DiskWriteCollector;
+import org.openjdk.jcstress.infra.collectors.MergingCollector;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.grading.HTMLReportPrinter;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.infra.runners.TestList;
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.NodeType;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.vm.CompileMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the report generation time against the synthetic result file.
+ * The result file carries {@link #configs} configurations for every test
+ * known on the classpath, with {@link #forks} results each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportBench {
+
+    @Param("100")
+    int configs;
+
+    @Param("5")
+    int forks;
+
+    @Param({"1", "4"})
+    int threads;
+
+    private File resultFile;
+    private File reportDir;
+    private Options opts;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        System.setProperty("jcstress.report.threads", String.valueOf(threads));
+
+        resultFile = File.createTempFile("jcstress", "results");
+        reportDir = Files.createTempDirectory("jcstress-report").toFile();
+
+        opts = new Options(new String[] {"-r", reportDir.getAbsolutePath()});
+        opts.parse();
+
+        DiskWriteCollector dwc = new DiskWriteCollector(resultFile.getAbsolutePath());
+        for (String name : TestList.tests()) {
+            TestInfo info = TestList.getInfo(name);
+            SchedulingClass scl = new SchedulingClass(AffinityMode.NONE, info.threads(), NodeType.PACKAGE);
+            for (int c = 0; c < configs; c++) {
+                TestConfig cfg = new TestConfig(opts, info, 0,
+                        Collections.singletonList("-XX:SyntheticConfig=" + c), CompileMode.UNIFIED, scl);
+                for (int f = 0; f < forks; f++) {
+                    TestResult r = new TestResult(Status.NORMAL);
+                    r.setConfig(cfg);
+                    for (int s = 0; s < 4; s++) {
+                        r.addState(s + ", " + (c + f) % 3, 1000 + s);
+                    }
+                    r.addMessage("Synthetic message from fork " + f);
+                    dwc.add(r);
+                }
+            }
+        }
+        dwc.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        resultFile.delete();
+        File[] files = reportDir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        reportDir.delete();
+    }
+
+    @Benchmark
+    public Collection<TestResult> htmlReport() throws IOException, ClassNotFoundException {
+        MergingCollector collector = new MergingCollector(new File(reportDir, "overflow"));
+        DiskReadCollector drc = new DiskReadCollector(resultFile.getAbsolutePath(), collector);
+        drc.dump();
+        drc.close();
+
+        Collection<TestResult> results = collector.getTestResults();
+        new HTMLReportPrinter(opts, results, new PrintStream(new NullOutputStream())).work();
+        return results;
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            // discard
+        }
+    }
+
+}
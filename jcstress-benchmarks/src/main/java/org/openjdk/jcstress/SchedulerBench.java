@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.CPUMap;
+import org.openjdk.jcstress.os.Scheduler;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.os.topology.PresetRegularTopology;
+import org.openjdk.jcstress.os.topology.Topology;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates the scheduler on a large machine running many short forks:
+ * every operation acquires the CPUs for the next scheduling class, and releases
+ * the oldest forks to keep the machine about {@link #load} percent busy.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 3, jvmArgs = {"-Xmx1g", "-Xms1g"})
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SchedulerBench {
+
+    @Param({"2", "4", "8"})
+    int nodes;
+
+    @Param({"64", "128"})
+    int cores;
+
+    @Param({"LOCAL", "GLOBAL"})
+    AffinityMode mode;
+
+    @Param("75")
+    int load;
+
+    private Scheduler scheduler;
+    private List<SchedulingClass> classes;
+    private ArrayDeque<CPUMap> taken;
+    private int busyLimit;
+    private int idx;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        Topology topology = new PresetRegularTopology(nodes, cores, 2);
+        scheduler = new Scheduler(topology, topology.totalThreads());
+
+        classes = new ArrayList<>();
+        for (int a = 1; a <= 4; a++) {
+            if (mode == AffinityMode.LOCAL) {
+                classes.addAll(scheduler.localAffinityFor(a, topology.totalThreads()));
+            } else {
+                classes.addAll(scheduler.scheduleClasses(a, topology.totalThreads(), mode));
+            }
+        }
+        Collections.shuffle(classes, new Random(12345));
+
+        taken = new ArrayDeque<>();
+        busyLimit = topology.totalThreads() * load / 100;
+        idx = 0;
+
+        // Fill the machine up to the target load
+        while (scheduler.getCpus() < busyLimit) {
+            acquire();
+        }
+    }
+
+    @Benchmark
+    public CPUMap acquireRelease() {
+        CPUMap map = acquire();
+        while (scheduler.getCpus() > busyLimit) {
+            scheduler.release(taken.poll());
+        }
+        return map;
+    }
+
+    private CPUMap acquire() {
+        SchedulingClass scl = classes.get(idx);
+        idx = (idx + 1) % classes.size();
+
+        CPUMap map = scheduler.tryAcquire(scl);
+        while (map == null) {
+            CPUMap old = taken.poll();
+            if (old == null) {
+                throw new IllegalStateException("Cannot schedule on empty system: " + scl);
+            }
+            scheduler.release(old);
+            map = scheduler.tryAcquire(scl);
+        }
+        taken.offer(map);
+        return map;
+    }
+
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.openjdk.jcstress.annotations.Expect;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.grading.GradingResult;
+import org.openjdk.jcstress.infra.grading.TestGrading;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Allocates the additional forks across the (test, JVM config) arms.
+ * <p>
+ * Every arm runs its regular forks first, which gives the minimal exploration
+ * share for every arm. The additional forks are then given out with UCB1: arms
+ * that had produced interesting, forbidden or rare outcomes get more forks, while
+ * the exploration term and the periodic least-tried picks make sure that other
+ * arms still get some.
+ */
+public class BanditAllocator {
+
+    static final double EXPLORATION = Double.parseDouble(System.getProperty("jcstress.bandit.exploration", "1.0"));
+    static final double RARE_RATE = Double.parseDouble(System.getProperty("jcstress.bandit.rareRate", "1e-4"));
+    static final int EXPLORE_EVERY = Integer.getInteger("jcstress.bandit.exploreEvery", 10);
+    static final double MIN_FEEDBACK = Double.parseDouble(System.getProperty("jcstress.bandit.minFeedback", "0.5"));
+
+    private final Map<String, Arm> arms;
+    private final int extraForks;
+    private int allocated;
+    private int drained;
+    private int totalPulls;
+    private int totalResults;
+
+    public BanditAllocator(Collection<TestConfig> configs, int extraForks) {
+        this.arms = new LinkedHashMap<>();
+        this.extraForks = extraForks;
+        for (TestConfig cfg : configs) {
+            arms.computeIfAbsent(key(cfg), k -> new Arm()).add(cfg);
+            totalPulls++;
+        }
+    }
+
+    private static String key(TestConfig cfg) {
+        return cfg.name + " " + cfg.jvmArgs;
+    }
+
+    /**
+     * @return number of additional forks that are not yet allocated
+     */
+    public synchronized int remaining() {
+        return extraForks - allocated - drained;
+    }
+
+    /**
+     * Tells if enough forks have reported back to learn from. Allocating
+     * before that would be guided mostly by the exploration term.
+     *
+     * @return true, if the results for most allocated forks have arrived
+     */
+    public synchronized boolean hasFeedback() {
+        return totalResults >= totalPulls * MIN_FEEDBACK;
+    }
+
+    /**
+     * Gives up on the additional forks that are not yet allocated.
+     *
+     * @return number of forks given up
+     */
+    public synchronized int drain() {
+        int r = extraForks - allocated - drained;
+        drained += r;
+        return r;
+    }
+
+    /**
+     * Records the fork result for its arm.
+     *
+     * @param cfg fork configuration
+     * @param result fork result
+     */
+    public void record(TestConfig cfg, TestResult result) {
+        record(cfg, reward(result));
+    }
+
+    private synchronized void record(TestConfig cfg, double reward) {
+        Arm arm = arms.get(key(cfg));
+        if (arm != null) {
+            arm.results++;
+            arm.rewards += reward;
+            totalResults++;
+        }
+    }
+
+    /**
+     * Computes the reward for the fork result: full reward for interesting and
+     * forbidden outcomes, half reward for the outcomes rarer than the threshold.
+     *
+     * @param r result
+     * @return reward in [0; 1]
+     */
+    static double reward(TestResult r) {
+        if (r.status() != Status.NORMAL) {
+            return 0;
+        }
+
+        TestGrading g = r.grading();
+        if (!g.isPassed || g.hasInteresting) {
+            return 1;
+        }
+
+        for (GradingResult gr : g.gradingResults.values()) {
+            if (gr.expect != Expect.UNKNOWN && gr.count > 0 && gr.rate < RARE_RATE) {
+                return 0.5;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Allocates the next batch of additional forks that would fill the given
+     * number of CPUs, but at least one fork.
+     *
+     * @param cpus number of CPUs to fill
+     * @param skip tests to skip, e.g. the ones that had failed already
+     * @return new fork configurations, empty if no arm is eligible
+     */
+    public synchronized List<TestConfig> nextBatch(int cpus, Predicate<String> skip) {
+        List<TestConfig> r = new ArrayList<>();
+        int used = 0;
+        while (remaining() > 0) {
+            Arm arm = pick(skip);
+            if (arm == null) {
+                break;
+            }
+            int threads = arm.variants.get(0).threads;
+            if (!r.isEmpty() && used + threads > cpus) {
+                break;
+            }
+            r.add(allocate(arm));
+            used += threads;
+        }
+        return r;
+    }
+
+    private Arm pick(Predicate<String> skip) {
+        return (EXPLORE_EVERY > 0 && allocated % EXPLORE_EVERY == EXPLORE_EVERY - 1) ?
+                leastTried(skip) :
+                bestScore(skip);
+    }
+
+    private TestConfig allocate(Arm arm) {
+        allocated++;
+        totalPulls++;
+        return arm.nextFork();
+    }
+
+    private Arm leastTried(Predicate<String> skip) {
+        Arm best = null;
+        for (Arm arm : arms.values()) {
+            if (skip.test(arm.name())) continue;
+            if (best == null || arm.pulls < best.pulls) {
+                best = arm;
+            }
+        }
+        return best;
+    }
+
+    private Arm bestScore(Predicate<String> skip) {
+        long totalPulls = 0;
+        for (Arm arm : arms.values()) {
+            totalPulls += arm.pulls;
+        }
+        double logPulls = Math.log(Math.max(2, totalPulls));
+
+        Arm best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Arm arm : arms.values()) {
+            if (skip.test(arm.name())) continue;
+            double score = arm.mean() + EXPLORATION * Math.sqrt(logPulls / arm.pulls);
+            if (score > bestScore) {
+                bestScore = score;
+                best = arm;
+            }
+        }
+        return best;
+    }
+
+    public synchronized void printStatsOn(PrintStream out) {
+        List<Arm> list = new ArrayList<>(arms.values());
+        list.removeIf(a -> a.extra == 0);
+        list.sort(Comparator.comparingInt((Arm a) -> a.extra).reversed());
+
+        out.printf("  Adaptive forks: %d of %d allocated over %d configurations%n", allocated, extraForks, list.size());
+        if (drained > 0) {
+            out.printf("    %d forks given up: no configurations left to allocate to%n", drained);
+        }
+        for (Arm arm : list) {
+            out.printf("    %+4d forks, %.2f mean reward: %s %s%n", arm.extra, arm.mean(), arm.name(), arm.variants.get(0).jvmArgs);
+        }
+        out.println();
+    }
+
+    private static class Arm {
+        private final List<TestConfig> variants = new ArrayList<>();
+        private int nextForkId;
+        private int pulls;
+        private int extra;
+        private int results;
+        private double rewards;
+
+        void add(TestConfig cfg) {
+            if (!variants.contains(cfg)) {
+                variants.add(cfg);
+            }
+            nextForkId = Math.max(nextForkId, cfg.forkId + 1);
+            pulls++;
+        }
+
+        String name() {
+            return variants.get(0).name;
+        }
+
+        double mean() {
+            // Be optimistic about the arms without results yet
+            return (results > 0) ? rewards / results : 1;
+        }
+
+        TestConfig nextFork() {
+            // Round-robin the compilation modes and scheduling classes
+            TestConfig cfg = new TestConfig(variants.get(extra % variants.size()), nextForkId++);
+            pulls++;
+            extra++;
+            return cfg;
+        }
+    }
+
+}
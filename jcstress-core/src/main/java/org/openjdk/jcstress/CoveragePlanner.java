@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import java.util.*;
+
+/**
+ * Builds the covering array over the test configuration factors.
+ * <p>
+ * Every candidate row assigns a value to every factor, e.g. JVM configuration,
+ * per-actor compilation mode and scheduling class. The planner selects the subset
+ * of candidate rows that still covers every combination of values for every
+ * {@code strength} factors that appears in any candidate. Since only the valid
+ * combinations are candidates, the factor constraints are honored automatically.
+ * <p>
+ * This is a greedy AETG-like construction: take the row that covers the most
+ * uncovered combinations, until everything is covered. It is not optimal, but it
+ * is deterministic and good enough for the factor counts we have.
+ * <p>
+ * Most rows tie on the number of newly covered combinations, and the tie-break
+ * decides which of them make it into the plan. Seeding the tie-break with the
+ * test identity makes different tests draw different covering arrays, so that
+ * the combinations beyond the covering strength are spread over the suite.
+ */
+public class CoveragePlanner {
+
+    private final int strength;
+
+    public CoveragePlanner(int strength) {
+        this.strength = strength;
+    }
+
+    /**
+     * Selects the covering rows, breaking ties in the candidate order.
+     *
+     * @param candidates valid rows, all of the same length
+     * @return covering rows, in the candidate order
+     */
+    public List<int[]> plan(List<int[]> candidates) {
+        int[] order = new int[candidates.size()];
+        for (int c = 0; c < order.length; c++) {
+            order[c] = c;
+        }
+        return plan(candidates, order);
+    }
+
+    /**
+     * Selects the covering rows, breaking ties in the seeded random order.
+     *
+     * @param candidates valid rows, all of the same length
+     * @param seed tie-break seed, the same seed gives the same plan
+     * @return covering rows, in the candidate order
+     */
+    public List<int[]> plan(List<int[]> candidates, long seed) {
+        int[] order = new int[candidates.size()];
+        for (int c = 0; c < order.length; c++) {
+            order[c] = c;
+        }
+        Random r = new Random(seed);
+        for (int c = order.length - 1; c > 0; c--) {
+            int o = r.nextInt(c + 1);
+            int t = order[c];
+            order[c] = order[o];
+            order[o] = t;
+        }
+        return plan(candidates, order);
+    }
+
+    private List<int[]> plan(List<int[]> candidates, int[] order) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        int factors = candidates.get(0).length;
+        if (strength <= 0 || strength >= factors) {
+            // Only the full product covers all factors at once.
+            return candidates;
+        }
+
+        // Give every (factor, value) pair its own id.
+        int[] offsets = new int[factors + 1];
+        for (int f = 0; f < factors; f++) {
+            int max = 0;
+            for (int[] row : candidates) {
+                max = Math.max(max, row[f]);
+            }
+            offsets[f + 1] = offsets[f] + max + 1;
+        }
+        long base = offsets[factors];
+
+        if (Math.pow(base, strength) >= Long.MAX_VALUE) {
+            // Cannot encode the combinations, do the full product.
+            return candidates;
+        }
+
+        List<int[]> subsets = subsets(factors, strength);
+
+        long[][] keys = new long[candidates.size()][];
+        Set<Long> uncovered = new HashSet<>();
+        for (int c = 0; c < candidates.size(); c++) {
+            int[] row = candidates.get(c);
+            long[] k = new long[subsets.size()];
+            for (int s = 0; s < subsets.size(); s++) {
+                long key = 0;
+                for (int f : subsets.get(s)) {
+                    key = key * base + offsets[f] + row[f];
+                }
+                k[s] = key;
+                uncovered.add(key);
+            }
+            keys[c] = k;
+        }
+
+        boolean[] taken = new boolean[candidates.size()];
+        while (!uncovered.isEmpty()) {
+            int best = -1;
+            int bestCount = 0;
+            for (int c : order) {
+                if (taken[c]) continue;
+                int count = 0;
+                for (long k : keys[c]) {
+                    if (uncovered.contains(k)) {
+                        count++;
+                    }
+                }
+                if (count > bestCount) {
+                    best = c;
+                    bestCount = count;
+                }
+            }
+
+            if (best == -1) {
+                throw new IllegalStateException("Combinations left uncovered: " + uncovered.size());
+            }
+
+            taken[best] = true;
+            for (long k : keys[best]) {
+                uncovered.remove(k);
+            }
+        }
+
+        List<int[]> result = new ArrayList<>();
+        for (int c = 0; c < candidates.size(); c++) {
+            if (taken[c]) {
+                result.add(candidates.get(c));
+            }
+        }
+        return result;
+    }
+
+    private static List<int[]> subsets(int n, int k) {
+        List<int[]> result = new ArrayList<>();
+        subsets(result, new int[k], 0, 0, n);
+        return result;
+    }
+
+    private static void subsets(List<int[]> result, int[] cur, int idx, int from, int n) {
+        if (idx == cur.length) {
+            result.add(cur.clone());
+            return;
+        }
+        for (int i = from; i < n; i++) {
+            cur[idx] = i;
+            subsets(result, cur, idx + 1, i + 1, n);
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.openjdk.jcstress.infra.collectors.ForkStats;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates the per-fork accounting, and tells how efficiently the
+ * reserved CPUs were used by the run.
+ */
+public class ForkAccounting {
+
+    // ProcessHandle is only available since JDK 9, reach it reflectively
+    private static final Method TO_HANDLE;
+    private static final Method INFO;
+    private static final Method TOTAL_CPU_DURATION;
+
+    static {
+        Method toHandle = null;
+        Method info = null;
+        Method totalCpuDuration = null;
+        try {
+            toHandle = Process.class.getMethod("toHandle");
+            info = Class.forName("java.lang.ProcessHandle").getMethod("info");
+            totalCpuDuration = Class.forName("java.lang.ProcessHandle$Info").getMethod("totalCpuDuration");
+        } catch (ReflectiveOperationException e) {
+            // Not available
+        }
+        TO_HANDLE = toHandle;
+        INFO = info;
+        TOTAL_CPU_DURATION = totalCpuDuration;
+    }
+
+    private int forks;
+    private int measuredForks;
+    private long startupMs;
+    private long runMs;
+    private long shutdownMs;
+    private long reservedCpuMs;
+    private long actorCpuMs;
+    private long cpuTimeMs;
+    private long measuredReservedCpuMs;
+
+    /**
+     * Polls the CPU time the live process had consumed so far.
+     *
+     * @param process process to poll
+     * @return CPU time in milliseconds, or {@link ForkStats#UNKNOWN}
+     */
+    public static long cpuTimeMs(Process process) {
+        return cpuTimeMs(process, TO_HANDLE, INFO, TOTAL_CPU_DURATION);
+    }
+
+    static long cpuTimeMs(Process process, Method toHandle, Method info, Method totalCpuDuration) {
+        if (toHandle == null || info == null || totalCpuDuration == null) {
+            return ForkStats.UNKNOWN;
+        }
+        try {
+            Object handle = toHandle.invoke(process);
+            Optional<?> d = (Optional<?>) totalCpuDuration.invoke(info.invoke(handle));
+            if (d.isPresent()) {
+                return ((Duration) d.get()).toMillis();
+            }
+        } catch (ReflectiveOperationException e) {
+            // Fall through
+        }
+        return ForkStats.UNKNOWN;
+    }
+
+    public synchronized void record(ForkStats stats) {
+        forks++;
+        startupMs += stats.startupMs();
+        runMs += stats.runMs();
+        shutdownMs += stats.shutdownMs();
+        reservedCpuMs += stats.reservedCpuMs();
+        actorCpuMs += stats.actorCpuMs();
+        if (stats.cpuTimeMs() != ForkStats.UNKNOWN) {
+            measuredForks++;
+            cpuTimeMs += stats.cpuTimeMs();
+            measuredReservedCpuMs += stats.reservedCpuMs();
+        }
+    }
+
+    public synchronized void printOn(PrintStream out) {
+        if (forks == 0) {
+            return;
+        }
+
+        out.printf("  Fork CPU utilization over %d forks:%n", forks);
+        out.printf("    Reserved:        %10.1f CPU-s%n", seconds(reservedCpuMs));
+        out.printf("    Used by actors:  %10.1f CPU-s (%.1f%% of reserved)%n", seconds(actorCpuMs), percent(actorCpuMs, reservedCpuMs));
+        if (measuredForks > 0) {
+            out.printf("    Used by forks:   %10.1f CPU-s (%.1f%% of reserved, measured in %d forks)%n",
+                    seconds(cpuTimeMs), percent(cpuTimeMs, measuredReservedCpuMs), measuredForks);
+        }
+        out.printf("    Average fork:    startup %d ms, run %d ms, shutdown %d ms%n",
+                startupMs / forks, runMs / forks, shutdownMs / forks);
+        out.println();
+    }
+
+    private static double seconds(long ms) {
+        return ms / (double) TimeUnit.SECONDS.toMillis(1);
+    }
+
+    private static double percent(long part, long total) {
+        return (total == 0) ? 0 : 100.0 * part / total;
+    }
+
+}
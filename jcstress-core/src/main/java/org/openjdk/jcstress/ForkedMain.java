@@ -34,7 +34,10 @@ import org.openjdk.jcstress.os.AffinitySupport;
 import org.openjdk.jcstress.util.StringUtils;
 import org.openjdk.jcstress.vm.AllocProfileSupport;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Entry point for the forked VM run.
@@ -69,6 +72,11 @@ public class ForkedMain {
 
         ForkedTestConfig config = link.jobRequest(token);
 
+        if (config.localAffinity && config.systemAffinityMap.length > 0) {
+            // Keep GC, compiler and other VM threads away from the actor CPUs.
+            new SystemAffinityTask(config.systemAffinityMap).start();
+        }
+
         TestResult result;
         boolean forceExit = false;
 
@@ -76,8 +84,17 @@ public class ForkedMain {
             Class<?> aClass = Class.forName(config.generatedRunnerName);
             Constructor<?> cnstr = aClass.getConstructor(ForkedTestConfig.class);
             Runner<?> o = (Runner<?>) cnstr.newInstance(config);
+
+            if (config.awaitStop) {
+                new StopWaitTask(link, token, o).start();
+            }
+
             result = o.run();
             forceExit = o.forceExit();
+
+            if (o.isStopRequested()) {
+                result.addMessage("Test stopped early: forbidden outcome had been observed in another fork.");
+            }
         } catch (ClassFormatError | NoClassDefFoundError | NoSuchMethodError | NoSuchFieldError e) {
             result = new TestResult(Status.API_MISMATCH);
             result.addMessages(e);
@@ -117,6 +134,64 @@ public class ForkedMain {
         }
     }
 
+    private static class SystemAffinityTask extends Thread {
+        // VM creates threads lazily, e.g. compiler threads, re-apply periodically
+        private static final int POLL_MS = 100;
+
+        private final int[] cpus;
+
+        public SystemAffinityTask(int[] cpus) {
+            super("System Affinity");
+            this.cpus = cpus;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!AffinitySupport.canBindOthers()) {
+                    // Cannot tell actors apart, binding would disturb them
+                    return;
+                }
+                Set<Integer> seen = new HashSet<>();
+                while (!isInterrupted()) {
+                    AffinitySupport.bindOthers(cpus, seen);
+                    Thread.sleep(POLL_MS);
+                }
+            } catch (InterruptedException e) {
+                // Exiting
+            } catch (Exception e) {
+                // Do not care, VM threads would float over all CPUs
+            }
+        }
+    }
+
+    private static class StopWaitTask extends Thread {
+        private final BinaryLinkClient link;
+        private final int token;
+        private final Runner<?> runner;
+
+        public StopWaitTask(BinaryLinkClient link, int token, Runner<?> runner) {
+            super("Stop Waiter");
+            this.link = link;
+            this.token = token;
+            this.runner = runner;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                // Host releases the wait when it gets the result
+                if (link.awaitStop(token)) {
+                    runner.requestStop();
+                }
+            } catch (IOException e) {
+                // Do not care, the test would run for its full time
+            }
+        }
+    }
+
     private static class WarmupAllocProfileTask extends VoidThread {
         public WarmupAllocProfileTask() {
             super("Warmup Alloc Profile");
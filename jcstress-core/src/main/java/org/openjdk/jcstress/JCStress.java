@@ -24,12 +24,16 @@
  */
 package org.openjdk.jcstress;
 
+import org.openjdk.jcstress.infra.Status;
 import org.openjdk.jcstress.infra.TestInfo;
 import org.openjdk.jcstress.infra.collectors.*;
 import org.openjdk.jcstress.infra.grading.ConsoleReportPrinter;
 import org.openjdk.jcstress.infra.grading.ExceptionReportPrinter;
 import org.openjdk.jcstress.infra.grading.TextReportPrinter;
 import org.openjdk.jcstress.infra.grading.HTMLReportPrinter;
+import org.openjdk.jcstress.infra.grading.LiveHTMLReportPrinter;
+import org.openjdk.jcstress.infra.history.HistoryStore;
+import org.openjdk.jcstress.infra.history.ResultDiff;
 import org.openjdk.jcstress.infra.runners.TestConfig;
 import org.openjdk.jcstress.infra.runners.TestList;
 import org.openjdk.jcstress.os.*;
@@ -39,6 +43,7 @@ import org.openjdk.jcstress.vm.VMSupport;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 /**
@@ -47,12 +52,19 @@ import java.util.regex.Pattern;
  * @author Aleksey Shipilev (aleksey.shipilev@oracle.com)
  */
 public class JCStress {
+    static final int RERUN_FORKS_MULTIPLIER = Integer.getInteger("jcstress.rerun.forksMultiplier", 10);
+
+    // Native memory every fork takes on top of its Java heap: metaspace, code cache, GC structures, etc.
+    static final int FORK_MEMORY_OVERHEAD_MB = Integer.getInteger("jcstress.fork.memoryOverheadMb", 256);
+
     final PrintStream out;
     final Options opts;
+    final StressSeeds stressSeeds;
 
     public JCStress(Options opts) {
         this.opts = opts;
         this.out = System.out;
+        this.stressSeeds = new StressSeeds(opts.getStressSeed());
     }
 
     public void run() throws Exception {
@@ -61,20 +73,30 @@ public class JCStress {
             return;
         }
 
-        TimeBudget timeBudget = new TimeBudget(config.configs.size(), opts.timeBudget());
+        int adaptiveForks = (int) ((long) config.configs.size() * Math.max(0, opts.getAdaptivePercent()) / 100);
+        BanditAllocator bandit = new BanditAllocator(config.configs, adaptiveForks);
+        int totalForks = config.configs.size() + adaptiveForks;
+
+        TimeBudget timeBudget = new TimeBudget(totalForks, opts.timeBudget());
         timeBudget.printOn(out);
 
-        ConsoleReportPrinter printer = new ConsoleReportPrinter(opts, new PrintWriter(out, true), config.configs.size(), timeBudget);
+        out.println("  Live HTML report is updated at " + new File(opts.getResultDest()).getAbsolutePath() + File.separator + "index.html");
+        out.println();
+
+        ConsoleReportPrinter printer = new ConsoleReportPrinter(opts, new PrintWriter(out, true), totalForks, timeBudget);
         DiskWriteCollector diskCollector = new DiskWriteCollector(opts.getResultFile());
-        TestResultCollector mux = MuxCollector.of(printer, diskCollector);
+        LiveHTMLReportPrinter livePrinter = new LiveHTMLReportPrinter(opts.getResultDest());
+        TestResultCollector mux = MuxCollector.of(printer, livePrinter, diskCollector);
         SerializedBufferCollector sink = new SerializedBufferCollector(mux);
 
-        TestExecutor executor = new TestExecutor(opts.verbosity(), sink, config.scheduler, timeBudget);
+        ForkAccounting accounting = new ForkAccounting();
+        TestExecutor executor = new TestExecutor(opts, sink, config.scheduler, timeBudget, bandit, stressSeeds, accounting);
         printer.setExecutor(executor);
 
         executor.runAll(config.configs);
 
         sink.close();
+        livePrinter.close();
         diskCollector.close();
 
         printer.printFinishLine();
@@ -82,6 +104,21 @@ public class JCStress {
         out.println();
         out.println();
 
+        if (opts.verbosity().printAllTests()) {
+            diskCollector.printStatsOn(out);
+        }
+
+        accounting.printOn(out);
+
+        if (adaptiveForks > 0) {
+            bandit.printStatsOn(out);
+        }
+
+        if (VMSupport.stressSeedAvailable()) {
+            stressSeeds.printOn(out);
+            stressSeeds.writeTo(new File(opts.getResultDest(), "stress-seeds.txt"));
+        }
+
         parseResults();
     }
 
@@ -98,16 +135,31 @@ public class JCStress {
 
         SortedSet<String> tests = getTests();
 
-        Topology topology = Topology.get();
+        out.println("Detecting container limits:");
+        CGroups cgroups = CGroups.get();
+        cgroups.printStatus(out);
+        out.println();
+
+        out.println("Detecting memory budget for forks:");
+        MemoryBudget memory = MemoryBudget.forSystem(memoryLimitMb(cgroups), forkMemoryMb());
+        memory.printStatus(out);
+        out.println();
+
+        Topology topology = Topology.get(opts.getCpuList());
         out.println("Detecting CPU topology and computing scheduling classes:");
         topology.printStatus(out);
         out.println();
 
         out.println("  Scheduling classes for matching tests:");
-        Scheduler scheduler = new Scheduler(topology, opts.getCPUCount());
+        Scheduler scheduler = new Scheduler(topology, opts.getCPUCount(), memory);
+        if (OSSupport.memoryPlacementAvailable()) {
+            scheduler.enableMemoryPlacement();
+        }
         Map<Integer, List<SchedulingClass>> classes = computeSchedulingClasses(tests, scheduler);
 
-        List<TestConfig> configs = prepareRunProgram(classes, tests);
+        List<TestConfig> configs = (opts.getRerunFile() != null) ?
+                prepareRerunProgram(classes, tests) :
+                prepareRunProgram(classes, tests);
 
         opts.printSettingsOn(out);
 
@@ -119,6 +171,21 @@ public class JCStress {
         return new ConfigsWithScheduler(scheduler, configs);
     }
 
+    private int forkMemoryMb() {
+        return opts.getHeapPerForkMb() + FORK_MEMORY_OVERHEAD_MB;
+    }
+
+    private long memoryLimitMb(CGroups cgroups) {
+        long limit = cgroups.memoryLimit();
+        if (limit == -1) {
+            return -1;
+        }
+
+        // This JVM lives in the same cgroup, leave the room for it
+        long avail = limit - Runtime.getRuntime().maxMemory();
+        return Math.max(0, avail / 1024 / 1024);
+    }
+
     private static class ConfigsWithScheduler {
         public final Scheduler scheduler;
         public final List<TestConfig> configs;
@@ -152,14 +219,51 @@ public class JCStress {
     }
 
     public void parseResults() throws Exception {
-        InProcessCollector collector = new InProcessCollector();
+        // Merge the results while reading, so that we do not keep
+        // every fork result around. Excess output lines are spilled to disk.
+        MergingCollector collector = new MergingCollector(new File(opts.getResultDest(), "overflow"));
         DiskReadCollector drc = new DiskReadCollector(opts.getResultFile(), collector);
         drc.dump();
         drc.close();
 
-        new TextReportPrinter(opts, collector).work();
-        new HTMLReportPrinter(opts, collector, out).work();
-        new ExceptionReportPrinter(collector).work();
+        Collection<TestResult> results = collector.getTestResults();
+
+        new TextReportPrinter(opts, results).work();
+        new HTMLReportPrinter(opts, results, out).work();
+        new ExceptionReportPrinter(results).work();
+    }
+
+    public void diff() throws Exception {
+        List<String> files = opts.getDiffFiles();
+        ResultDiff diff = new ResultDiff(files.get(0), files.get(1));
+        diff.compute();
+        diff.printOn(out);
+    }
+
+    public void history() throws Exception {
+        HistoryStore store = new HistoryStore(new File(opts.getHistoryDir()));
+
+        String file = opts.getIngestFile();
+        if (file != null) {
+            long start = System.nanoTime();
+            HistoryStore.Run run = store.ingest(file, new File(file).getName());
+            out.printf("Ingested %s as run %s in %d ms%n", file, run, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            out.println();
+        }
+
+        out.println("History store: " + store.runs().size() + " runs, " + store.tests().size() + " tests");
+        if (opts.verbosity().printAllTests()) {
+            for (HistoryStore.Run run : store.runs()) {
+                out.println("  " + run);
+            }
+        }
+        out.println();
+
+        if (opts.shouldPrintTrend()) {
+            long start = System.nanoTime();
+            store.printTrends(out, Pattern.compile(opts.getTestFilter()), opts.verbosity().printAllTests());
+            out.printf("Query took %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
     }
 
     private SortedSet<Integer> computeActorCounts(Set<String> tests) {
@@ -173,14 +277,18 @@ public class JCStress {
 
     private List<TestConfig> prepareRunProgram(Map<Integer, List<SchedulingClass>> scheduleClasses, Set<String> tests) {
         List<TestConfig> configs = new ArrayList<>();
-        for (VMSupport.Config config : VMSupport.getAvailableVMConfigs()) {
-            for (String test : tests) {
-                TestInfo info = TestList.getInfo(test);
-                for (SchedulingClass scl : scheduleClasses.get(info.threads())) {
-                    if (opts.isSplitCompilation() && VMSupport.compilerDirectivesAvailable()) {
-                        forkedSplit(configs, config, info, scl);
-                    } else {
-                        forkedUnified(configs, config, info, scl);
+        if (opts.getCoverageStrength() > 0 && opts.isSplitCompilation() && VMSupport.compilerDirectivesAvailable()) {
+            forkedCovered(configs, scheduleClasses, tests);
+        } else {
+            for (VMSupport.Config config : VMSupport.getAvailableVMConfigs()) {
+                for (String test : tests) {
+                    TestInfo info = TestList.getInfo(test);
+                    for (SchedulingClass scl : scheduleClasses.get(info.threads())) {
+                        if (opts.isSplitCompilation() && VMSupport.compilerDirectivesAvailable()) {
+                            forkedSplit(configs, config, info, scl);
+                        } else {
+                            forkedUnified(configs, config, info, scl);
+                        }
                     }
                 }
             }
@@ -192,6 +300,77 @@ public class JCStress {
         return configs;
     }
 
+    List<TestConfig> prepareRerunProgram(Map<Integer, List<SchedulingClass>> scheduleClasses, Set<String> tests) {
+        // Pick up the exact configurations that failed, forks would merge here.
+        // Configurations do not include stress seeds, keep the failing seeds
+        // of every configuration to replay them.
+        Map<TestConfig, Set<Integer>> failed = new LinkedHashMap<>();
+        try {
+            DiskReadCollector drc = new DiskReadCollector(opts.getRerunFile(), r -> {
+                TestConfig cfg = r.getConfig();
+                if (!tests.contains(cfg.name)) {
+                    return;
+                }
+                if (r.status() != Status.NORMAL || !r.grading().isPassed) {
+                    Set<Integer> seeds = failed.computeIfAbsent(cfg, k -> new LinkedHashSet<>());
+                    if (cfg.hasStressSeed()) {
+                        seeds.add(cfg.stressSeed);
+                    }
+                }
+            });
+            drc.dump();
+            drc.close();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot read " + opts.getRerunFile(), e);
+        }
+
+        out.println("  Failed configurations to re-run:");
+        List<TestConfig> configs = new ArrayList<>();
+        int forks = opts.getForks() * RERUN_FORKS_MULTIPLIER;
+        int count = 0;
+        for (Map.Entry<TestConfig, Set<Integer>> e : failed.entrySet()) {
+            TestConfig cfg = e.getKey();
+            List<Integer> seeds = new ArrayList<>(e.getValue());
+            out.println("    " + cfg.toDetailedTest());
+
+            // Scheduling class might not be available on this machine,
+            // try all available ones then.
+            List<SchedulingClass> scls = scheduleClasses.get(cfg.threads);
+            if (scls == null || scls.isEmpty()) {
+                out.println("      No scheduling classes for " + cfg.threads + " actors are available on this machine, skipping.");
+                continue;
+            }
+            if (scls.contains(cfg.shClass)) {
+                scls = Collections.singletonList(cfg.shClass);
+            } else {
+                out.println("      Scheduling class is not available on this machine, using all " + scls.size() + " available classes.");
+            }
+
+            if (!seeds.isEmpty()) {
+                out.println("      Replaying failing stress seeds first: " + seeds);
+            }
+
+            // Replay every failing seed, then draw new seeds for the remaining forks.
+            TestInfo info = TestList.getInfo(cfg.name);
+            int cfgForks = Math.max(forks, seeds.size());
+            for (SchedulingClass scl : scls) {
+                for (int f = 0; f < cfgForks; f++) {
+                    TestConfig c = new TestConfig(opts, info, f, cfg.jvmArgs, cfg.compileMode, scl);
+                    if (cfg.hasStressSeed()) {
+                        c.setStressSeed(f < seeds.size() ? seeds.get(f) : stressSeeds.next());
+                    }
+                    configs.add(c);
+                }
+            }
+            count++;
+        }
+        out.println("    " + count + " configurations, " + forks + " forks each");
+        out.println();
+
+        Collections.shuffle(configs);
+        return configs;
+    }
+
     private boolean skipMode(int cm, VMSupport.Config config, int threads) {
         if (CompileMode.isUnified(cm)) {
             // Do not skip unified modes.
@@ -215,6 +394,14 @@ public class JCStress {
         return false;
     }
 
+    private TestConfig newConfig(TestInfo info, int forkId, VMSupport.Config config, int cm, SchedulingClass scl) {
+        TestConfig cfg = new TestConfig(opts, info, forkId, config.args(), cm, scl);
+        if (config.needsStressSeed()) {
+            cfg.setStressSeed(stressSeeds.next());
+        }
+        return cfg;
+    }
+
     private void forkedSplit(List<TestConfig> testConfigs, VMSupport.Config config, TestInfo info, SchedulingClass scl) {
         for (int cm : CompileMode.casesFor(info.threads(), VMSupport.c1Available(), VMSupport.c2Available())) {
             if (skipMode(cm, config, info.threads())) {
@@ -222,15 +409,82 @@ public class JCStress {
             }
             int forks = opts.getForks() * (config.stress() ? opts.getForksStressMultiplier() : 1);
             for (int f = 0; f < forks; f++) {
-                testConfigs.add(new TestConfig(opts, info, f, config.args(), cm, scl));
+                testConfigs.add(newConfig(info, f, config, cm, scl));
+            }
+        }
+    }
+
+    private void forkedCovered(List<TestConfig> testConfigs, Map<Integer, List<SchedulingClass>> scheduleClasses, Set<String> tests) {
+        List<VMSupport.Config> vmConfigs = VMSupport.getAvailableVMConfigs();
+        CoveragePlanner planner = new CoveragePlanner(opts.getCoverageStrength());
+
+        // Candidates only depend on the number of actors, compute them once.
+        // Plans are seeded per test, so that tests with the same number of actors
+        // do not all skip the same combinations.
+        Map<Integer, List<int[]>> candidatesByThreads = new HashMap<>();
+        SortedMap<Integer, IntSummaryStatistics> planSizes = new TreeMap<>();
+
+        for (String test : tests) {
+            TestInfo info = TestList.getInfo(test);
+            int threads = info.threads();
+            List<SchedulingClass> scls = scheduleClasses.get(threads);
+
+            List<int[]> candidates = candidatesByThreads.computeIfAbsent(threads,
+                    t -> coverageCandidates(vmConfigs, scls, t));
+            List<int[]> plan = planner.plan(candidates, test.hashCode());
+            planSizes.computeIfAbsent(threads, t -> new IntSummaryStatistics()).accept(plan.size());
+
+            for (int[] row : plan) {
+                VMSupport.Config config = vmConfigs.get(row[0]);
+                int cm = 0;
+                for (int a = threads - 1; a >= 0; a--) {
+                    cm = cm * CompileMode.MAX_MODES + row[1 + a];
+                }
+                SchedulingClass scl = scls.get(row[threads + 1]);
+
+                int forks = opts.getForks() * (config.stress() ? opts.getForksStressMultiplier() : 1);
+                for (int f = 0; f < forks; f++) {
+                    testConfigs.add(newConfig(info, f, config, cm, scl));
+                }
+            }
+        }
+
+        out.println("  Covering array (" + opts.getCoverageStrength() + "-wise, seeded per test) over JVM configs, compilation modes and scheduling classes:");
+        for (Map.Entry<Integer, IntSummaryStatistics> e : planSizes.entrySet()) {
+            IntSummaryStatistics st = e.getValue();
+            String size = (st.getMin() == st.getMax()) ? String.valueOf(st.getMin()) : (st.getMin() + ".." + st.getMax());
+            out.println("    " + e.getKey() + " actors: " + size + " of " + candidatesByThreads.get(e.getKey()).size() + " combinations");
+        }
+        out.println();
+    }
+
+    private List<int[]> coverageCandidates(List<VMSupport.Config> vmConfigs, List<SchedulingClass> scls, int threads) {
+        // Factors: JVM config, compilation mode for every actor, scheduling class
+        List<int[]> candidates = new ArrayList<>();
+        for (int c = 0; c < vmConfigs.size(); c++) {
+            VMSupport.Config config = vmConfigs.get(c);
+            for (int cm : CompileMode.casesFor(threads, VMSupport.c1Available(), VMSupport.c2Available())) {
+                if (skipMode(cm, config, threads)) {
+                    continue;
+                }
+                for (int s = 0; s < scls.size(); s++) {
+                    int[] row = new int[threads + 2];
+                    row[0] = c;
+                    for (int a = 0; a < threads; a++) {
+                        row[1 + a] = CompileMode.isC1(cm, a) ? 1 : (CompileMode.isC2(cm, a) ? 2 : 0);
+                    }
+                    row[threads + 1] = s;
+                    candidates.add(row);
+                }
             }
         }
+        return candidates;
     }
 
     private void forkedUnified(List<TestConfig> testConfigs, VMSupport.Config config, TestInfo info, SchedulingClass scl) {
         int forks = opts.getForks() * (config.stress() ? opts.getForksStressMultiplier() : 1);
         for (int f = 0; f < forks; f++) {
-            testConfigs.add(new TestConfig(opts, info, f, config.args(), CompileMode.UNIFIED, scl));
+            testConfigs.add(newConfig(info, f, config, CompileMode.UNIFIED, scl));
         }
     }
 
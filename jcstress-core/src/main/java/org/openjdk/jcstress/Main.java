@@ -51,6 +51,10 @@ public class Main {
         JCStress jcstress = new JCStress(opts);
         if (opts.shouldList()) {
             jcstress.listTests(opts);
+        } else if (opts.shouldDiff()) {
+            jcstress.diff();
+        } else if (opts.shouldUseHistory()) {
+            jcstress.history();
         } else if (opts.shouldParse()) {
             jcstress.parseResults();
         } else {
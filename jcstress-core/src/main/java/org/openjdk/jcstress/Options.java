@@ -30,6 +30,8 @@ import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
 import org.openjdk.jcstress.infra.runners.SpinLoopStyle;
 import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.CGroups;
+import org.openjdk.jcstress.os.OSSupport;
 import org.openjdk.jcstress.util.OptionFormatter;
 import org.openjdk.jcstress.util.StringUtils;
 import org.openjdk.jcstress.util.TimeValue;
@@ -53,8 +55,13 @@ public class Options {
     private final String[] args;
     private boolean parse;
     private boolean list;
+    private String historyDir;
+    private String ingestFile;
+    private boolean trend;
+    private List<String> diffFiles;
     private Verbosity verbosity;
     private int cpuCount;
+    private List<Integer> cpuList;
     private int heapPerFork;
     private int forks;
     private int forksStressMultiplier;
@@ -66,6 +73,12 @@ public class Options {
     private AffinityMode affinityMode;
     private boolean pretouchHeap;
     private TimeValue timeBudget;
+    private FailFastMode failFast;
+    private int convergenceEpochs;
+    private int adaptivePercent;
+    private int coverageStrength;
+    private String stressSeed;
+    private String rerunFile;
 
     public Options(String[] args) {
         this.args = args;
@@ -81,6 +94,24 @@ public class Options {
         OptionSpec<String> parse = parser.accepts("p", "Re-run parser on the result file. This will not run any tests.")
                 .withRequiredArg().ofType(String.class).describedAs("result file");
 
+        OptionSpec<String> history = parser.accepts("history", "Use the historical result store in a given directory. " +
+                        "This will not run any tests.")
+                .withRequiredArg().ofType(String.class).describedAs("dir");
+
+        OptionSpec<String> ingest = parser.accepts("ingest", "Add the result file as the new run into the historical result store.")
+                .withRequiredArg().ofType(String.class).describedAs("result file");
+
+        parser.accepts("trend", "Print the outcome trends across the runs in the historical result store, " +
+                        "for tests matching -t. In verbose mode it prints the trends for every test configuration.");
+
+        OptionSpec<String> diff = parser.accepts("diff", "Compare the outcome frequencies in two result files. " +
+                        "This will not run any tests.")
+                .withRequiredArg().withValuesSeparatedBy(',').ofType(String.class).describedAs("baseline,candidate");
+
+        OptionSpec<String> rerun = parser.accepts("rerun", "Re-run only the test configurations that failed or errored " +
+                        "in the given result file, with more forks. Test selector still applies.")
+                .withRequiredArg().ofType(String.class).describedAs("result file");
+
         OptionSpec<Boolean> list = parser.accepts("l", "List the available tests matching the requested settings, " +
                         "after all filters (like CPU count) are applied. In verbose mode it prints all real combinations which will run.")
                 .withOptionalArg().ofType(Boolean.class).describedAs("bool");
@@ -106,6 +137,11 @@ public class Options {
                 "Reducing the number of CPUs limits the amount of resources (including memory) the run is using.")
                 .withRequiredArg().ofType(Integer.class).describedAs("N");
 
+        OptionSpec<String> optCpuList = parser.accepts("cpuList", "CPUs to use, in the cpulist format, " +
+                "e.g. \"8-63\" or \"0,2,4-7\". Defaults to all CPUs in the system. Isolated CPUs (isolcpus, nohz_full) " +
+                "in this list are preferred for actor threads.")
+                .withRequiredArg().ofType(String.class).describedAs("list");
+
         OptionSpec<Integer> heapPerFork = parser.accepts("hs", "Java heap size per fork, in megabytes. This " +
                 "affects the stride size: maximum footprint will never be exceeded, regardless of min/max stride sizes.")
                 .withRequiredArg().ofType(Integer.class).describedAs("MB");
@@ -150,6 +186,32 @@ public class Options {
                 "Common time suffixes (s/m/h/d) are accepted.")
                 .withRequiredArg().ofType(TimeValue.class).describedAs("time");
 
+        OptionSpec<FailFastMode> optFailFast = parser.accepts("ff", "Fail fast after the test produced a forbidden outcome: " +
+                        "NONE runs everything, QUEUED cancels the queued configurations for the failed test, " +
+                        "RUNNING also stops the running forks for the failed test early.")
+                .withRequiredArg().ofType(FailFastMode.class).describedAs("mode");
+
+        OptionSpec<Integer> optConverge = parser.accepts("converge", "Stop the fork early once the outcome distribution " +
+                        "in the last given number of epochs matches the one in the same number of epochs before, " +
+                        "with no new outcomes, after the minimal sampling time. " +
+                        "The leftover time goes to other tests. \"0\" runs every fork for its full time.")
+                .withRequiredArg().ofType(Integer.class).describedAs("epochs");
+
+        OptionSpec<Integer> optAdaptive = parser.accepts("adaptive", "Run additional forks, as the percentage of the regular forks, " +
+                        "and give them to the test configurations that had shown interesting, forbidden or rare outcomes. " +
+                        "Every configuration still runs its regular forks. \"0\" runs the regular forks only.")
+                .withRequiredArg().ofType(Integer.class).describedAs("%");
+
+        OptionSpec<Integer> optCoverage = parser.accepts("coverage", "With split compilation, run the covering array of given strength " +
+                        "over JVM configuration, per-actor compilation mode and scheduling class, instead of their full product. " +
+                        "\"2\" covers every pair of factor values, \"3\" every triple, and so on. \"0\" runs the full product.")
+                .withRequiredArg().ofType(Integer.class).describedAs("strength");
+
+        OptionSpec<String> optStressSeed = parser.accepts("stressSeed", "C2 stress seeds for the forks of stress configurations: " +
+                        "\"random\" picks random seeds, \"rotate\" gives every fork a distinct seed, the number re-runs the given seed. " +
+                        "Seeds that produced interesting outcomes are reported at the end of the run.")
+                .withRequiredArg().ofType(String.class).describedAs("mode");
+
         parser.accepts("v", "Be verbose.");
         parser.accepts("vv", "Be extra verbose.");
         parser.accepts("vvv", "Be extra extra verbose.");
@@ -185,6 +247,23 @@ public class Options {
             this.resultFile = "jcstress-results-" + timestamp + ".bin.gz";
         }
         this.list = orDefault(set.has(list), false);
+        this.historyDir = set.valueOf(history);
+        this.ingestFile = set.valueOf(ingest);
+        this.trend = set.has("trend");
+        this.rerunFile = set.valueOf(rerun);
+        this.diffFiles = set.valuesOf(diff);
+        if (!diffFiles.isEmpty() && diffFiles.size() != 2) {
+            System.err.println("-diff requires exactly two result files.");
+            System.err.println();
+            parser.printHelpOn(System.err);
+            return false;
+        }
+        if ((ingestFile != null || trend) && historyDir == null) {
+            System.err.println("-ingest and -trend require -history.");
+            System.err.println();
+            parser.printHelpOn(System.err);
+            return false;
+        }
         if (set.has("vvv")) {
             this.verbosity = new Verbosity(3);
         } else if (set.has("vv")) {
@@ -196,6 +275,36 @@ public class Options {
         }
 
         int totalCpuCount = VMSupport.figureOutHotCPUs();
+
+        if (set.has(optCpuList)) {
+            try {
+                cpuList = StringUtils.decodeCpuList(set.valueOf(optCpuList));
+            } catch (NumberFormatException e) {
+                cpuList = Collections.emptyList();
+            }
+            if (cpuList.isEmpty()) {
+                System.err.println("Cannot parse CPU list: " + set.valueOf(optCpuList));
+                System.err.println();
+                parser.printHelpOn(System.err);
+                return false;
+            }
+
+            // Only keep the CPUs that are online and this process is allowed to run on.
+            SortedSet<Integer> usable = CGroups.get().restrict(cpuList);
+            SortedSet<Integer> online = OSSupport.onlineCPUs();
+            if (online != null) {
+                usable.retainAll(online);
+            }
+            if (usable.isEmpty()) {
+                System.err.println("None of the CPUs in the list are online and available to this process: " + set.valueOf(optCpuList));
+                System.err.println();
+                parser.printHelpOn(System.err);
+                return false;
+            }
+            cpuList = new ArrayList<>(usable);
+            totalCpuCount = Math.min(totalCpuCount, new HashSet<>(cpuList).size());
+        }
+
         cpuCount = orDefault(set.valueOf(cpus), totalCpuCount);
 
         if (cpuCount > totalCpuCount) {
@@ -259,6 +368,17 @@ public class Options {
 
         this.splitCompilation = orDefault(set.valueOf(optSplitCompilation), true);
         this.affinityMode = orDefault(set.valueOf(optAffinityMode), AffinityMode.LOCAL);
+        this.failFast = orDefault(set.valueOf(optFailFast), FailFastMode.NONE);
+        this.convergenceEpochs = orDefault(set.valueOf(optConverge), 0);
+        this.adaptivePercent = orDefault(set.valueOf(optAdaptive), 0);
+        this.coverageStrength = orDefault(set.valueOf(optCoverage), 0);
+        this.stressSeed = orDefault(set.valueOf(optStressSeed), StressSeeds.RANDOM);
+        if (!StressSeeds.isValid(stressSeed)) {
+            System.err.println("-stressSeed should be \"random\", \"rotate\", or a non-negative number.");
+            System.err.println();
+            parser.printHelpOn(System.err);
+            return false;
+        }
 
         return true;
     }
@@ -295,12 +415,29 @@ public class Options {
     public void printSettingsOn(PrintStream out) {
         out.println("  Test configuration:");
         out.printf("    Hardware CPUs in use: %d%n", getCPUCount());
+        if (getCpuList() != null) {
+            out.printf("    Hardware CPUs allowed: %s%n", StringUtils.join(getCpuList(), ","));
+        }
         out.printf("    Spinning style: %s%n", getSpinStyle());
         out.printf("    Test selection: \"%s\"%n", getTestFilter());
         out.printf("    Forks per test: %d normal, %d stress%n", getForks(), getForks()*getForksStressMultiplier());
         out.printf("    Test stride: %d strides x %d tests, but taking no more than %d Mb%n", getStrideCount(), getStrideSize(), getMaxFootprintMb());
         out.printf("    Test result blob: \"%s\"%n", resultFile);
         out.printf("    Test results: \"%s\"%n", resultDir);
+        if (rerunFile != null) {
+            out.printf("    Re-running failed configurations from: \"%s\"%n", rerunFile);
+        }
+        out.printf("    Fail fast: %s%n", failFast);
+        out.printf("    Stress seeds: %s%n", stressSeed);
+        if (convergenceEpochs > 0) {
+            out.printf("    Early stop: when the last %d epochs match the %d epochs before%n", convergenceEpochs, convergenceEpochs);
+        }
+        if (adaptivePercent > 0) {
+            out.printf("    Adaptive forks: %d%% on top of regular forks%n", adaptivePercent);
+        }
+        if (coverageStrength > 0) {
+            out.printf("    Configuration coverage: %d-wise%n", coverageStrength);
+        }
         out.println();
     }
 
@@ -341,6 +478,30 @@ public class Options {
         return list;
     }
 
+    public boolean shouldDiff() {
+        return !diffFiles.isEmpty();
+    }
+
+    public List<String> getDiffFiles() {
+        return diffFiles;
+    }
+
+    public boolean shouldUseHistory() {
+        return historyDir != null;
+    }
+
+    public String getHistoryDir() {
+        return historyDir;
+    }
+
+    public String getIngestFile() {
+        return ingestFile;
+    }
+
+    public boolean shouldPrintTrend() {
+        return trend;
+    }
+
     public String getTestFilter() {
         return testFilter;
     }
@@ -353,6 +514,10 @@ public class Options {
         return cpuCount;
     }
 
+    public List<Integer> getCpuList() {
+        return cpuList;
+    }
+
     public String getResultFile() {
         return resultFile;
     }
@@ -394,4 +559,28 @@ public class Options {
 
     public TimeValue timeBudget() { return timeBudget; }
 
+    public FailFastMode failFastMode() {
+        return failFast;
+    }
+
+    public int getConvergenceEpochs() {
+        return convergenceEpochs;
+    }
+
+    public int getAdaptivePercent() {
+        return adaptivePercent;
+    }
+
+    public int getCoverageStrength() {
+        return coverageStrength;
+    }
+
+    public String getStressSeed() {
+        return stressSeed;
+    }
+
+    public String getRerunFile() {
+        return rerunFile;
+    }
+
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.grading.TestGrading;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.vm.CompileMode;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Hands out C2 stress seeds to the forks of stress configurations, and
+ * remembers the seeds that had produced interesting outcomes.
+ * <p>
+ * Seeds can be random, like before; rotating, when every fork gets a distinct
+ * seed, so that stress forks explore different compiler schedules; or fixed,
+ * to re-run the particular seed.
+ */
+public class StressSeeds {
+
+    public static final String RANDOM = "random";
+    public static final String ROTATE = "rotate";
+
+    // Odd multiplier makes the sequence a permutation modulo 2^31
+    private static final int ROTATE_STEP = 0x9E3779B1;
+
+    private final String mode;
+    private final Random random;
+    private final int fixed;
+    private final int base;
+    private int count;
+
+    private final List<String> interesting;
+
+    public StressSeeds(String mode) {
+        this.mode = mode;
+        this.random = new Random();
+        this.interesting = new ArrayList<>();
+        switch (mode) {
+            case RANDOM:
+            case ROTATE:
+                fixed = -1;
+                base = random.nextInt(Integer.MAX_VALUE);
+                break;
+            default:
+                fixed = Integer.parseInt(mode);
+                base = fixed;
+        }
+    }
+
+    /**
+     * Checks if the mode is understood.
+     *
+     * @param mode mode
+     * @return true, if mode is valid
+     */
+    public static boolean isValid(String mode) {
+        if (RANDOM.equals(mode) || ROTATE.equals(mode)) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(mode) >= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return next stress seed
+     */
+    public synchronized int next() {
+        int c = count++;
+        if (fixed >= 0) {
+            return fixed;
+        }
+        if (mode.equals(ROTATE)) {
+            return (base + c * ROTATE_STEP) & Integer.MAX_VALUE;
+        }
+        return random.nextInt(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Records the seed if the fork had produced the interesting or forbidden outcomes.
+     *
+     * @param cfg fork configuration
+     * @param r fork result
+     */
+    public void record(TestConfig cfg, TestResult r) {
+        if (!cfg.hasStressSeed() || r.status() != Status.NORMAL) {
+            return;
+        }
+        TestGrading g = r.grading();
+        if (g.isPassed && !g.hasInteresting) {
+            return;
+        }
+
+        String line = String.format("%-12d %-10s %s, %s, %s",
+                cfg.stressSeed,
+                g.isPassed ? "INTERESTING" : "FAILED",
+                cfg.name,
+                CompileMode.isUnified(cfg.compileMode) ? "unified" : "mode " + cfg.compileMode,
+                cfg.jvmArgs);
+        synchronized (this) {
+            interesting.add(line);
+        }
+    }
+
+    public synchronized void printOn(PrintStream out) {
+        if (fixed >= 0) {
+            out.println("  Stress seed: " + fixed);
+        } else {
+            out.println("  Stress seeds: " + mode + ", " + count + " seeds given out");
+        }
+        if (!interesting.isEmpty()) {
+            out.println("  Stress seeds that produced interesting outcomes, re-run them with -t <test> -stressSeed <seed>:");
+            for (String line : interesting) {
+                out.println("    " + line);
+            }
+        }
+        out.println();
+    }
+
+    /**
+     * Writes the seeds that had produced interesting outcomes into a file.
+     * If there are no such seeds, the file left over from the previous run
+     * is removed, so that it would not be mistaken for this run's seeds.
+     *
+     * @param file target file
+     * @throws IOException on I/O errors
+     */
+    public synchronized void writeTo(File file) throws IOException {
+        if (interesting.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+        File dir = file.getParentFile();
+        if (dir != null) {
+            dir.mkdirs();
+        }
+        try (PrintWriter pw = new PrintWriter(new FileWriter(file))) {
+            for (String line : interesting) {
+                pw.println(line);
+            }
+        }
+    }
+
+}
@@ -24,9 +24,12 @@
  */
 package org.openjdk.jcstress;
 
+import org.openjdk.jcstress.annotations.Expect;
 import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.ForkStats;
 import org.openjdk.jcstress.infra.collectors.TestResult;
 import org.openjdk.jcstress.infra.collectors.TestResultCollector;
+import org.openjdk.jcstress.infra.grading.GradingResult;
 import org.openjdk.jcstress.infra.runners.*;
 import org.openjdk.jcstress.link.BinaryLinkServer;
 import org.openjdk.jcstress.link.ServerListener;
@@ -67,8 +70,32 @@ public class TestExecutor {
 
     private final TimeBudget timeBudget;
 
-    public TestExecutor(Verbosity verbosity, TestResultCollector sink, Scheduler scheduler, TimeBudget tb) throws IOException {
-        this.verbosity = verbosity;
+    private final FailFastMode failFast;
+    private final Set<String> failedTests;
+    private final AtomicInteger failedVersion;
+    private final AtomicInteger cancelled;
+
+    private final int convergenceEpochs;
+    private final int cpuCount;
+    private final List<Integer> cpuList;
+
+    private final BanditAllocator bandit;
+    private final StressSeeds stressSeeds;
+    private final ForkAccounting accounting;
+
+    public TestExecutor(Options opts, TestResultCollector sink, Scheduler scheduler, TimeBudget tb,
+                        BanditAllocator bandit, StressSeeds stressSeeds, ForkAccounting accounting) throws IOException {
+        this.bandit = bandit;
+        this.stressSeeds = stressSeeds;
+        this.accounting = accounting;
+        this.verbosity = opts.verbosity();
+        this.failFast = opts.failFastMode();
+        this.convergenceEpochs = opts.getConvergenceEpochs();
+        this.cpuCount = opts.getCPUCount();
+        this.cpuList = opts.getCpuList();
+        this.failedTests = ConcurrentHashMap.newKeySet();
+        this.failedVersion = new AtomicInteger();
+        this.cancelled = new AtomicInteger();
         this.sink = sink;
         this.vmByToken = new ConcurrentHashMap<>();
         this.scheduler = scheduler;
@@ -82,8 +109,19 @@ public class TestExecutor {
 
             @Override
             public void onResult(int token, TestResult result) {
-                vmByToken.get(token).recordResult(result);
+                VM vm = vmByToken.get(token);
+                vm.recordResult(result);
+                server.releaseStop(token);
                 notifyChanged();
+
+                // Grading takes a while, keep it away from the link thread.
+                supportTasks.submit(() -> processResult(vm.task, result));
+            }
+
+            @Override
+            public boolean onStopRequest(int token) {
+                VM vm = vmByToken.get(token);
+                return (vm != null) && failFast == FailFastMode.RUNNING && failedTests.contains(vm.task.name);
             }
         });
 
@@ -141,7 +179,19 @@ public class TestExecutor {
             Collections.sort(scls, Comparator.comparing(SchedulingClass::numActors).reversed());
         }
 
-        while (!byScl.isEmpty()) {
+        int seenFailedVersion = 0;
+
+        while (!byScl.isEmpty() || allocateAdaptive(byScl)) {
+
+            // Some tests have failed since the last time, drop their queued configs.
+            int curFailedVersion = failedVersion.get();
+            if (curFailedVersion != seenFailedVersion) {
+                seenFailedVersion = curFailedVersion;
+                cancelFailed(byScl, scls);
+                if (byScl.isEmpty()) {
+                    break;
+                }
+            }
 
             // Roll over the scheduling classes and try to greedily cram most
             // of the tasks for it. This exits when no scheduling classes can fit
@@ -186,6 +236,107 @@ public class TestExecutor {
         server.terminate();
     }
 
+    private boolean allocateAdaptive(Multimap<SchedulingClass, TestConfig> byScl) {
+        if (bandit.remaining() == 0) {
+            return false;
+        }
+
+        // Regular forks are all scheduled. Allocation learns from the results,
+        // wait for most of the running forks to report back first.
+        if (!vmByToken.isEmpty() && !bandit.hasFeedback()) {
+            return true;
+        }
+
+        // Give the next batch of additional forks out, enough to fill the machine.
+        for (TestConfig cfg : bandit.nextBatch(cpuCount, failedTests::contains)) {
+            if (cfg.hasStressSeed()) {
+                cfg.setStressSeed(stressSeeds.next());
+            }
+            byScl.put(cfg.getSchedulingClass(), cfg);
+        }
+
+        if (byScl.isEmpty()) {
+            // No configuration is eligible anymore, let other tests have the time.
+            for (int c = bandit.drain(); c > 0; c--) {
+                timeBudget.cancelTest();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void cancelFailed(Multimap<SchedulingClass, TestConfig> byScl, List<SchedulingClass> scls) {
+        for (int c = dropFailed(byScl, scls, failedTests); c > 0; c--) {
+            cancelled.incrementAndGet();
+            timeBudget.cancelTest();
+        }
+    }
+
+    /**
+     * Drops the queued configurations for the failed tests.
+     *
+     * @return number of dropped configurations
+     */
+    static int dropFailed(Multimap<SchedulingClass, TestConfig> byScl, List<SchedulingClass> scls, Set<String> failed) {
+        int dropped = 0;
+        for (SchedulingClass scl : scls) {
+            if (!byScl.containsKey(scl)) {
+                continue;
+            }
+            List<TestConfig> cfgs = new ArrayList<>(byScl.get(scl));
+            byScl.remove(scl);
+            for (TestConfig cfg : cfgs) {
+                if (failed.contains(cfg.name)) {
+                    dropped++;
+                } else {
+                    byScl.put(scl, cfg);
+                }
+            }
+        }
+        return dropped;
+    }
+
+    private void processResult(TestConfig task, TestResult result) {
+        checkFailFast(task, result);
+        stressSeeds.record(task, result);
+        if (bandit.remaining() > 0) {
+            bandit.record(task, result);
+        }
+    }
+
+    private void checkFailFast(TestConfig cfg, TestResult r) {
+        if (failFast == FailFastMode.NONE || !hasForbidden(r)) {
+            return;
+        }
+
+        if (failedTests.add(cfg.name)) {
+            failedVersion.incrementAndGet();
+
+            if (failFast == FailFastMode.RUNNING) {
+                // Stop the running forks for the same test
+                for (VM vm : vmByToken.values()) {
+                    if (vm.task.name.equals(cfg.name)) {
+                        server.notifyStop(vm.token);
+                    }
+                }
+            }
+            notifyChanged();
+        }
+    }
+
+    static boolean hasForbidden(TestResult r) {
+        if (r.status() != Status.NORMAL) {
+            return false;
+        }
+
+        for (GradingResult gr : r.grading().gradingResults.values()) {
+            if (gr.expect == Expect.FORBIDDEN && gr.count > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean processReadyVMs() {
         boolean reclaimed = false;
         for (VM vm : vmByToken.values()) {
@@ -215,6 +366,10 @@ public class TestExecutor {
         return jvmsFinishing.get();
     }
 
+    public int getCancelled() {
+        return cancelled.get();
+    }
+
     private class VM {
         private final String host;
         private final int port;
@@ -229,6 +384,10 @@ public class TestExecutor {
         private Future<List<String>> errs;
         private Future<List<String>> outs;
         private boolean isStarted;
+        private long launchNanos;
+        private long jobNanos;
+        private long resultNanos;
+        private long cpuTimeMs = ForkStats.UNKNOWN;
 
         public VM(String host, int port, int token, TestConfig task, CPUMap cpuMap) {
             this.host = host;
@@ -265,6 +424,10 @@ public class TestExecutor {
 
                 if (OSSupport.taskSetAvailable()) {
                     String map = cpuMap.globalAffinityMap();
+                    if (map.isEmpty() && cpuList != null) {
+                        // No affinity for this fork, but it still has to stay within the CPU list.
+                        map = StringUtils.join(cpuList, ",");
+                    }
                     if (!map.isEmpty()) {
                         command.add("taskset");
                         command.add("-c");
@@ -272,6 +435,9 @@ public class TestExecutor {
                     }
                 }
 
+                // memory policy, if placement is requested
+                command.addAll(OSSupport.memoryPolicyCommand(task.shClass.placement(), cpuMap.memoryRealCPUs()));
+
                 // basic Java line
                 command.addAll(VMSupport.getJavaInvokeLine());
 
@@ -281,6 +447,13 @@ public class TestExecutor {
                 // jvm args
                 command.addAll(task.jvmArgs);
 
+                // size the VM for the CPUs this fork got
+                command.addAll(VMSupport.forkErgonomicsFlags(cpuMap, task.jvmArgs));
+
+                if (task.hasStressSeed()) {
+                    command.add("-XX:StressSeed=" + task.stressSeed);
+                }
+
                 if (VMSupport.compilerDirectivesAvailable()) {
                     command.add("-XX:CompilerDirectivesFile=" + compilerDirectives.getAbsolutePath());
                 }
@@ -302,6 +475,7 @@ public class TestExecutor {
                 command.add(String.valueOf(token));
 
                 ProcessBuilder pb = new ProcessBuilder(command);
+                launchNanos = System.nanoTime();
                 process = pb.start();
 
                 // start the stream drainers and read the streams into memory;
@@ -323,8 +497,13 @@ public class TestExecutor {
                 return null;
             }
             processed = true;
+            jobNanos = System.nanoTime();
+            scheduler.reportedIn(cpuMap);
             timeBudget.startTest();
-            return new ForkedTestConfig(task, timeBudget.targetTestTimeMs());
+            ForkedTestConfig ftc = new ForkedTestConfig(task, timeBudget.targetTestTimeMs());
+            ftc.awaitStop = (failFast == FailFastMode.RUNNING);
+            ftc.convergenceEpochs = convergenceEpochs;
+            return ftc;
         }
 
         public synchronized boolean checkCompleted() {
@@ -354,6 +533,9 @@ public class TestExecutor {
                 throw new IllegalStateException("Should be completed");
             }
 
+            // The fork might have died before publishing its result.
+            server.releaseStop(token);
+
             // There is a pending exception that terminated the target VM.
             if (pendingException != null) {
                 result = new TestResult(Status.VM_ERROR);
@@ -366,6 +548,7 @@ public class TestExecutor {
             // Try to poll the exit code, and fail if it's not zero.
             try {
                 int ecode = process.waitFor();
+                long exitNanos = System.nanoTime();
 
                 if (ecode != 0) {
                     result = new TestResult(Status.VM_ERROR);
@@ -378,6 +561,11 @@ public class TestExecutor {
                 result.addVMOuts(outs.get());
                 result.addVMErrs(errs.get());
                 result.setConfig(task);
+
+                ForkStats stats = forkStats(exitNanos);
+                result.setForkStats(stats);
+                accounting.record(stats);
+
                 sink.add(result);
             } catch (InterruptedException | ExecutionException ex) {
                 result = new TestResult(Status.VM_ERROR);
@@ -395,11 +583,21 @@ public class TestExecutor {
             timeBudget.finishTest();
         }
 
+        private ForkStats forkStats(long exitNanos) {
+            return ForkStats.fromTimestamps(cpuMap.allocatedThreads().length, task.threads,
+                    launchNanos, jobNanos, resultNanos, exitNanos, cpuTimeMs);
+        }
+
         public synchronized void recordResult(TestResult r) {
             if (result != null) {
                 throw new IllegalStateException("VM had already published a result.");
             }
             result = r;
+            result.setConfig(task);
+
+            // The fork is still alive, poll its CPU time before it exits
+            resultNanos = System.nanoTime();
+            cpuTimeMs = ForkAccounting.cpuTimeMs(process);
         }
     }
 
@@ -71,6 +71,11 @@ public class TimeBudget {
         leftoverTests.decrementAndGet();
     }
 
+    public void cancelTest() {
+        // Test would not run, its time is redistributed to other tests.
+        leftoverTests.decrementAndGet();
+    }
+
     public void startTest() {
         int inflight = inflightTests.incrementAndGet();
         maxInflightTests.updateAndGet(x -> Math.max(x, inflight));
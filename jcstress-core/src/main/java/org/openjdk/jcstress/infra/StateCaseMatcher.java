@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches the observed states against the test cases.
+ * <p>
+ * The exact matches are resolved with the hash table. All case patterns are
+ * combined into a single alternation, so that only one regex match is needed
+ * to find the first matching case. The decisions are memoized, since tests
+ * usually observe the same states over and over again.
+ */
+public class StateCaseMatcher {
+
+    private static final int MAX_MEMO = Integer.getInteger("jcstress.grading.memoSize", 65536);
+
+    /**
+     * Numbered back-references would be shifted by the combined pattern groups.
+     */
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\[1-9]");
+
+    private static final StateCase NO_MATCH = new StateCase(Pattern.compile(""), null, null);
+
+    private final List<StateCase> cases;
+    private final Map<String, StateCase> exact;
+    private final Pattern combined;
+    private final Map<String, StateCase> memo;
+
+    public StateCaseMatcher(Collection<StateCase> cases) {
+        this.cases = new ArrayList<>(cases);
+        this.exact = new HashMap<>();
+        this.memo = new ConcurrentHashMap<>();
+
+        boolean canCombine = true;
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < this.cases.size(); c++) {
+            StateCase sc = this.cases.get(c);
+
+            // First case wins, as in the sequential search.
+            exact.putIfAbsent(sc.matchPattern(), sc);
+
+            if (BACK_REFERENCE.matcher(sc.matchPattern()).find()) {
+                canCombine = false;
+            }
+            if (c > 0) {
+                sb.append("|");
+            }
+            sb.append("(?<c").append(c).append(">(?:").append(sc.matchPattern()).append("))");
+        }
+
+        Pattern p = null;
+        if (canCombine && !this.cases.isEmpty()) {
+            try {
+                p = Pattern.compile(sb.toString());
+            } catch (IllegalArgumentException e) {
+                // Cannot combine, fall back to sequential matching
+            }
+        }
+        combined = p;
+    }
+
+    /**
+     * Finds the case for the state: exact matches first, then pattern matches.
+     *
+     * @param state state to match
+     * @return matching case, or null if there is no match
+     */
+    public StateCase match(String state) {
+        StateCase r = memo.get(state);
+        if (r == null) {
+            r = compute(state);
+            if (memo.size() < MAX_MEMO) {
+                memo.put(state, r);
+            }
+        }
+        return (r == NO_MATCH) ? null : r;
+    }
+
+    private StateCase compute(String state) {
+        StateCase r = exact.get(state);
+        if (r != null) {
+            return r;
+        }
+
+        if (combined != null) {
+            Matcher m = combined.matcher(state);
+            if (m.matches()) {
+                for (int c = 0; c < cases.size(); c++) {
+                    if (m.start("c" + c) != -1) {
+                        return cases.get(c);
+                    }
+                }
+            }
+            return NO_MATCH;
+        }
+
+        for (StateCase c : cases) {
+            if (c.matches(state)) {
+                return c;
+            }
+        }
+        return NO_MATCH;
+    }
+
+}
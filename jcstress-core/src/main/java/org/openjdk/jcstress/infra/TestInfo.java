@@ -42,6 +42,7 @@ public class TestInfo {
     private StateCase unmatched;
     private final Collection<String> refs;
     private final List<String> actorNames;
+    private volatile StateCaseMatcher matcher;
 
     public TestInfo(String name, String binaryName, String runner, String description, int threads, List<String> actorNames, boolean requiresFork) {
         this.name = name;
@@ -74,9 +75,25 @@ public class TestInfo {
             unmatched = aStateCase;
         } else {
             stateCases.add(aStateCase);
+            matcher = null;
         }
     }
 
+    /**
+     * Finds the case matching the state.
+     *
+     * @param state state to match
+     * @return matching case, or null if no case matches
+     */
+    public StateCase match(String state) {
+        StateCaseMatcher m = matcher;
+        if (m == null) {
+            m = new StateCaseMatcher(stateCases);
+            matcher = m;
+        }
+        return m.match(state);
+    }
+
     public String name() {
         return name;
     }
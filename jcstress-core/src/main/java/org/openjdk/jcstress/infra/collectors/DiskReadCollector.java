@@ -25,31 +25,116 @@
 package org.openjdk.jcstress.infra.collectors;
 
 import java.io.*;
+import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Reads test state from the file.
+ * <p>
+ * Understands both the framed format produced by {@link DiskWriteCollector},
+ * and the legacy gzipped object stream. Framed files are read up to the first
+ * truncated or corrupted frame, which is where the writer had crashed.
  *
  * @author Aleksey Shipilev (aleksey.shipilev@oracle.com)
  */
 public class DiskReadCollector {
 
+    private final String fileName;
+    private final long fileLength;
     private final TestResultCollector collector;
     private final FileInputStream fis;
     private final BufferedInputStream bis;
-    private final GZIPInputStream gis;
-    private final ObjectInputStream ois;
 
     public DiskReadCollector(String fileName, TestResultCollector collector) throws IOException {
+        this.fileName = fileName;
         this.collector = collector;
         File file = new File(fileName);
+        fileLength = file.length();
         fis = new FileInputStream(file);
-        bis = new BufferedInputStream(fis);
-        gis = new GZIPInputStream(bis);
-        ois = new ObjectInputStream(gis);
+        bis = new BufferedInputStream(fis, 64 * 1024);
     }
 
     public void dump() throws IOException, ClassNotFoundException {
+        bis.mark(2);
+        int b1 = bis.read();
+        int b2 = bis.read();
+        bis.reset();
+
+        if (b1 == (GZIPInputStream.GZIP_MAGIC & 0xFF) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            dumpLegacy();
+        } else {
+            dumpFrames();
+        }
+    }
+
+    private void dumpFrames() throws IOException, ClassNotFoundException {
+        DataInputStream dis = new DataInputStream(bis);
+        long remaining = fileLength;
+        int frame = 0;
+        while (true) {
+            int magic;
+            try {
+                magic = dis.readInt();
+            } catch (EOFException e) {
+                // expected
+                return;
+            }
+
+            if (magic != DiskWriteCollector.FRAME_MAGIC) {
+                System.err.println("Corrupted frame #" + frame + " in " + fileName + ", ignoring the rest of the file");
+                return;
+            }
+
+            // Frame header is not covered by checksum, do not trust the length
+            // to be anything sane: it should fit the rest of the file.
+            byte[] payload;
+            int count;
+            long crc;
+            try {
+                count = dis.readInt();
+                int len = dis.readInt();
+                crc = dis.readLong();
+                remaining -= DiskWriteCollector.FRAME_HEADER_SIZE;
+                if (count < 0 || len < 0 || len > remaining) {
+                    throw new EOFException();
+                }
+                remaining -= len;
+                payload = new byte[len];
+                dis.readFully(payload);
+            } catch (EOFException e) {
+                System.err.println("Truncated frame #" + frame + " in " + fileName + ", ignoring the rest of the file");
+                return;
+            }
+
+            CRC32 actual = new CRC32();
+            actual.update(payload, 0, payload.length);
+            if (actual.getValue() != crc) {
+                System.err.println("Checksum mismatch in frame #" + frame + " in " + fileName + ", ignoring the rest of the file");
+                return;
+            }
+
+            try (ObjectInputStream ois = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+                for (int c = 0; c < count; c++) {
+                    Object o = ois.readObject();
+                    if (o instanceof TestResult) {
+                        collector.add((TestResult) o);
+                    }
+                }
+            } catch (EOFException e) {
+                // Payload is fine, but the result count is not
+                System.err.println("Corrupted frame #" + frame + " in " + fileName + ", ignoring the rest of the file");
+                return;
+            }
+
+            frame++;
+        }
+    }
+
+    private void dumpLegacy() throws IOException, ClassNotFoundException {
+        GZIPInputStream gis = new GZIPInputStream(bis);
+        ObjectInputStream ois = new ObjectInputStream(gis);
+
         Object o;
         try {
             while ((o = ois.readObject()) != null) {
@@ -63,18 +148,6 @@ public class DiskReadCollector {
     }
 
     public void close() {
-        try {
-            ois.close();
-        } catch (IOException e) {
-            // expected
-        }
-
-        try {
-            gis.close();
-        } catch (IOException e) {
-            // expected
-        }
-
         try {
             bis.close();
         } catch (IOException e) {
@@ -27,61 +27,180 @@ package org.openjdk.jcstress.infra.collectors;
 import org.openjdk.jcstress.util.Environment;
 
 import java.io.*;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 /**
  * Dumps the test results to the disk.
+ * <p>
+ * Results are group-committed: they are serialized into the current batch
+ * as they arrive, and the batch is written out as a single checksummed frame
+ * either when it grows large enough, or when it gets old enough. This keeps
+ * the syscall and compression overheads away from the host, while bounding
+ * the amount of results we lose on crash to the last batch.
+ * <p>
+ * Frame format: magic, result count, payload length, CRC32 of payload, and then
+ * the payload itself, which is the deflated stream of serialized results.
  *
  * @author Aleksey Shipilev (aleksey.shipilev@oracle.com)
  */
 public class DiskWriteCollector implements TestResultCollector {
 
+    static final int FRAME_MAGIC = 0x4A435346; // "JCSF"
+    static final int FRAME_HEADER_SIZE = 4 + 4 + 4 + 8;
+
+    private static final int BATCH_SIZE = Integer.getInteger("jcstress.resultFile.batchSize", 256);
+    private static final int FLUSH_INTERVAL_MS = Integer.getInteger("jcstress.resultFile.flushIntervalMs", 1000);
+
     private final FileOutputStream fos;
-    private final BufferedOutputStream bos;
-    private final GZIPOutputStream gos;
-    private final ObjectOutputStream oos;
-    private int frames;
+    private final DataOutputStream dos;
+    private final Thread flusher;
+    private volatile boolean terminated;
+
+    private ByteArrayOutputStream batchBytes;
+    private ObjectOutputStream batchStream;
+    private int batchCount;
+    private long batchStart;
+
+    private long writtenResults;
+    private long writtenFrames;
+    private long writtenBytes;
+    private long writeNanos;
+    private final long openNanos;
+    private long closeNanos;
 
     public DiskWriteCollector(String fileName) throws IOException {
+        openNanos = System.nanoTime();
         File file = new File(fileName);
         fos = new FileOutputStream(file);
-        bos = new BufferedOutputStream(fos);
-        gos = new GZIPOutputStream(bos);
-        oos = new ObjectOutputStream(gos);
+        dos = new DataOutputStream(new BufferedOutputStream(fos, 64 * 1024));
+        startBatch();
+
+        flusher = new Thread(this::flushLoop);
+        flusher.setName(DiskWriteCollector.class.getName() + " flusher thread");
+        flusher.setDaemon(true);
+        flusher.start();
     }
 
     @Override
     public void add(TestResult result) {
         synchronized (this) {
             try {
-                // reset every once in a while to keep OIS away
-                // from leaking the object cache.
-                if ((frames++ & 0xFFF) == 0) {
-                    oos.reset();
-                }
+                long start = System.nanoTime();
 
                 result.setEnv(Environment.getInstance());
 
-                oos.writeObject(result);
-                oos.flush();
-                gos.flush();
-                bos.flush();
-                fos.flush();
+                batchStream.writeObject(result);
+                batchCount++;
+
+                writeNanos += System.nanoTime() - start;
+
+                if (batchCount >= BATCH_SIZE) {
+                    commitBatch();
+                }
             } catch (IOException e) {
                 // expect
             }
         }
     }
 
+    private void flushLoop() {
+        while (!terminated) {
+            synchronized (this) {
+                try {
+                    wait(FLUSH_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    // do nothing
+                }
+
+                if (batchCount > 0 &&
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart) >= FLUSH_INTERVAL_MS) {
+                    try {
+                        commitBatch();
+                    } catch (IOException e) {
+                        // expect
+                    }
+                }
+            }
+        }
+    }
+
+    private void startBatch() throws IOException {
+        batchBytes = new ByteArrayOutputStream();
+        batchStream = new ObjectOutputStream(new DeflaterOutputStream(batchBytes, new Deflater(Deflater.BEST_SPEED)));
+        batchCount = 0;
+        batchStart = System.nanoTime();
+    }
+
+    private void commitBatch() throws IOException {
+        if (batchCount == 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        // Completes the deflater stream as well.
+        batchStream.close();
+
+        byte[] payload = batchBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        dos.writeInt(FRAME_MAGIC);
+        dos.writeInt(batchCount);
+        dos.writeInt(payload.length);
+        dos.writeLong(crc.getValue());
+        dos.write(payload);
+        dos.flush();
+
+        writtenResults += batchCount;
+        writtenFrames++;
+        writtenBytes += payload.length + FRAME_HEADER_SIZE;
+
+        startBatch();
+
+        writeNanos += System.nanoTime() - start;
+    }
+
     public void close() {
+        terminated = true;
+        synchronized (this) {
+            notifyAll();
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            // do nothing
+        }
+
         synchronized (this) {
-            flushAndClose(oos);
-            flushAndClose(gos);
-            flushAndClose(bos);
+            try {
+                commitBatch();
+            } catch (IOException e) {
+                // expect
+            }
+            flushAndClose(dos);
             flushAndClose(fos);
+            closeNanos = System.nanoTime();
         }
     }
 
+    public synchronized void printStatsOn(PrintStream out) {
+        double writeMs = TimeUnit.NANOSECONDS.toMicros(writeNanos) / 1000D;
+        long endNanos = (closeNanos != 0) ? closeNanos : System.nanoTime();
+        double wallMs = TimeUnit.NANOSECONDS.toMicros(endNanos - openNanos) / 1000D;
+        out.println("  Result file:");
+        out.printf("    %d results in %d frames, %d KB on disk, %.0f results/sec over the run%n",
+                writtenResults, writtenFrames, writtenBytes / 1024,
+                (wallMs > 0) ? writtenResults * 1000D / wallMs : 0D);
+        out.printf("    %.1f ms spent serializing and writing (%.2f%% of the run)%n",
+                writeMs, (wallMs > 0) ? writeMs * 100D / wallMs : 0D);
+        out.println();
+    }
+
     private static void flushAndClose(OutputStream stream) {
         try {
             stream.flush();
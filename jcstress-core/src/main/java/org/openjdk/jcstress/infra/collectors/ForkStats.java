@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.collectors;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Host-side accounting for a single fork: how many CPUs it held, and how
+ * the time was spent between the fork phases.
+ */
+public class ForkStats implements Serializable {
+
+    public static final long UNKNOWN = -1;
+
+    private final int cpus;
+    private final int actors;
+    private final long startupMs;
+    private final long runMs;
+    private final long shutdownMs;
+    private final long cpuTimeMs;
+
+    /**
+     * @param cpus number of CPUs reserved for the fork
+     * @param actors number of actor threads in the fork
+     * @param startupMs time from the launch to the job request
+     * @param runMs time from the job request to the result
+     * @param shutdownMs time from the result to the exit
+     * @param cpuTimeMs CPU time the fork had consumed, or {@link #UNKNOWN}
+     */
+    public ForkStats(int cpus, int actors, long startupMs, long runMs, long shutdownMs, long cpuTimeMs) {
+        this.cpus = cpus;
+        this.actors = actors;
+        this.startupMs = startupMs;
+        this.runMs = runMs;
+        this.shutdownMs = shutdownMs;
+        this.cpuTimeMs = cpuTimeMs;
+    }
+
+    /**
+     * Computes the fork phases from the timestamps taken at the phase boundaries.
+     * The timestamp of the phase that did not happen is zero: such phase takes
+     * no time, and its time goes to the previous phase.
+     *
+     * @param cpus number of CPUs reserved for the fork
+     * @param actors number of actor threads in the fork
+     * @param launchNanos {@link System#nanoTime()} when the fork was launched
+     * @param jobNanos {@link System#nanoTime()} when the fork requested the job, or zero
+     * @param resultNanos {@link System#nanoTime()} when the fork published the result, or zero
+     * @param exitNanos {@link System#nanoTime()} when the fork exited
+     * @param cpuTimeMs CPU time the fork had consumed, or {@link #UNKNOWN}
+     * @return fork stats
+     */
+    public static ForkStats fromTimestamps(int cpus, int actors,
+                                           long launchNanos, long jobNanos, long resultNanos, long exitNanos,
+                                           long cpuTimeMs) {
+        long job = (jobNanos != 0) ? jobNanos : exitNanos;
+        long res = (resultNanos != 0) ? resultNanos : exitNanos;
+        return new ForkStats(cpus, actors,
+                TimeUnit.NANOSECONDS.toMillis(job - launchNanos),
+                TimeUnit.NANOSECONDS.toMillis(res - job),
+                TimeUnit.NANOSECONDS.toMillis(exitNanos - res),
+                cpuTimeMs);
+    }
+
+    public int cpus() {
+        return cpus;
+    }
+
+    public int actors() {
+        return actors;
+    }
+
+    public long startupMs() {
+        return startupMs;
+    }
+
+    public long runMs() {
+        return runMs;
+    }
+
+    public long shutdownMs() {
+        return shutdownMs;
+    }
+
+    public long wallMs() {
+        return startupMs + runMs + shutdownMs;
+    }
+
+    public long cpuTimeMs() {
+        return cpuTimeMs;
+    }
+
+    /**
+     * @return CPU time reserved for the fork: CPUs are held from the launch until the result arrives
+     */
+    public long reservedCpuMs() {
+        return cpus * (startupMs + runMs);
+    }
+
+    /**
+     * @return CPU time the actors were running for
+     */
+    public long actorCpuMs() {
+        return actors * runMs;
+    }
+
+    @Override
+    public String toString() {
+        return "startup " + startupMs + " ms, run " + runMs + " ms, shutdown " + shutdownMs + " ms, " +
+                (cpuTimeMs != UNKNOWN ? cpuTimeMs + " ms CPU time" : "unknown CPU time") +
+                " on " + cpus + " CPUs";
+    }
+
+}
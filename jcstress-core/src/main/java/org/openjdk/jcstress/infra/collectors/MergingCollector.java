@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.collectors;
+
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.util.Counter;
+import org.openjdk.jcstress.util.Environment;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Merges the incoming results by test configuration as they arrive, so that
+ * report generation does not have to keep every single fork result in memory.
+ * <p>
+ * Only the first few lines of messages and VM output streams are retained per
+ * test. The line budget is shared by all configurations of the test, so that
+ * results merged by name later do not exceed it either. The rest are spilled
+ * to the files in a separate directory, and merged results carry the pointer
+ * to them. The spill directory is cleared when the collector is created.
+ * <p>
+ * Note the footprint is bounded by the number of configurations, not by the
+ * number of forks: every configuration keeps its merged counter and the
+ * retained lines until the reports are generated.
+ */
+public class MergingCollector implements TestResultCollector {
+
+    private static final int MAX_LINES = Integer.getInteger("jcstress.report.maxLinesPerTest", 500);
+
+    private final File spillDir;
+    private final Map<TestConfig, Accumulator> accumulators;
+    private final Map<String, Budget> budgets;
+    private final Map<String, List<Accumulator>> accumulatorsByName;
+    private List<TestResult> results;
+
+    public MergingCollector(File spillDir) {
+        this.spillDir = spillDir;
+        this.accumulators = new LinkedHashMap<>();
+        this.budgets = new HashMap<>();
+        this.accumulatorsByName = new HashMap<>();
+        clearSpills();
+    }
+
+    private void clearSpills() {
+        // Stale spills from the previous runs would be confused with ours
+        File[] files = spillDir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (f.isFile()) {
+                    f.delete();
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void add(TestResult result) {
+        if (results != null) {
+            throw new IllegalStateException("Results are already merged");
+        }
+
+        Accumulator acc = accumulators.get(result.getConfig());
+        if (acc == null) {
+            Budget budget = budgets.computeIfAbsent(result.getConfig().name, k -> new Budget());
+            acc = new Accumulator(result.getConfig(), accumulators.size(), budget);
+            accumulators.put(result.getConfig(), acc);
+            accumulatorsByName.computeIfAbsent(result.getConfig().name, k -> new ArrayList<>()).add(acc);
+        }
+        acc.add(result);
+    }
+
+    /**
+     * Merges the results that arrived so far for a single test. Unlike
+     * {@link #getTestResults()}, the collector keeps accepting new results
+     * after this.
+     *
+     * @param name test name
+     * @return merged results, one per configuration of the test
+     */
+    public synchronized List<TestResult> snapshot(String name) {
+        List<TestResult> r = new ArrayList<>();
+        if (results != null) {
+            for (TestResult tr : results) {
+                if (tr.getConfig().name.equals(name)) {
+                    r.add(tr);
+                }
+            }
+            return r;
+        }
+
+        for (Accumulator acc : accumulatorsByName.getOrDefault(name, Collections.emptyList())) {
+            r.add(acc.result());
+        }
+        return r;
+    }
+
+    public synchronized Collection<TestResult> getTestResults() {
+        if (results == null) {
+            results = new ArrayList<>(accumulators.size());
+            for (Accumulator acc : accumulators.values()) {
+                results.add(acc.result());
+            }
+            accumulators.clear();
+            accumulatorsByName.clear();
+            budgets.clear();
+        }
+        return results;
+    }
+
+    private class Accumulator {
+        private final TestConfig config;
+        private final Counter<String> counter;
+        private final Lines messages;
+        private final Lines vmOut;
+        private final Lines vmErr;
+        private Status status;
+        private Environment env;
+
+        Accumulator(TestConfig config, int id, Budget budget) {
+            this.config = config;
+            this.counter = new Counter<>();
+            String prefix = config.name + "-" + id;
+            this.messages = new Lines(prefix + "-messages.txt", budget.messages);
+            this.vmOut = new Lines(prefix + "-vmout.txt", budget.vmOut);
+            this.vmErr = new Lines(prefix + "-vmerr.txt", budget.vmErr);
+            this.status = Status.NORMAL;
+        }
+
+        void add(TestResult r) {
+            env = r.getEnv();
+            status = status.combine(r.status());
+            counter.merge(r.getCounter());
+            messages.addAll(r.getMessages());
+            vmOut.addAll(r.getVmOut());
+            vmErr.addAll(r.getVmErr());
+        }
+
+        TestResult result() {
+            TestResult root = new TestResult(status);
+            root.setConfig(config);
+            root.setEnv(env);
+            root.addState(counter);
+            root.addMessages(messages.retained());
+            root.addVMOuts(vmOut.retained());
+            root.addVMErrs(vmErr.retained());
+            return root;
+        }
+    }
+
+    /**
+     * Lines left to retain for all configurations of a single test, per stream.
+     */
+    private static class Budget {
+        private final int[] messages = { MAX_LINES };
+        private final int[] vmOut = { MAX_LINES };
+        private final int[] vmErr = { MAX_LINES };
+    }
+
+    private class Lines {
+        private final String spillName;
+        private final int[] budget;
+        private final List<String> lines;
+        private long spilled;
+
+        Lines(String spillName, int[] budget) {
+            this.spillName = spillName;
+            this.budget = budget;
+            this.lines = new ArrayList<>();
+        }
+
+        void addAll(List<String> src) {
+            int idx = 0;
+            while (idx < src.size() && budget[0] > 0) {
+                lines.add(src.get(idx++));
+                budget[0]--;
+            }
+
+            if (idx < src.size()) {
+                spill(src.subList(idx, src.size()));
+            }
+        }
+
+        private void spill(List<String> src) {
+            // Overwrite the stale file from previous runs on first spill
+            boolean append = (spilled > 0);
+            spilled += src.size();
+            spillDir.mkdirs();
+            try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(spillFile(), append)))) {
+                for (String s : src) {
+                    pw.println(s);
+                }
+            } catch (IOException e) {
+                // Nothing to do, the lines are lost
+            }
+        }
+
+        private File spillFile() {
+            return new File(spillDir, spillName);
+        }
+
+        List<String> retained() {
+            if (spilled > 0) {
+                List<String> r = new ArrayList<>(lines);
+                r.add("(" + spilled + " more lines in " + spillFile().getAbsolutePath() + ")");
+                return r;
+            }
+            return lines;
+        }
+    }
+
+}
@@ -52,6 +52,7 @@ public class TestResult implements Serializable {
     private final List<String> messages;
     private final List<String> vmOut;
     private final List<String> vmErr;
+    private ForkStats forkStats;
     private transient TestGrading grading;
 
     public TestResult(Status status) {
@@ -142,6 +143,17 @@ public class TestResult implements Serializable {
         }
     }
 
+    public void setForkStats(ForkStats stats) {
+        forkStats = stats;
+    }
+
+    /**
+     * @return fork accounting, or null if not recorded
+     */
+    public ForkStats getForkStats() {
+        return forkStats;
+    }
+
     public void setEnv(Environment e) {
         env = e;
     }
@@ -169,8 +169,9 @@ public class ConsoleReportPrinter implements TestResultCollector {
                 executor.getJVMsStarting(), executor.getJVMsRunning(), executor.getJVMsFinishing());
         String l3 = String.format("(CPUs: %d configured, %d allocated)",
                 totalCpuCount, cpus);
-        String l4 = String.format("(Results: %d planned; %d passed, %d failed, %d soft errs, %d hard errs)",
-                expectedResults, passed, failed, softErrors, hardErrors);
+        String l4 = String.format("(Results: %d planned; %d passed, %d failed, %d soft errs, %d hard errs%s)",
+                expectedResults, passed, failed, softErrors, hardErrors,
+                (executor.getCancelled() > 0) ? ", " + executor.getCancelled() + " cancelled" : "");
 
         if (!progressInteractive || progressAnsi) {
             progressLen[0] = l0.length();
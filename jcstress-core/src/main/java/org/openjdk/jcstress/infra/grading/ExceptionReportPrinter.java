@@ -25,7 +25,6 @@
 package org.openjdk.jcstress.infra.grading;
 
 
-import org.openjdk.jcstress.infra.collectors.InProcessCollector;
 import org.openjdk.jcstress.infra.collectors.TestResult;
 
 import java.util.*;
@@ -40,16 +39,14 @@ import java.util.*;
 public class ExceptionReportPrinter {
 
     private final List<String> failures;
-    private final InProcessCollector collector;
+    private final Collection<TestResult> results;
 
-    public ExceptionReportPrinter(InProcessCollector collector) {
-        this.collector = collector;
+    public ExceptionReportPrinter(Collection<TestResult> results) {
+        this.results = results;
         this.failures = new ArrayList<>();
     }
 
     public void work() {
-        List<TestResult> results = ReportUtils.mergedByConfig(collector.getTestResults());
-
         for (TestResult k : results) {
             emitTest(k);
         }
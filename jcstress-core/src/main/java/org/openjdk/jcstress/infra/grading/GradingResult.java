@@ -33,11 +33,67 @@ public class GradingResult {
     public final long count;
     public final String description;
 
-    public GradingResult(String id, Expect expect, long count, String description) {
+    /**
+     * Observed rate, and its 95% confidence bounds.
+     */
+    public final double rate;
+    public final double rateLow;
+    public final double rateHigh;
+
+    public GradingResult(String id, Expect expect, long count, long totalSamples, String description) {
         this.id = id;
         this.expect = expect;
         this.count = count;
         this.description = description;
+
+        if (totalSamples > 0) {
+            rate = 1.0 * count / totalSamples;
+            if (count == 0) {
+                rateLow = 0;
+                rateHigh = unobservedRateBound(totalSamples);
+            } else {
+                // Wilson score interval
+                double z = 1.96;
+                double z2n = z * z / totalSamples;
+                double center = (rate + z2n / 2) / (1 + z2n);
+                double half = z * Math.sqrt(rate * (1 - rate) / totalSamples + z2n / (4 * totalSamples)) / (1 + z2n);
+                rateLow = Math.max(0, center - half);
+                rateHigh = Math.min(1, center + half);
+            }
+        } else {
+            rate = 0;
+            rateLow = 0;
+            rateHigh = 1;
+        }
+    }
+
+    /**
+     * Expected number of samples to observe this outcome once, at the observed rate.
+     * For outcomes that were not observed, this is the lower bound.
+     *
+     * @return number of samples
+     */
+    public double expectedSamples() {
+        if (count > 0) {
+            return 1 / rate;
+        }
+        return 1 / rateHigh;
+    }
+
+    /**
+     * Computes the upper bound for the rate of the outcome that was never
+     * observed in a given number of samples, at 95% confidence. This is the
+     * exact binomial bound, which gives the usual "rule of three" for large
+     * sample counts.
+     *
+     * @param totalSamples number of samples
+     * @return upper bound for the rate
+     */
+    public static double unobservedRateBound(long totalSamples) {
+        if (totalSamples <= 0) {
+            return 1;
+        }
+        return -Math.expm1(Math.log(0.05) / totalSamples);
     }
 
 }
@@ -29,7 +29,6 @@ import org.openjdk.jcstress.Options;
 import org.openjdk.jcstress.annotations.Expect;
 import org.openjdk.jcstress.infra.Status;
 import org.openjdk.jcstress.infra.TestInfo;
-import org.openjdk.jcstress.infra.collectors.InProcessCollector;
 import org.openjdk.jcstress.infra.collectors.TestResult;
 import org.openjdk.jcstress.infra.runners.TestConfig;
 import org.openjdk.jcstress.infra.runners.TestList;
@@ -39,11 +38,16 @@ import org.openjdk.jcstress.vm.CompileMode;
 
 import java.awt.*;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Predicate;
 
 /**
@@ -54,22 +58,57 @@ import java.util.function.Predicate;
 public class HTMLReportPrinter {
 
     private final String resultDir;
-    private final InProcessCollector collector;
+    private final Collection<TestResult> results;
     private int cellStyle = 1;
 
-    public HTMLReportPrinter(Options opts, InProcessCollector collector, PrintStream out) {
-        this.collector = collector;
-        this.resultDir = opts.getResultDest();
-        File dir = new File(resultDir);
-        dir.mkdirs();
-        out.println("  HTML report generated at " + dir.getAbsolutePath() + File.separator + "index.html");
+    public HTMLReportPrinter(Options opts, Collection<TestResult> results, PrintStream out) {
+        this(opts.getResultDest(), results);
+        out.println("  HTML report generated at " + new File(resultDir).getAbsolutePath() + File.separator + "index.html");
     }
 
-    public void work() throws FileNotFoundException {
-        List<TestResult> byName = ReportUtils.mergedByName(collector.getTestResults());
+    HTMLReportPrinter(String resultDir, Collection<TestResult> results) {
+        this.results = results;
+        this.resultDir = resultDir;
+        new File(resultDir).mkdirs();
+    }
+
+    public void work() throws IOException {
+        List<TestResult> byName = ReportUtils.mergedByName(results);
         Collections.sort(byName, Comparator.comparing(TestResult::getName));
 
-        PrintWriter output = new PrintWriter(resultDir + "/index.html");
+        Multimap<String, TestResult> multiByName = ReportUtils.byName(results);
+        List<String> names = new ArrayList<>(multiByName.keys());
+        Collections.sort(names);
+
+        int threads = Integer.getInteger("jcstress.report.threads", Runtime.getRuntime().availableProcessors());
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // Grade everything up front: grading is the heaviest part, and both
+            // the index and the per-test pages would otherwise grade lazily.
+            pool.submit(() -> {
+                results.parallelStream().forEach(TestResult::grading);
+                byName.parallelStream().forEach(TestResult::grading);
+            }).join();
+
+            // Per-test pages are independent files, emit them in background
+            // while this thread writes the index. The output does not depend
+            // on the execution order.
+            ForkJoinTask<?> pages = pool.submit(() ->
+                names.parallelStream().forEach(name -> emitTestReport(name, multiByName.get(name)))
+            );
+
+            emitIndex(byName);
+
+            pages.join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    void emitIndex(List<TestResult> byName) throws IOException {
+        File page = new File(resultDir, "index.html");
+        File tmp = pageTemp(page);
+        PrintWriter output = new PrintWriter(tmp);
 
         printHeader(output);
 
@@ -167,8 +206,24 @@ public class HTMLReportPrinter {
         printFooter(output);
 
         output.close();
+        commitPage(tmp, page);
+    }
 
-        emitTestReports(ReportUtils.byName(collector.getTestResults()));
+    private static File pageTemp(File page) {
+        return new File(page.getParentFile(), "." + page.getName() + ".tmp");
+    }
+
+    /**
+     * Moves the completed page in place. The pages can be read while the
+     * report is still being updated, and this makes sure readers never see
+     * the half-written page.
+     */
+    private static void commitPage(File tmp, File page) throws IOException {
+        try {
+            Files.move(tmp.toPath(), page.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), page.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     private SortedMap<String, String> getEnv(List<TestResult> ts) {
@@ -327,17 +382,18 @@ public class HTMLReportPrinter {
         }
     }
 
-    private void emitTestReports(Multimap<String, TestResult> multiByName) {
-        multiByName.keys().parallelStream().forEach(name -> {
-            try {
-                TestInfo test = TestList.getInfo(name);
-                PrintWriter local = new PrintWriter(resultDir + "/" + name + ".html");
-                emitTestReport(local, multiByName.get(name), test);
-                local.close();
-            } catch (FileNotFoundException e) {
-                // do nothing
-            }
-        });
+    void emitTestReport(String name, Collection<TestResult> results) {
+        try {
+            TestInfo test = TestList.getInfo(name);
+            File page = new File(resultDir, name + ".html");
+            File tmp = pageTemp(page);
+            PrintWriter local = new PrintWriter(tmp);
+            emitTestReport(local, results, test);
+            local.close();
+            commitPage(tmp, page);
+        } catch (IOException e) {
+            // do nothing
+        }
     }
 
     public void emitTestReport(PrintWriter o, Collection<TestResult> results, TestInfo test) {
@@ -432,14 +488,19 @@ public class HTMLReportPrinter {
 
             String color = ReportUtils.statusToPassed(r) ? "green" : "red";
             String label = ReportUtils.statusToLabel(r);
-            o.println("<td align='center' bgColor='" + color + " '>" + label + "</td>");
+            TestGrading grading = r.grading();
+            String unobserved = "Unobserved outcomes are rarer than " + ReportUtils.formatRate(grading.unobservedRateBound) +
+                    " (95% confidence, " + grading.totalSamples + " samples)";
+            o.println("<td align='center' bgColor='" + color + " ' title='" + unobserved + "'>" + label + "</td>");
 
             for (String key : keys) {
-                GradingResult c = r.grading().gradingResults.get(key);
+                GradingResult c = grading.gradingResults.get(key);
                 if (c != null) {
-                    o.println("<td align='right' width='" + 100D/keys.size() + "%' bgColor=" + selectHTMLColor(c.expect, c.count == 0) + ">" + c.count + "</td>");
+                    String stats = "Rate: " + ReportUtils.formatRate(c.rate) + ", 95% CI: " + ReportUtils.rateInterval(c) +
+                            ", one in " + ReportUtils.oneIn(c) + " samples";
+                    o.println("<td align='right' width='" + 100D/keys.size() + "%' bgColor=" + selectHTMLColor(c.expect, c.count == 0) + " title='" + stats + "'>" + c.count + "</td>");
                 } else {
-                    o.println("<td align='right' width='" + 100D/keys.size() + "%' bgColor=" + selectHTMLColor(Expect.ACCEPTABLE, true) + ">0</td>");
+                    o.println("<td align='right' width='" + 100D/keys.size() + "%' bgColor=" + selectHTMLColor(Expect.ACCEPTABLE, true) + " title='" + unobserved + "'>0</td>");
                 }
             }
             o.println("</tr>");
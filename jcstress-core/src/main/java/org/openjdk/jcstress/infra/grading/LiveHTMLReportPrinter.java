@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.grading;
+
+import org.openjdk.jcstress.infra.collectors.MergingCollector;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.collectors.TestResultCollector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Maintains the HTML report while the tests are still running.
+ * <p>
+ * Incoming results are merged by test configuration with {@link MergingCollector},
+ * which keeps the retained output lines capped. The background thread
+ * periodically rewrites the index and the pages for the tests that got new
+ * results since the last update. Only those tests are merged and graded again,
+ * the rest keep their merged results and gradings from the previous updates.
+ * The final report is still generated from the result file after the run
+ * completes.
+ */
+public class LiveHTMLReportPrinter implements TestResultCollector {
+
+    private static final int UPDATE_INTERVAL_MS = Integer.getInteger("jcstress.report.liveUpdateIntervalMs", 30_000);
+
+    private final String resultDir;
+    private final MergingCollector merger;
+    private final Set<String> changed;
+    private final Thread updater;
+    private boolean isStopped;
+
+    // Accessed by the updater thread only
+    private final HTMLReportPrinter printer;
+    private final SortedMap<String, TestResult> mergedByName;
+    private boolean indexFailed;
+
+    public LiveHTMLReportPrinter(String resultDir) {
+        this(resultDir, UPDATE_INTERVAL_MS);
+    }
+
+    LiveHTMLReportPrinter(String resultDir, int updateIntervalMs) {
+        this.resultDir = resultDir;
+        this.merger = new MergingCollector(new File(resultDir, "overflow-live"));
+        this.changed = new HashSet<>();
+        this.printer = new HTMLReportPrinter(resultDir, Collections.emptyList());
+        this.mergedByName = new TreeMap<>();
+        this.updater = new Thread(() -> work(updateIntervalMs), "jcstress-live-report");
+        this.updater.setDaemon(true);
+        this.updater.start();
+    }
+
+    @Override
+    public synchronized void add(TestResult result) {
+        merger.add(result);
+        changed.add(result.getConfig().name);
+    }
+
+    private void work(int updateIntervalMs) {
+        while (true) {
+            Set<String> names;
+
+            synchronized (this) {
+                try {
+                    long deadline = System.currentTimeMillis() + updateIntervalMs;
+                    long left;
+                    while (!isStopped && (left = deadline - System.currentTimeMillis()) > 0) {
+                        wait(left);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                if (isStopped) {
+                    return;
+                }
+
+                if (changed.isEmpty()) {
+                    continue;
+                }
+
+                names = new HashSet<>(changed);
+                changed.clear();
+            }
+
+            update(names);
+        }
+    }
+
+    private void update(Set<String> names) {
+        for (String name : names) {
+            List<TestResult> configs = merger.snapshot(name);
+            TestResult merged = ReportUtils.merged(configs.get(0).getConfig(), configs);
+            merged.grading();
+            mergedByName.put(name, merged);
+            printer.emitTestReport(name, configs);
+        }
+
+        try {
+            printer.emitIndex(new ArrayList<>(mergedByName.values()));
+        } catch (IOException e) {
+            if (!indexFailed) {
+                indexFailed = true;
+                System.err.println("Cannot update the live HTML report index: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops the updates. The report files are left as they are,
+     * the final report is supposed to overwrite them.
+     */
+    public void close() {
+        synchronized (this) {
+            isStopped = true;
+            notifyAll();
+        }
+        try {
+            updater.join();
+        } catch (InterruptedException e) {
+            // do nothing
+        }
+    }
+
+}
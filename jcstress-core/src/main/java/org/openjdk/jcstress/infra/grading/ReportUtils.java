@@ -77,15 +77,21 @@ public class ReportUtils {
         return results;
     }
 
+    /**
+     * Groups the results by test name.
+     *
+     * @param src results, already merged by config
+     * @return results by test name
+     */
     public static Multimap<String, TestResult> byName(Collection<TestResult> src) {
         Multimap<String, TestResult> result = new HashMultimap<>();
-        for (TestResult r : mergedByConfig(src)) {
+        for (TestResult r : src) {
             result.put(r.getName(), r);
         }
         return result;
     }
 
-    private static TestResult merged(TestConfig config, Collection<TestResult> mergeable) {
+    static TestResult merged(TestConfig config, Collection<TestResult> mergeable) {
         Counter<String> counter = new Counter<>();
 
         List<String> messages = new ArrayList<>();
@@ -114,6 +120,34 @@ public class ReportUtils {
         return root;
     }
 
+    /**
+     * Formats the rate as percent, keeping the significant digits for the small rates.
+     *
+     * @param rate rate to format
+     * @return formatted rate
+     */
+    public static String formatRate(double rate) {
+        if (rate == 0) {
+            return "0%";
+        }
+        double p = rate * 100;
+        if (p >= 0.01) {
+            return String.format("%.2f%%", p);
+        } else {
+            return String.format("%.1e%%", p);
+        }
+    }
+
+    public static String rateInterval(GradingResult r) {
+        return "[" + formatRate(r.rateLow) + ", " + formatRate(r.rateHigh) + "]";
+    }
+
+    public static String oneIn(GradingResult r) {
+        double samples = r.expectedSamples();
+        String s = (samples < 1e6) ? String.format("%,.0f", samples) : String.format("%.1e", samples);
+        return (r.count > 0) ? s : (">" + s);
+    }
+
     public static void printResult(PrintWriter pw, TestResult r, boolean finalResults) {
         TestConfig config = r.getConfig();
 
@@ -130,6 +164,9 @@ public class ReportUtils {
             pw.format("  Compilation: %s%n", CompileMode.description(config.getCompileMode(), config.actorNames));
             pw.format("  JVM args: %s%n", config.jvmArgs);
             pw.format("  Fork: #%d%n", config.forkId + 1);
+            if (r.getForkStats() != null) {
+                pw.format("  Fork time: %s%n", r.getForkStats());
+            }
         }
         pw.println();
 
@@ -137,12 +174,18 @@ public class ReportUtils {
             final String headResult = "RESULT";
             final String headSamples = "SAMPLES";
             final String headFreq = "FREQ";
+            final String headCI = "95% CI";
+            final String headOneIn = "1 IN";
             final String headExpect = "EXPECT";
             final String headDesc = "DESCRIPTION";
 
+            TestGrading grade = r.grading();
+
             int idLen = headResult.length();
             int samplesLen = headSamples.length();
             int freqLen = Math.max(7, headFreq.length());
+            int ciLen = headCI.length();
+            int oneInLen = headOneIn.length();
             int expectLen = headExpect.length();
             int descLen = 60;
 
@@ -159,34 +202,40 @@ public class ReportUtils {
             }
             expectLen = Math.max(expectLen, test.unmatched().expect().toString().length());
 
+            for (GradingResult gradeRes : grade.gradingResults.values()) {
+                ciLen = Math.max(ciLen, rateInterval(gradeRes).length());
+                oneInLen = Math.max(oneInLen, oneIn(gradeRes).length());
+            }
+
             idLen += 2;
             samplesLen += 2;
             freqLen += 2;
+            ciLen += 2;
+            oneInLen += 2;
             expectLen += 2;
 
-            pw.printf("%" + idLen + "s%" + samplesLen + "s%" + freqLen + "s%" + expectLen + "s  %s%n",
-                    headResult, headSamples, headFreq, headExpect, headDesc);
+            String format = "%" + idLen + "s%" + samplesLen + "s%" + freqLen + "s%" + ciLen + "s%" + oneInLen + "s%" + expectLen + "s  %s%n";
 
-            TestGrading grade = r.grading();
-            long totalSamples = 0;
-            for (GradingResult gradeRes : grade.gradingResults.values()) {
-                totalSamples += gradeRes.count;
-            }
+            pw.printf(format,
+                    headResult, headSamples, headFreq, headCI, headOneIn, headExpect, headDesc);
 
-            if (totalSamples == 0) {
-                totalSamples = 1;
-            }
+            long totalSamples = Math.max(1, grade.totalSamples);
 
             for (GradingResult gradeRes : grade.gradingResults.values()) {
-                pw.printf("%" + idLen + "s%," + samplesLen + "d%" + freqLen + "s%" + expectLen + "s  %s%n",
+                pw.printf(format,
                         StringUtils.cutoff(gradeRes.id, idLen),
-                        gradeRes.count,
+                        String.format("%,d", gradeRes.count),
                         StringUtils.percent(gradeRes.count, totalSamples, 2),
+                        rateInterval(gradeRes),
+                        oneIn(gradeRes),
                         gradeRes.expect,
                         StringUtils.cutoff(gradeRes.description, descLen));
             }
 
             pw.println();
+            pw.printf("  Outcomes never observed in %,d samples are rarer than %s (95%% confidence).%n",
+                    grade.totalSamples, formatRate(grade.unobservedRateBound));
+            pw.println();
         }
 
         boolean errMsgsPrinted = false;
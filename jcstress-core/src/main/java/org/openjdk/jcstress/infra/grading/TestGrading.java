@@ -41,6 +41,8 @@ public class TestGrading {
     public boolean hasInteresting;
     public final TreeMap<String, GradingResult> gradingResults;
     public final List<String> failureMessages;
+    public final long totalSamples;
+    public final double unobservedRateBound;
 
     public static TestGrading grade(TestResult r) {
         return new TestGrading(r);
@@ -54,29 +56,20 @@ public class TestGrading {
         isPassed = true;
         hasInteresting = false;
 
+        long total = 0;
+        for (String s : r.getStateKeys()) {
+            total += r.getCount(s);
+        }
+        totalSamples = total;
+        unobservedRateBound = GradingResult.unobservedRateBound(total);
+
         List<StateCase> unmatchedStates = new ArrayList<>();
         unmatchedStates.addAll(test.cases());
 
         for (String s : r.getStateKeys()) {
 
-            // Figure out all matching cases, look for the exact match first:
-            StateCase matched = null;
-            for (StateCase c : test.cases()) {
-                if (c.matchesExactly(s)) {
-                    matched = c;
-                    break;
-                }
-            }
-
-            // Look for pattern match next:
-            if (matched == null) {
-                for (StateCase c : test.cases()) {
-                    if (c.matches(s)) {
-                        matched = c;
-                        break;
-                    }
-                }
-            }
+            // Figure out the matching case, exact match first, pattern match next:
+            StateCase matched = test.match(s);
 
             if (matched != null) {
                 // Has the match:
@@ -97,6 +90,7 @@ public class TestGrading {
                             s,
                             matched.expect(),
                             count,
+                            total,
                             matched.description()
                     ));
         }
@@ -113,6 +107,7 @@ public class TestGrading {
                             c.matchPattern(),
                             ex,
                             0,
+                            total,
                             c.description()
                     ));
         }
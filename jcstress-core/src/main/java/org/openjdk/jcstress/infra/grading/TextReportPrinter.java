@@ -28,7 +28,6 @@ package org.openjdk.jcstress.infra.grading;
 import org.openjdk.jcstress.Options;
 import org.openjdk.jcstress.Verbosity;
 import org.openjdk.jcstress.infra.Status;
-import org.openjdk.jcstress.infra.collectors.InProcessCollector;
 import org.openjdk.jcstress.infra.collectors.TestResult;
 
 import java.io.FileNotFoundException;
@@ -43,13 +42,13 @@ import java.util.function.Predicate;
  */
 public class TextReportPrinter {
 
-    private final InProcessCollector collector;
+    private final Collection<TestResult> results;
     private final Verbosity verbosity;
     private final PrintWriter pw;
     private final Set<TestResult> emittedTests;
 
-    public TextReportPrinter(Options opts, InProcessCollector collector) {
-        this.collector = collector;
+    public TextReportPrinter(Options opts, Collection<TestResult> results) {
+        this.results = results;
         this.pw = new PrintWriter(System.out, true);
         this.verbosity = opts.verbosity();
         this.emittedTests = new HashSet<>();
@@ -58,7 +57,7 @@ public class TextReportPrinter {
     public void work() {
         emittedTests.clear();
 
-        List<TestResult> byName = ReportUtils.mergedByName(collector.getTestResults());
+        List<TestResult> byName = ReportUtils.mergedByName(results);
         Collections.sort(byName, Comparator.comparing(TestResult::getName));
 
         pw.println("RUN RESULTS:");
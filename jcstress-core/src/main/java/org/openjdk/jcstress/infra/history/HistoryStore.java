@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.history;
+
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.DiskReadCollector;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.util.Counter;
+import org.openjdk.jcstress.util.StringUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * File-based store for the results of many runs.
+ * <p>
+ * Every ingested result file becomes a separate run. The run data is written
+ * into its own append-only segment file, with one block per test that carries
+ * the outcome counts for every test configuration. The index file maps each
+ * test to the segment blocks that mention it, so that the queries read only
+ * the blocks for the matching tests, and do not re-parse the result files.
+ */
+public class HistoryStore {
+
+    private static final int SEGMENT_MAGIC = 0x4A435348;
+    private static final int INDEX_MAGIC = 0x4A435349;
+    private static final String INDEX_FILE = "index.dat";
+
+    private final File dir;
+    private final List<Run> runs;
+    private final SortedMap<String, List<Block>> index;
+
+    public HistoryStore(File dir) throws IOException {
+        this.dir = dir;
+        this.runs = new ArrayList<>();
+        this.index = new TreeMap<>();
+
+        File indexFile = new File(dir, INDEX_FILE);
+        if (indexFile.exists()) {
+            readIndex(indexFile);
+        } else {
+            dir.mkdirs();
+        }
+    }
+
+    public List<Run> runs() {
+        return Collections.unmodifiableList(runs);
+    }
+
+    public Collection<String> tests() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Reads the result file, and records it as the new run.
+     *
+     * @param resultFile result file to ingest
+     * @param label human-readable label for the run
+     * @return new run
+     * @throws IOException on I/O errors
+     * @throws ClassNotFoundException when result file has unknown classes
+     */
+    public Run ingest(String resultFile, String label) throws IOException, ClassNotFoundException {
+        Map<String, String> env = new TreeMap<>();
+        SortedMap<String, SortedMap<String, Record>> byTest = aggregate(resultFile, env);
+
+        Run run = new Run(runs.size(), label, System.currentTimeMillis(), env);
+
+        File segment = segmentFile(run.id);
+        File tmp = new File(dir, segment.getName() + ".tmp");
+
+        Map<String, Block> blocks = new HashMap<>();
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            dos.writeInt(SEGMENT_MAGIC);
+            for (Map.Entry<String, SortedMap<String, Record>> e : byTest.entrySet()) {
+                long offset = dos.size();
+                dos.writeUTF(e.getKey());
+                dos.writeInt(e.getValue().size());
+                for (Record rec : e.getValue().values()) {
+                    rec.write(dos);
+                }
+                blocks.put(e.getKey(), new Block(run.id, offset, (int) (dos.size() - offset)));
+            }
+        }
+        Files.move(tmp.toPath(), segment.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        // Segment is in place, commit it with the new index.
+        runs.add(run);
+        for (Map.Entry<String, Block> e : blocks.entrySet()) {
+            index.computeIfAbsent(e.getKey(), k -> new ArrayList<>()).add(e.getValue());
+        }
+        writeIndex();
+
+        return run;
+    }
+
+    /**
+     * Reads the history for a given test.
+     *
+     * @param test test name
+     * @return records for the test, keyed by run, in run order
+     * @throws IOException on I/O errors
+     */
+    public SortedMap<Run, List<Record>> query(String test) throws IOException {
+        SortedMap<Run, List<Record>> result = new TreeMap<>(Comparator.comparingInt((Run r) -> r.id));
+        List<Block> blocks = index.get(test);
+        if (blocks == null) {
+            return result;
+        }
+
+        for (Block b : blocks) {
+            byte[] buf = new byte[b.length];
+            try (RandomAccessFile raf = new RandomAccessFile(segmentFile(b.run), "r")) {
+                raf.seek(b.offset);
+                raf.readFully(buf);
+            }
+
+            DataInputStream dis = new DataInputStream(new ByteArrayInputStream(buf));
+            String name = dis.readUTF();
+            if (!name.equals(test)) {
+                throw new IOException("Index is out of sync with segment " + b.run + ": expected " + test + ", got " + name);
+            }
+            int count = dis.readInt();
+            List<Record> records = new ArrayList<>(count);
+            for (int c = 0; c < count; c++) {
+                records.add(new Record(dis));
+            }
+            result.put(runs.get(b.run), records);
+        }
+        return result;
+    }
+
+    /**
+     * Prints the outcome trends for the tests matching the filter.
+     *
+     * @param out stream to print to
+     * @param filter test name filter
+     * @param perConfig print the trends for each test configuration separately
+     * @throws IOException on I/O errors
+     */
+    public void printTrends(PrintStream out, Pattern filter, boolean perConfig) throws IOException {
+        for (String test : index.keySet()) {
+            if (!filter.matcher(test).find()) {
+                continue;
+            }
+
+            out.println("  " + test);
+            SortedMap<Run, List<Record>> history = query(test);
+            if (perConfig) {
+                SortedSet<String> keys = new TreeSet<>();
+                for (List<Record> rs : history.values()) {
+                    for (Record r : rs) {
+                        keys.add(r.config);
+                    }
+                }
+                for (String key : keys) {
+                    out.println("    " + key);
+                    SortedMap<Run, Record> merged = new TreeMap<>(history.comparator());
+                    for (Map.Entry<Run, List<Record>> e : history.entrySet()) {
+                        for (Record r : e.getValue()) {
+                            if (r.config.equals(key)) {
+                                merged.put(e.getKey(), r);
+                            }
+                        }
+                    }
+                    printTrend(out, merged, "      ");
+                }
+            } else {
+                SortedMap<Run, Record> merged = new TreeMap<>(history.comparator());
+                for (Map.Entry<Run, List<Record>> e : history.entrySet()) {
+                    Record m = new Record("");
+                    for (Record r : e.getValue()) {
+                        m.add(r);
+                    }
+                    merged.put(e.getKey(), m);
+                }
+                printTrend(out, merged, "    ");
+            }
+            out.println();
+        }
+    }
+
+    private void printTrend(PrintStream out, SortedMap<Run, Record> history, String indent) {
+        SortedSet<String> states = new TreeSet<>();
+        int labelLen = 10;
+        for (Map.Entry<Run, Record> e : history.entrySet()) {
+            states.addAll(e.getValue().counter.elementSet());
+            labelLen = Math.max(labelLen, e.getKey().toString().length());
+        }
+
+        Map<String, Run> firstSeen = new HashMap<>();
+        for (Map.Entry<Run, Record> e : history.entrySet()) {
+            for (String s : e.getValue().counter.elementSet()) {
+                if (e.getValue().counter.count(s) > 0) {
+                    firstSeen.putIfAbsent(s, e.getKey());
+                }
+            }
+        }
+
+        int[] widths = new int[states.size()];
+        int idx = 0;
+        for (String s : states) {
+            widths[idx++] = Math.max(10, s.length() + 2);
+        }
+
+        out.print(indent + String.format("%-" + labelLen + "s", ""));
+        idx = 0;
+        for (String s : states) {
+            out.printf("%" + widths[idx++] + "s", s);
+        }
+        out.printf("  %s%n", "Status");
+
+        for (Map.Entry<Run, Record> e : history.entrySet()) {
+            Record r = e.getValue();
+            long total = r.counter.totalCount();
+            out.print(indent + String.format("%-" + labelLen + "s", e.getKey()));
+            idx = 0;
+            for (String s : states) {
+                out.printf("%" + widths[idx++] + "s", StringUtils.percent(r.counter.count(s), total, 2));
+            }
+            out.printf("  %s%n", r.status);
+        }
+
+        out.print(indent + String.format("%-" + labelLen + "s", "First seen"));
+        idx = 0;
+        for (String s : states) {
+            Run run = firstSeen.get(s);
+            out.printf("%" + widths[idx++] + "s", (run == null) ? "-" : ("#" + run.id));
+        }
+        out.println();
+    }
+
+    private File segmentFile(int run) {
+        return new File(dir, String.format("segment-%06d.dat", run));
+    }
+
+    /**
+     * Streams the result file, and aggregates the outcome counts by test and
+     * test configuration. Only the counters are retained, not the results themselves.
+     *
+     * @param resultFile result file to read
+     * @param env map to put the environment of the run into
+     * @return records by test name, then by configuration
+     * @throws IOException on I/O errors
+     * @throws ClassNotFoundException when result file has unknown classes
+     */
+    static SortedMap<String, SortedMap<String, Record>> aggregate(String resultFile, Map<String, String> env) throws IOException, ClassNotFoundException {
+        SortedMap<String, SortedMap<String, Record>> byTest = new TreeMap<>();
+        DiskReadCollector drc = new DiskReadCollector(resultFile, r -> {
+            if (env.isEmpty() && r.getEnv() != null) {
+                env.putAll(r.getEnv().entries());
+            }
+            String key = configKey(r.getConfig());
+            Record rec = byTest.computeIfAbsent(r.getName(), k -> new TreeMap<>())
+                    .computeIfAbsent(key, k -> new Record(key));
+            rec.add(r);
+        });
+        drc.dump();
+        drc.close();
+        return byTest;
+    }
+
+    private static String configKey(TestConfig cfg) {
+        return "mode " + cfg.compileMode + ", " + cfg.shClass + ", " + cfg.jvmArgs;
+    }
+
+    private void readIndex(File file) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (dis.readInt() != INDEX_MAGIC) {
+                throw new IOException("Not a history index: " + file);
+            }
+
+            int runCount = dis.readInt();
+            for (int r = 0; r < runCount; r++) {
+                runs.add(new Run(dis));
+            }
+
+            int testCount = dis.readInt();
+            for (int t = 0; t < testCount; t++) {
+                String name = dis.readUTF();
+                int blockCount = dis.readInt();
+                List<Block> blocks = new ArrayList<>(blockCount);
+                for (int b = 0; b < blockCount; b++) {
+                    blocks.add(new Block(dis.readInt(), dis.readLong(), dis.readInt()));
+                }
+                index.put(name, blocks);
+            }
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        File tmp = new File(dir, INDEX_FILE + ".tmp");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            dos.writeInt(INDEX_MAGIC);
+
+            dos.writeInt(runs.size());
+            for (Run r : runs) {
+                r.write(dos);
+            }
+
+            dos.writeInt(index.size());
+            for (Map.Entry<String, List<Block>> e : index.entrySet()) {
+                dos.writeUTF(e.getKey());
+                dos.writeInt(e.getValue().size());
+                for (Block b : e.getValue()) {
+                    dos.writeInt(b.run);
+                    dos.writeLong(b.offset);
+                    dos.writeInt(b.length);
+                }
+            }
+        }
+        Files.move(tmp.toPath(), new File(dir, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static class Block {
+        final int run;
+        final long offset;
+        final int length;
+
+        Block(int run, long offset, int length) {
+            this.run = run;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    public static class Run {
+        public final int id;
+        public final String label;
+        public final long timestamp;
+        public final Map<String, String> env;
+
+        Run(int id, String label, long timestamp, Map<String, String> env) {
+            this.id = id;
+            this.label = label;
+            this.timestamp = timestamp;
+            this.env = env;
+        }
+
+        Run(DataInputStream dis) throws IOException {
+            id = dis.readInt();
+            label = dis.readUTF();
+            timestamp = dis.readLong();
+            int len = dis.readInt();
+            env = new TreeMap<>();
+            for (int c = 0; c < len; c++) {
+                env.put(dis.readUTF(), dis.readUTF());
+            }
+        }
+
+        void write(DataOutputStream dos) throws IOException {
+            dos.writeInt(id);
+            dos.writeUTF(label);
+            dos.writeLong(timestamp);
+            dos.writeInt(env.size());
+            for (Map.Entry<String, String> e : env.entrySet()) {
+                dos.writeUTF(e.getKey());
+                dos.writeUTF(String.valueOf(e.getValue()));
+            }
+        }
+
+        @Override
+        public String toString() {
+            String vm = env.get("java.vm.version");
+            return "#" + id + " " + label + ((vm != null) ? " (" + vm + ")" : "");
+        }
+    }
+
+    public static class Record {
+        public final String config;
+        public final Counter<String> counter;
+        public Status status;
+
+        Record(String config) {
+            this.config = config;
+            this.counter = new Counter<>();
+            this.status = Status.NORMAL;
+        }
+
+        Record(DataInputStream dis) throws IOException {
+            config = dis.readUTF();
+            status = Status.valueOf(dis.readUTF());
+            counter = new Counter<>(dis);
+        }
+
+        void add(TestResult r) {
+            status = status.combine(r.status());
+            counter.merge(r.getCounter());
+        }
+
+        void add(Record r) {
+            status = status.combine(r.status);
+            counter.merge(r.counter);
+        }
+
+        void write(DataOutputStream dos) throws IOException {
+            dos.writeUTF(config);
+            dos.writeUTF(status.name());
+            counter.write(dos);
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.history;
+
+import org.openjdk.jcstress.util.StringUtils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Compares the outcome frequencies between two result files.
+ * <p>
+ * Both files are streamed, and only the per-config outcome counters are
+ * retained. For every outcome, the difference in frequencies is checked
+ * with the two-proportion z-test, and the confidence interval for the
+ * difference is computed from the sample counts.
+ * <p>
+ * Outcomes that appeared or disappeared are always reported, regardless of
+ * their significance: a handful of new samples of the rare outcome is exactly
+ * what the user is looking for. The frequency changes are only reported when
+ * they are significant.
+ */
+public class ResultDiff {
+
+    /**
+     * Frequency changes with z-score under this threshold are not reported. The default
+     * is conservative, since we are doing lots of comparisons at once.
+     */
+    private static final double Z_THRESHOLD = Double.parseDouble(System.getProperty("jcstress.diff.zThreshold", "3.29"));
+
+    /**
+     * z-score for the 95% confidence intervals.
+     */
+    private static final double Z_95 = 1.96;
+
+    private final String baseFile;
+    private final String candFile;
+
+    private final List<Change> changes;
+    private int onlyInBase;
+    private int onlyInCand;
+    private int compared;
+
+    public ResultDiff(String baseFile, String candFile) {
+        this.baseFile = baseFile;
+        this.candFile = candFile;
+        this.changes = new ArrayList<>();
+    }
+
+    public List<Change> compute() throws IOException, ClassNotFoundException {
+        SortedMap<String, SortedMap<String, HistoryStore.Record>> base = HistoryStore.aggregate(baseFile, new HashMap<>());
+        SortedMap<String, SortedMap<String, HistoryStore.Record>> cand = HistoryStore.aggregate(candFile, new HashMap<>());
+
+        changes.clear();
+        onlyInBase = 0;
+        onlyInCand = 0;
+        compared = 0;
+
+        Set<String> tests = new TreeSet<>();
+        tests.addAll(base.keySet());
+        tests.addAll(cand.keySet());
+
+        for (String test : tests) {
+            SortedMap<String, HistoryStore.Record> bs = base.getOrDefault(test, Collections.emptySortedMap());
+            SortedMap<String, HistoryStore.Record> cs = cand.getOrDefault(test, Collections.emptySortedMap());
+
+            Set<String> configs = new TreeSet<>();
+            configs.addAll(bs.keySet());
+            configs.addAll(cs.keySet());
+
+            for (String config : configs) {
+                HistoryStore.Record b = bs.get(config);
+                HistoryStore.Record c = cs.get(config);
+                if (b == null) {
+                    onlyInCand++;
+                } else if (c == null) {
+                    onlyInBase++;
+                } else {
+                    compared++;
+                    compare(test, config, b, c);
+                }
+            }
+        }
+
+        changes.sort(Comparator.comparingDouble((Change ch) -> -Math.abs(ch.z))
+                .thenComparing(ch -> ch.test)
+                .thenComparing(ch -> ch.config)
+                .thenComparing(ch -> ch.state));
+        return changes;
+    }
+
+    private void compare(String test, String config, HistoryStore.Record b, HistoryStore.Record c) {
+        long n1 = b.counter.totalCount();
+        long n2 = c.counter.totalCount();
+        if (n1 == 0 || n2 == 0) {
+            return;
+        }
+
+        Set<String> states = new TreeSet<>();
+        states.addAll(b.counter.elementSet());
+        states.addAll(c.counter.elementSet());
+
+        for (String state : states) {
+            long c1 = b.counter.count(state);
+            long c2 = c.counter.count(state);
+
+            double p1 = 1.0 * c1 / n1;
+            double p2 = 1.0 * c2 / n2;
+
+            // Two-proportion z-test, with the pooled estimate
+            double p = 1.0 * (c1 + c2) / (n1 + n2);
+            double se = Math.sqrt(p * (1 - p) * (1.0 / n1 + 1.0 / n2));
+            double z = (se > 0) ? (p2 - p1) / se : 0;
+
+            // Unpooled estimate for the confidence interval of the difference
+            double ci = Z_95 * Math.sqrt(p1 * (1 - p1) / n1 + p2 * (1 - p2) / n2);
+
+            Kind kind;
+            if (c1 == 0 && c2 > 0) {
+                kind = Kind.APPEARED;
+            } else if (c1 > 0 && c2 == 0) {
+                kind = Kind.DISAPPEARED;
+            } else {
+                kind = Kind.CHANGED;
+            }
+
+            if (kind != Kind.CHANGED || Math.abs(z) >= Z_THRESHOLD) {
+                changes.add(new Change(kind, test, config, state, c1, n1, c2, n2, z, ci));
+            }
+        }
+    }
+
+    public void printOn(PrintStream out) {
+        out.println("Comparing results:");
+        out.println("  Baseline:  " + baseFile);
+        out.println("  Candidate: " + candFile);
+        out.println();
+        out.printf("  %d configs compared, %d only in baseline, %d only in candidate%n", compared, onlyInBase, onlyInCand);
+        int appeared = 0;
+        int disappeared = 0;
+        int changed = 0;
+        for (Change ch : changes) {
+            switch (ch.kind) {
+                case APPEARED:
+                    appeared++;
+                    break;
+                case DISAPPEARED:
+                    disappeared++;
+                    break;
+                case CHANGED:
+                    changed++;
+                    break;
+                default:
+                    throw new IllegalStateException("Unhandled kind");
+            }
+        }
+        out.printf("  %d outcomes appeared, %d disappeared, %d significant changes (|z| >= %.2f), most significant first%n",
+                appeared, disappeared, changed, Z_THRESHOLD);
+        out.println();
+
+        for (Change ch : changes) {
+            out.printf("  %13s  z = %+7.2f  %s%n", "[" + ch.kind + "]", ch.z, ch.test);
+            out.printf("  %13s  %s%n", "", ch.config);
+            out.printf("  %13s  \"%s\": %s (%,d of %,d) -> %s (%,d of %,d), delta %s ± %s%n", "",
+                    ch.state,
+                    StringUtils.percent(ch.baseCount, ch.baseTotal, 4), ch.baseCount, ch.baseTotal,
+                    StringUtils.percent(ch.candCount, ch.candTotal, 4), ch.candCount, ch.candTotal,
+                    String.format("%+.4f%%", ch.delta() * 100),
+                    String.format("%.4f%%", ch.ci * 100));
+            out.println();
+        }
+    }
+
+    public enum Kind {
+        APPEARED,
+        DISAPPEARED,
+        CHANGED,
+    }
+
+    public static class Change {
+        public final Kind kind;
+        public final String test;
+        public final String config;
+        public final String state;
+        public final long baseCount;
+        public final long baseTotal;
+        public final long candCount;
+        public final long candTotal;
+        public final double z;
+        public final double ci;
+
+        Change(Kind kind, String test, String config, String state, long baseCount, long baseTotal, long candCount, long candTotal, double z, double ci) {
+            this.kind = kind;
+            this.test = test;
+            this.config = config;
+            this.state = state;
+            this.baseCount = baseCount;
+            this.baseTotal = baseTotal;
+            this.candCount = candCount;
+            this.candTotal = candTotal;
+            this.z = z;
+            this.ci = ci;
+        }
+
+        public double delta() {
+            return 1.0 * candCount / candTotal - 1.0 * baseCount / baseTotal;
+        }
+    }
+
+}
@@ -570,16 +570,13 @@ public class JCStressTestProcessor extends AbstractProcessor {
             pw.println("        threads.add(new " + name + "(ls, lr, " + (isStateItself ? "null" : "test") + "));");
         }
         pw.println();
+        pw.println("        workers = threads;");
+        pw.println();
         pw.println("        for (CounterThread<" + r + "> t : threads) {");
         pw.println("            t.start();");
         pw.println("        }");
         pw.println();
-        pw.println("        if (config.time > 0) {");
-        pw.println("            try {");
-        pw.println("                TimeUnit.MILLISECONDS.sleep(config.time);");
-        pw.println("            } catch (InterruptedException e) {");
-        pw.println("            }");
-        pw.println("        }");
+        pw.println("        awaitTestTime();");
         pw.println();
         pw.println("        control.stopping = true;");
         pw.println();
@@ -660,7 +657,6 @@ public class JCStressTestProcessor extends AbstractProcessor {
             pw.println("        private Counter<" + r + "> " + ITERATION_LOOP_PREFIX + a.getSimpleName() + "() {");
             pw.println("            int len = config.strideSize * config.strideCount;");
             pw.println("            int stride = config.strideSize;");
-            pw.println("            Counter<" + r + "> counter = new Counter<>();");
             pw.println("            if (config.localAffinity) AffinitySupport.bind(config.localAffinityMap[" + n + "]);");
             pw.println("            while (true) {");
             pw.println("                WorkerSync sync = workerSync;");
@@ -677,6 +673,7 @@ public class JCStressTestProcessor extends AbstractProcessor {
             pw.println("                    " + CONSUME_PREFIX + "reinit(counter, ss, rs, " + (isStateItself ? "null" : "test") + ", len, " + n + ");");
             pw.println("                }");
             pw.println("                if (sync.tryStartUpdate()) {");
+            pw.println("                    onEpoch();");
             pw.println("                    workerSync = new WorkerSync(control.stopping, " + actorsCount + ", config.spinLoopStyle);");
             pw.println("                }");
             pw.println("                sync.postUpdate();");
@@ -907,7 +904,7 @@ public class JCStressTestProcessor extends AbstractProcessor {
         pw.println();
         pw.println("    private void run(Counter<Outcome> results) {");
         pw.println("        long target = System.currentTimeMillis() + config.time;");
-        pw.println("        while (System.currentTimeMillis() < target) {");
+        pw.println("        while (System.currentTimeMillis() < target && !isStopRequested()) {");
         pw.println();
 
         if (info.getTest().equals(info.getState())) {
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.runners;
+
+import org.openjdk.jcstress.util.Counter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Detects when the outcome distribution stops changing.
+ * <p>
+ * Worker counters are cumulative, and cumulative frequencies move less and
+ * less with every epoch, whatever the data does. Instead, this compares the
+ * outcome frequencies within the last N epochs against those within the N
+ * epochs before. The distribution has converged when these windows agree
+ * within the tolerance, and no new outcomes showed up in either of them.
+ * <p>
+ * The snapshots are kept in a ring buffer of outcome-indexed arrays, so that
+ * the check does not allocate while other workers are waiting for it.
+ *
+ * @param <R> result type
+ */
+class ConvergenceDetector<R> {
+
+    private final int windowEpochs;
+    private final double tolerance;
+
+    private final Map<R, Integer> outcomes;
+    private final long[][] snapshots;
+    private final ObjLongConsumer<R> accumulator;
+
+    private long[] current;
+    private int epoch;
+    private int lastNewOutcomeEpoch;
+
+    ConvergenceDetector(int windowEpochs, double tolerance) {
+        if (windowEpochs <= 0) {
+            throw new IllegalArgumentException("Window should be positive: " + windowEpochs);
+        }
+        this.windowEpochs = windowEpochs;
+        this.tolerance = tolerance;
+        this.outcomes = new HashMap<>();
+        this.snapshots = new long[2 * windowEpochs + 1][];
+        this.accumulator = this::accumulate;
+    }
+
+    /**
+     * Starts the epoch snapshot.
+     */
+    void begin() {
+        int slot = epoch % snapshots.length;
+        long[] s = snapshots[slot];
+        if (s == null || s.length < outcomes.size()) {
+            s = new long[Math.max(4, outcomes.size() * 2)];
+        } else {
+            Arrays.fill(s, 0);
+        }
+        current = s;
+    }
+
+    /**
+     * Adds the cumulative counter to the epoch snapshot.
+     *
+     * @param counter worker counter
+     */
+    void add(Counter<R> counter) {
+        counter.forEach(accumulator);
+    }
+
+    /**
+     * Completes the epoch snapshot.
+     *
+     * @return true, if the distribution has converged
+     */
+    boolean end() {
+        int now = epoch;
+        snapshots[now % snapshots.length] = current;
+        current = null;
+        epoch++;
+
+        int mid = now - windowEpochs;
+        int old = now - 2 * windowEpochs;
+        if (old < 0 || lastNewOutcomeEpoch > old) {
+            return false;
+        }
+
+        return isStable(snapshots[old % snapshots.length],
+                        snapshots[mid % snapshots.length],
+                        snapshots[now % snapshots.length]);
+    }
+
+    private void accumulate(R r, long count) {
+        Integer idx = outcomes.get(r);
+        if (idx == null) {
+            idx = outcomes.size();
+            outcomes.put(r, idx);
+            lastNewOutcomeEpoch = epoch;
+        }
+        if (idx >= current.length) {
+            current = Arrays.copyOf(current, Math.max(idx + 1, current.length * 2));
+        }
+        current[idx] += count;
+    }
+
+    private boolean isStable(long[] old, long[] mid, long[] now) {
+        int len = outcomes.size();
+
+        long prevTotal = 0;
+        long lastTotal = 0;
+        for (int i = 0; i < len; i++) {
+            prevTotal += get(mid, i) - get(old, i);
+            lastTotal += get(now, i) - get(mid, i);
+        }
+        if (prevTotal <= 0 || lastTotal <= 0) {
+            return false;
+        }
+
+        for (int i = 0; i < len; i++) {
+            double pf = 1.0 * (get(mid, i) - get(old, i)) / prevTotal;
+            double lf = 1.0 * (get(now, i) - get(mid, i)) / lastTotal;
+            if (Math.abs(pf - lf) > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long get(long[] arr, int idx) {
+        return (idx < arr.length) ? arr[idx] : 0;
+    }
+
+}
@@ -28,9 +28,20 @@ import org.openjdk.jcstress.util.Counter;
 
 public abstract class CounterThread<R> extends AbstractThread {
     private Counter<R> result;
+    protected final Counter<R> counter = new Counter<>();
     public Counter<R> result() {
         return result;
     }
+
+    /**
+     * Returns the running counter. It is only safe to read it
+     * when the worker is not consuming the results.
+     *
+     * @return running counter
+     */
+    public Counter<R> counter() {
+        return counter;
+    }
     private CounterThread() { // Cannot touch this
         super("N/A");
     }
@@ -40,6 +40,9 @@ public class ForkedTestConfig {
     public int strideCount;
     public boolean localAffinity;
     public int[] localAffinityMap;
+    public int[] systemAffinityMap;
+    public boolean awaitStop;
+    public int convergenceEpochs;
 
     public ForkedTestConfig(TestConfig cfg, int testTime) {
         spinLoopStyle = cfg.spinLoopStyle;
@@ -51,6 +54,7 @@ public class ForkedTestConfig {
         localAffinity = cfg.shClass.mode() == AffinityMode.LOCAL;
         if (localAffinity) {
             localAffinityMap = cfg.cpuMap.actorRealCPUs();
+            systemAffinityMap = cfg.cpuMap.systemRealCPUs();
         }
     }
 
@@ -68,7 +72,14 @@ public class ForkedTestConfig {
             for (int c = 0; c < len; c++) {
                 localAffinityMap[c] = dis.readInt();
             }
+            len = dis.readInt();
+            systemAffinityMap = new int[len];
+            for (int c = 0; c < len; c++) {
+                systemAffinityMap[c] = dis.readInt();
+            }
         }
+        awaitStop = dis.readBoolean();
+        convergenceEpochs = dis.readInt();
     }
 
     public void write(DataOutputStream dos) throws IOException {
@@ -84,7 +95,13 @@ public class ForkedTestConfig {
             for (int am : localAffinityMap) {
                 dos.writeInt(am);
             }
+            dos.writeInt(systemAffinityMap.length);
+            for (int am : systemAffinityMap) {
+                dos.writeInt(am);
+            }
         }
+        dos.writeBoolean(awaitStop);
+        dos.writeInt(convergenceEpochs);
     }
 
     public void adjustStrideCount(ResourceEstimator estimator) {
@@ -29,6 +29,7 @@ import org.openjdk.jcstress.infra.collectors.TestResult;
 import org.openjdk.jcstress.util.Counter;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -39,13 +40,25 @@ import java.util.concurrent.TimeUnit;
 public abstract class Runner<R> {
     protected static final int MIN_TIMEOUT_MS = 30*1000;
 
+    private static final int CONVERGENCE_MIN_TIME_MS = Integer.getInteger("jcstress.convergence.minTimeMs", 1000);
+    private static final double CONVERGENCE_TOLERANCE = Double.parseDouble(System.getProperty("jcstress.convergence.tolerance", "0.01"));
+
     protected final Control control;
     protected final ForkedTestConfig config;
     protected volatile boolean forceExit;
+    private volatile boolean stopRequested;
+
+    protected List<CounterThread<R>> workers;
+    private volatile long testStartNanos;
+    private volatile boolean converged;
+    private final ConvergenceDetector<R> convergence;
 
     public Runner(ForkedTestConfig config) {
         this.control = new Control();
         this.config = config;
+        this.convergence = (config.convergenceEpochs > 0) ?
+                new ConvergenceDetector<>(config.convergenceEpochs, CONVERGENCE_TOLERANCE) :
+                null;
     }
 
     /**
@@ -139,6 +152,69 @@ public abstract class Runner<R> {
         return forceExit;
     }
 
+    /**
+     * Asks the running test to stop before its time is up.
+     */
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    /**
+     * Waits for the configured test time, or until the stop is requested.
+     */
+    protected void awaitTestTime() {
+        long start = System.nanoTime();
+        testStartNanos = start;
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.time);
+        long left;
+        while (!stopRequested && !converged && (left = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(left, TimeUnit.MILLISECONDS.toNanos(100)));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Called by the last worker to finish the epoch, while all other workers
+     * are waiting for it. Worker counters are stable at this point.
+     * <p>
+     * When convergence mode is enabled, this checks if the outcome distribution
+     * is stable, see {@link ConvergenceDetector}. The test is stopped then.
+     */
+    protected void onEpoch() {
+        if (convergence == null || converged) {
+            return;
+        }
+
+        long start = testStartNanos;
+        if (start == 0) {
+            return;
+        }
+
+        convergence.begin();
+        for (int c = 0; c < workers.size(); c++) {
+            convergence.add(workers.get(c).counter());
+        }
+        boolean stable = convergence.end();
+
+        long minTime = Math.min(CONVERGENCE_MIN_TIME_MS, config.time);
+        boolean pastMinTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= minTime;
+
+        if (stable && pastMinTime) {
+            converged = true;
+        }
+    }
+
     public abstract void sanityCheck(Counter<R> counter) throws Throwable;
 
     public abstract ArrayList<CounterThread<R>> internalRun();
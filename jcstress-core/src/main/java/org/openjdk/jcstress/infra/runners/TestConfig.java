@@ -52,11 +52,22 @@ public class TestConfig implements Serializable {
     public final int strideSize;
     public int strideCount;
     public CPUMap cpuMap;
+    public int stressSeed = NO_STRESS_SEED;
+
+    public static final int NO_STRESS_SEED = -1;
 
     public void setCPUMap(CPUMap cpuMap) {
         this.cpuMap = cpuMap;
     }
 
+    public void setStressSeed(int stressSeed) {
+        this.stressSeed = stressSeed;
+    }
+
+    public boolean hasStressSeed() {
+        return stressSeed != NO_STRESS_SEED;
+    }
+
     public TestConfig(Options opts, TestInfo info, int forkId, List<String> jvmArgs, int compileMode, SchedulingClass scl) {
         this.forkId = forkId;
         this.jvmArgs = jvmArgs;
@@ -73,6 +84,29 @@ public class TestConfig implements Serializable {
         shClass = scl;
     }
 
+    /**
+     * Copies the configuration for another fork.
+     *
+     * @param copy configuration to copy
+     * @param forkId fork ID for the new configuration
+     */
+    public TestConfig(TestConfig copy, int forkId) {
+        this.forkId = forkId;
+        this.jvmArgs = copy.jvmArgs;
+        strideSize = copy.strideSize;
+        strideCount = copy.strideCount;
+        spinLoopStyle = copy.spinLoopStyle;
+        maxFootprintMB = copy.maxFootprintMB;
+        threads = copy.threads;
+        name = copy.name;
+        binaryName = copy.binaryName;
+        generatedRunnerName = copy.generatedRunnerName;
+        actorNames = copy.actorNames;
+        compileMode = copy.compileMode;
+        shClass = copy.shClass;
+        stressSeed = copy.stressSeed;
+    }
+
     public int getCompileMode() {
         return compileMode;
     }
@@ -262,6 +296,7 @@ public class TestConfig implements Serializable {
                 .append(", strideSize: ").append(strideSize)
                 .append(", strideCount: ").append(strideCount)
                 .append(", cpuMap: ").append(cpuMap)
+                .append(", stressSeed: ").append(stressSeed)
                 .append(", ").append(jvmArgs)
                 .append("}");
         return verboseOutput.toString();
@@ -84,4 +84,38 @@ public final class BinaryLinkClient {
         }
     }
 
+    /**
+     * Waits until the host tells this fork to stop. The connection is held
+     * open until then, or until the host no longer needs the fork to stop.
+     *
+     * @param token fork token
+     * @return true, if the fork should stop; false, if the wait is over otherwise
+     * @throws IOException if the link fails
+     */
+    public boolean awaitStop(int token) throws IOException {
+        // No timeout: the wait lasts for as long as the test runs.
+        try (Socket socket = new Socket(hostName, hostPort)) {
+            try (OutputStream os = socket.getOutputStream();
+                 DataOutputStream dos = new DataOutputStream(os)) {
+                Protocol.writeTag(dos, Protocol.TAG_STOPREQUEST);
+                Protocol.writeToken(dos, token);
+                dos.flush();
+
+                try (BufferedInputStream bis = new BufferedInputStream(socket.getInputStream());
+                     DataInputStream dis = new DataInputStream(bis)) {
+                    int tag = Protocol.readTag(dis);
+                    switch (tag) {
+                        case Protocol.TAG_STOP:
+                            return true;
+                        case Protocol.TAG_CONTINUE:
+                        case -1:
+                            return false;
+                        default:
+                            throw new IllegalStateException("Unexpected tag");
+                    }
+                }
+            }
+        }
+    }
+
 }
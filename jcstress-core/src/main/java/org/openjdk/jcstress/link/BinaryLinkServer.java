@@ -29,11 +29,17 @@ import org.openjdk.jcstress.infra.runners.ForkedTestConfig;
 
 import java.io.*;
 import java.net.*;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Accepts the binary data from the forked VM and pushes it to parent VM
  * as appropriate. This server assumes there is only the one and only
  * client at any given point of time.
+ * <p>
+ * The exception are the stop requests: the connection is held open until
+ * the fork has to stop, or until the fork is done, so that the forks do not
+ * have to poll.
  */
 public final class BinaryLinkServer {
 
@@ -45,9 +51,11 @@ public final class BinaryLinkServer {
     private final InetAddress listenAddress;
     private final Handler handler;
     private final ServerListener listener;
+    private final Map<Integer, Socket> stopWaiters;
 
     public BinaryLinkServer(ServerListener listener) throws IOException {
         this.listener = listener;
+        this.stopWaiters = new HashMap<>();
 
         listenAddress = getListenAddress();
         server = new ServerSocket(LINK_PORT, 50, listenAddress);
@@ -88,6 +96,58 @@ public final class BinaryLinkServer {
         } catch (InterruptedException e) {
             // do nothing
         }
+
+        synchronized (stopWaiters) {
+            for (Socket socket : stopWaiters.values()) {
+                closeQuietly(socket);
+            }
+            stopWaiters.clear();
+        }
+    }
+
+    /**
+     * Tells the fork waiting for the stop request to stop.
+     *
+     * @param token fork token
+     */
+    public void notifyStop(int token) {
+        replyStop(token, Protocol.TAG_STOP);
+    }
+
+    /**
+     * Releases the fork waiting for the stop request, if any.
+     *
+     * @param token fork token
+     */
+    public void releaseStop(int token) {
+        replyStop(token, Protocol.TAG_CONTINUE);
+    }
+
+    private void replyStop(int token, byte tag) {
+        Socket socket;
+        synchronized (stopWaiters) {
+            socket = stopWaiters.remove(token);
+        }
+        if (socket == null) {
+            return;
+        }
+        try {
+            DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
+            Protocol.writeTag(dos, tag);
+            dos.flush();
+        } catch (IOException e) {
+            // Fork is gone already
+        } finally {
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // do nothing
+        }
     }
 
     public String getHost() {
@@ -114,11 +174,29 @@ public final class BinaryLinkServer {
         }
 
         private void acceptAndProcess() {
-            try (Socket socket = server.accept();
-                 BufferedInputStream bis = new BufferedInputStream(socket.getInputStream());
-                 DataInputStream dis = new DataInputStream(bis)) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                return;
+            }
+
+            try {
+                DataInputStream dis = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
                 int tag = Protocol.readTag(dis);
                 int token = Protocol.readToken(dis);
+
+                if (tag == Protocol.TAG_STOPREQUEST) {
+                    // Check and register atomically against notifyStop, or we
+                    // can miss the stop that happens in between.
+                    synchronized (stopWaiters) {
+                        if (!listener.onStopRequest(token)) {
+                            stopWaiters.put(token, socket);
+                            return;
+                        }
+                    }
+                }
+
                 try (BufferedOutputStream bos = new BufferedOutputStream(socket.getOutputStream());
                      DataOutputStream dos = new DataOutputStream(bos)) {
                     switch (tag) {
@@ -134,6 +212,11 @@ public final class BinaryLinkServer {
                             Protocol.writeTag(dos, Protocol.TAG_OK);
                             break;
                         }
+                        case Protocol.TAG_STOPREQUEST: {
+                            // Had already failed, otherwise the socket is kept above
+                            Protocol.writeTag(dos, Protocol.TAG_STOP);
+                            break;
+                        }
                         default: {
                             Protocol.writeTag(dos, Protocol.TAG_FAILED);
                             break;
@@ -141,8 +224,10 @@ public final class BinaryLinkServer {
                     }
                     dos.flush();
                 }
+                closeQuietly(socket);
             } catch (IOException e) {
                 // ignore, the exit code would be non-zero, and TestExecutor would handle it.
+                closeQuietly(socket);
             }
         }
     }
@@ -35,6 +35,9 @@ class Protocol {
     static final byte TAG_RESULTS = 3;
     static final byte TAG_OK = 4;
     static final byte TAG_FAILED = 5;
+    static final byte TAG_STOPREQUEST = 6;
+    static final byte TAG_STOP = 7;
+    static final byte TAG_CONTINUE = 8;
 
     static int readTag(DataInputStream dis) throws IOException {
         return dis.read();
@@ -33,4 +33,6 @@ public interface ServerListener {
 
     void onResult(int token, TestResult result);
 
+    boolean onStopRequest(int token);
+
 }
@@ -28,7 +28,13 @@ import com.sun.jna.*;
 import org.openjdk.jcstress.vm.VMSupport;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AffinitySupport {
 
@@ -40,6 +46,29 @@ public class AffinitySupport {
         }
     }
 
+    /**
+     * Binds all threads, except the actor threads bound with {@link #bind(int)},
+     * to the given CPUs. Only the threads not seen before are bound, so this
+     * can be called periodically to catch up with newly created threads.
+     *
+     * @param cpus CPUs to bind to
+     * @param seen native thread IDs that were handled before, updated by this call
+     */
+    public static void bindOthers(int[] cpus, Set<Integer> seen) {
+        if (VMSupport.isLinux()) {
+            Linux.bindOthers(cpus, seen);
+        } else {
+            throw new IllegalStateException("Not implemented");
+        }
+    }
+
+    /**
+     * @return true, if actor threads can be told apart from the other threads
+     */
+    public static boolean canBindOthers() {
+        return VMSupport.isLinux() && Linux.currentTid() != -1;
+    }
+
     public static void tryBind() {
         if (VMSupport.isLinux()) {
             Linux.tryBind();
@@ -66,10 +95,21 @@ public class AffinitySupport {
         private static volatile CLibrary INSTANCE;
         private static boolean BIND_TRIED;
 
+        // Native thread ID -> CPU for the bound actor threads
+        private static final Map<Integer, Integer> ACTOR_TIDS = new ConcurrentHashMap<>();
+
+        // FFM binds without any native library to unpack, prefer it when available
+        private static final boolean USE_FFM = ForeignAffinity.isAvailable();
+
         /*
            Unpacks the libraries, and replies additional options for forked VMs.
          */
         public static List<String> prepare() {
+            if (USE_FFM) {
+                // Nothing to unpack
+                return Collections.emptyList();
+            }
+
             System.setProperty("jnidispatch.preserve", "true");
             Native.load("c", CLibrary.class);
 
@@ -90,6 +130,9 @@ public class AffinitySupport {
         }
 
         public static void tryInit() {
+            if (USE_FFM) {
+                return;
+            }
             if (INSTANCE == null) {
                 synchronized (Linux.class) {
                     if (INSTANCE == null) {
@@ -102,10 +145,57 @@ public class AffinitySupport {
         public static void bind(int cpu) {
             tryInit();
 
-            final cpu_set_t cpuset = new cpu_set_t();
-            cpuset.set(cpu);
+            // Record the actor before binding, so that concurrent bindOthers
+            // either skips this thread, or restores its binding.
+            int tid = currentTid();
+            if (tid != -1) {
+                ACTOR_TIDS.put(tid, cpu);
+            }
 
-            set(cpuset);
+            set(0, cpu);
+        }
+
+        public static void bindOthers(int[] cpus, Set<Integer> seen) {
+            tryInit();
+
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(Paths.get("/proc/self/task"))) {
+                for (Path p : ds) {
+                    int tid;
+                    try {
+                        tid = Integer.parseInt(p.getFileName().toString());
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+
+                    if (!seen.add(tid) || ACTOR_TIDS.containsKey(tid)) {
+                        continue;
+                    }
+
+                    try {
+                        set(tid, cpus);
+
+                        // Actor might have registered while we were binding it
+                        Integer actorCpu = ACTOR_TIDS.get(tid);
+                        if (actorCpu != null) {
+                            set(tid, actorCpu);
+                        }
+                    } catch (IllegalStateException e) {
+                        // Thread might be gone already, do not care
+                    }
+                }
+            } catch (IOException e) {
+                // No task list, nothing to do
+            }
+        }
+
+        static int currentTid() {
+            try {
+                // Format: "$PID/task/$TID"
+                Path link = Files.readSymbolicLink(Paths.get("/proc/thread-self"));
+                return Integer.parseInt(link.getFileName().toString());
+            } catch (IOException | UnsupportedOperationException | NumberFormatException e) {
+                return -1;
+            }
         }
 
         public static void tryBind() {
@@ -116,22 +206,34 @@ public class AffinitySupport {
 
                 tryInit();
 
-                cpu_set_t cs = new cpu_set_t();
-                get(cs);
-                set(cs);
+                if (USE_FFM) {
+                    ForeignAffinity.setAffinity(0, ForeignAffinity.getAffinity(0));
+                } else {
+                    cpu_set_t cs = new cpu_set_t();
+                    if (INSTANCE.sched_getaffinity(0, cpu_set_t.SIZE_OF, cs) != 0) {
+                        throw new IllegalStateException("Failed: " + Native.getLastError());
+                    }
+                    set(0, cs);
+                }
 
                 BIND_TRIED = true;
             }
         }
 
-        private static void get(cpu_set_t cpuset) {
-            if (INSTANCE.sched_getaffinity(0, cpu_set_t.SIZE_OF, cpuset) != 0) {
-                throw new IllegalStateException("Failed: " + Native.getLastError());
+        private static void set(int tid, int... cpus) {
+            if (USE_FFM) {
+                ForeignAffinity.setAffinity(tid, ForeignAffinity.mask(cpus));
+            } else {
+                cpu_set_t cpuset = new cpu_set_t();
+                for (int cpu : cpus) {
+                    cpuset.set(cpu);
+                }
+                set(tid, cpuset);
             }
         }
 
-        private static void set(cpu_set_t cpuset) {
-            if (INSTANCE.sched_setaffinity(0, cpu_set_t.SIZE_OF, cpuset) != 0) {
+        private static void set(int tid, cpu_set_t cpuset) {
+            if (INSTANCE.sched_setaffinity(tid, cpu_set_t.SIZE_OF, cpuset) != 0) {
                 throw new IllegalStateException("Failed: " + Native.getLastError());
             }
         }
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.os;
+
+import org.openjdk.jcstress.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Reads the resource limits of the cgroup v2 this process runs in. In containers,
+ * the host CPUs are visible, but only some of them can be used, and the memory
+ * is limited as well.
+ */
+public class CGroups {
+
+    private static CGroups INSTANCE;
+
+    public static synchronized CGroups get() {
+        if (INSTANCE == null) {
+            INSTANCE = new CGroups(new File("/proc/self/cgroup").toPath(), new File("/sys/fs/cgroup").toPath());
+        }
+        return INSTANCE;
+    }
+
+    private final Path group;
+    private final SortedSet<Integer> cpus;
+    private final int cpuLimit;
+    private final long memoryLimit;
+
+    public CGroups(Path selfCgroup, Path root) {
+        group = findGroup(selfCgroup, root);
+
+        SortedSet<Integer> cs = null;
+        int cl = -1;
+        long ml = -1;
+
+        if (group != null) {
+            // Effective CPU set already accounts for parents, take the nearest one
+            for (Path p = group; p != null && p.startsWith(root); p = p.getParent()) {
+                List<String> lines = readLines(p.resolve("cpuset.cpus.effective"));
+                if (!lines.isEmpty() && !lines.get(0).trim().isEmpty()) {
+                    cs = new TreeSet<>(StringUtils.decodeCpuList(lines.get(0).trim()));
+                    break;
+                }
+            }
+
+            // Quotas and limits can be set at any level, the strictest one wins
+            for (Path p = group; p != null && p.startsWith(root); p = p.getParent()) {
+                int c = parseCpuMax(readLines(p.resolve("cpu.max")));
+                if (c != -1) {
+                    cl = (cl == -1) ? c : Math.min(cl, c);
+                }
+                long m = parseMemoryMax(readLines(p.resolve("memory.max")));
+                if (m != -1) {
+                    ml = (ml == -1) ? m : Math.min(ml, m);
+                }
+            }
+        }
+
+        cpus = cs;
+        cpuLimit = cl;
+        memoryLimit = ml;
+    }
+
+    private static Path findGroup(Path selfCgroup, Path root) {
+        // cgroup v2 entry looks like "0::/path/to/group"
+        for (String line : readLines(selfCgroup)) {
+            if (line.startsWith("0::")) {
+                String rel = line.substring(3);
+                while (rel.startsWith("/")) {
+                    rel = rel.substring(1);
+                }
+                Path p = rel.isEmpty() ? root : root.resolve(rel);
+                if (Files.isDirectory(p)) {
+                    return p;
+                }
+                // The group is not visible from this namespace, the mounted
+                // root is our own group then.
+                if (Files.isDirectory(root)) {
+                    return root;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<String> readLines(Path path) {
+        try {
+            if (Files.isReadable(path)) {
+                return Files.readAllLines(path);
+            }
+        } catch (IOException e) {
+            // Fall through
+        }
+        return Collections.emptyList();
+    }
+
+    static int parseCpuMax(List<String> lines) {
+        // Format: "$MAX $PERIOD", where $MAX can be "max"
+        if (lines.isEmpty()) {
+            return -1;
+        }
+        String[] split = lines.get(0).trim().split("\\s+");
+        if (split.length != 2 || split[0].equals("max")) {
+            return -1;
+        }
+        try {
+            long quota = Long.parseLong(split[0]);
+            long period = Long.parseLong(split[1]);
+            if (quota <= 0 || period <= 0) {
+                return -1;
+            }
+            return (int) Math.max(1, (quota + period - 1) / period);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static long parseMemoryMax(List<String> lines) {
+        // Format: "$BYTES", or "max"
+        if (lines.isEmpty()) {
+            return -1;
+        }
+        String s = lines.get(0).trim();
+        if (s.equals("max")) {
+            return -1;
+        }
+        try {
+            long v = Long.parseLong(s);
+            return (v > 0) ? v : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return CPUs this process is allowed to run on, or null if not restricted
+     */
+    public SortedSet<Integer> effectiveCPUs() {
+        return cpus;
+    }
+
+    /**
+     * @param cpus CPUs the user asked for, null if all
+     * @return CPUs both allowed by cgroup and asked for by the user, or null if not restricted
+     */
+    public SortedSet<Integer> restrict(Collection<Integer> cpus) {
+        if (cpus == null) {
+            return this.cpus;
+        }
+        SortedSet<Integer> r = new TreeSet<>(cpus);
+        if (this.cpus != null) {
+            r.retainAll(this.cpus);
+        }
+        return r;
+    }
+
+    /**
+     * @return number of CPUs the CPU quota allows, or -1 if not limited
+     */
+    public int cpuLimit() {
+        return cpuLimit;
+    }
+
+    /**
+     * @return memory limit in bytes, or -1 if not limited
+     */
+    public long memoryLimit() {
+        return memoryLimit;
+    }
+
+    public void printStatus(PrintStream pw) {
+        if (group == null) {
+            pw.println("  No cgroup v2 detected");
+            return;
+        }
+        pw.println("  cgroup v2, using " + group);
+        pw.println("    Allowed CPUs: " + ((cpus != null) ? StringUtils.join(cpus, ",") : "all"));
+        pw.println("    CPU quota: " + ((cpuLimit != -1) ? cpuLimit + " CPUs" : "unlimited"));
+        pw.println("    Memory limit: " + ((memoryLimit != -1) ? (memoryLimit / 1024 / 1024) + "M" : "unlimited"));
+    }
+
+}
@@ -30,18 +30,20 @@ import java.util.List;
 public class CPUMap implements Serializable {
     private final int[] actorThreads;
     private final int[] systemThreads;
+    private final int[] memoryThreads;
     private final int[] threadToNode;
     private final int[] threadToCore;
     private final int[] allocatedThreads;
     private final int[] threadToRealCPU;
     private final NodeType nodeType;
 
-    public CPUMap(int[] allocatedThreads, int[] actorThreads, int[] systemThreads,
+    public CPUMap(int[] allocatedThreads, int[] actorThreads, int[] systemThreads, int[] memoryThreads,
                   int[] threadToNode, int[] threadToCore, int[] threadToRealCPU,
                   NodeType nodeType) {
         this.allocatedThreads = allocatedThreads;
         this.actorThreads = actorThreads;
         this.systemThreads = systemThreads;
+        this.memoryThreads = memoryThreads;
         this.threadToNode = threadToNode;
         this.threadToCore = threadToCore;
         this.threadToRealCPU = threadToRealCPU;
@@ -68,9 +70,30 @@ public class CPUMap implements Serializable {
         return systemThreads;
     }
 
+    public int[] systemRealCPUs() {
+        int[] r = new int[systemThreads.length];
+        for (int i = 0; i < systemThreads.length; i++) {
+            r[i] = threadToRealCPU[systemThreads[i]];
+        }
+        return r;
+    }
+
+    public int[] memoryThreads() {
+        return memoryThreads;
+    }
+
+    public int[] memoryRealCPUs() {
+        int[] r = new int[memoryThreads.length];
+        for (int i = 0; i < memoryThreads.length; i++) {
+            r[i] = threadToRealCPU[memoryThreads[i]];
+        }
+        return r;
+    }
+
     public static String description(CPUMap map, List<String> actorNames) {
         int[] actorToThread = map.actorThreads;
         int[] systemMap = map.systemThreads;
+        int[] memoryMap = map.memoryThreads;
         int[] nodeMap = map.threadToNode;
         int[] coreMap = map.threadToCore;
         int[] threadToRealCPU = map.threadToRealCPU;
@@ -121,6 +144,24 @@ public class CPUMap implements Serializable {
                 sb.append(System.lineSeparator());
             }
         }
+        for (int a = 0; a < memoryMap.length; a++) {
+            if (!hasOne) {
+                sb.append("\n");
+                hasOne = true;
+            }
+            sb.append("    <memory>: CPU #");
+            sb.append(threadToRealCPU[memoryMap[a]]);
+            sb.append(" (");
+            sb.append(nodeType.desc());
+            sb.append(" #");
+            sb.append(nodeMap[memoryMap[a]]);
+            sb.append(", core #");
+            sb.append(coreMap[memoryMap[a]]);
+            sb.append(", thread #");
+            sb.append(memoryMap[a]);
+            sb.append(")");
+            sb.append(System.lineSeparator());
+        }
         if (!hasOne) {
             sb.append("unspecified");
             sb.append(System.lineSeparator());
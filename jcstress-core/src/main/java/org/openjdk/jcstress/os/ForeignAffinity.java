@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.os;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.util.Optional;
+
+/**
+ * Calls sched_{get,set}affinity through the Foreign Function & Memory API
+ * (JDK 22+). This needs no native library unpacking, unlike JNA. The API is
+ * accessed reflectively, so that the code still compiles and runs on older JDKs,
+ * where {@link #isAvailable()} returns false.
+ */
+class ForeignAffinity {
+
+    // cpu_set_t with 1024 CPUs, the same as glibc default
+    static final int MASK_LONGS = 1024 / 64;
+    private static final long MASK_BYTES = MASK_LONGS * 8;
+
+    private static final MethodHandle SCHED_SETAFFINITY;
+    private static final MethodHandle SCHED_GETAFFINITY;
+    private static final MethodHandle ARENA_OF_CONFINED;
+    private static final MethodHandle ARENA_ALLOCATE;
+    private static final MethodHandle ARENA_CLOSE;
+    private static final MethodHandle SEGMENT_GET_LONG;
+    private static final MethodHandle SEGMENT_SET_LONG;
+    private static final Object JAVA_LONG;
+
+    static {
+        MethodHandle set = null;
+        MethodHandle get = null;
+        MethodHandle ofConfined = null;
+        MethodHandle allocate = null;
+        MethodHandle close = null;
+        MethodHandle getLong = null;
+        MethodHandle setLong = null;
+        Object javaLong = null;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+            Class<?> cLinker = Class.forName("java.lang.foreign.Linker");
+            Class<?> cLinkerOption = Class.forName("java.lang.foreign.Linker$Option");
+            Class<?> cSymbolLookup = Class.forName("java.lang.foreign.SymbolLookup");
+            Class<?> cFunctionDescriptor = Class.forName("java.lang.foreign.FunctionDescriptor");
+            Class<?> cMemoryLayout = Class.forName("java.lang.foreign.MemoryLayout");
+            Class<?> cMemorySegment = Class.forName("java.lang.foreign.MemorySegment");
+            Class<?> cValueLayout = Class.forName("java.lang.foreign.ValueLayout");
+            Class<?> cOfLong = Class.forName("java.lang.foreign.ValueLayout$OfLong");
+            Class<?> cArena = Class.forName("java.lang.foreign.Arena");
+
+            Object linker = cLinker.getMethod("nativeLinker").invoke(null);
+            Object stdlib = cLinker.getMethod("defaultLookup").invoke(linker);
+
+            Object javaInt = cValueLayout.getField("JAVA_INT").get(null);
+            javaLong = cValueLayout.getField("JAVA_LONG").get(null);
+            Object address = cValueLayout.getField("ADDRESS").get(null);
+
+            // int sched_setaffinity(pid_t pid, size_t cpusetsize, const cpu_set_t *mask);
+            Object args = Array.newInstance(cMemoryLayout, 3);
+            Array.set(args, 0, javaInt);
+            Array.set(args, 1, javaLong);
+            Array.set(args, 2, address);
+            Object desc = cFunctionDescriptor.getMethod("of", cMemoryLayout, args.getClass()).invoke(null, javaInt, args);
+
+            Object noOptions = Array.newInstance(cLinkerOption, 0);
+            java.lang.reflect.Method downcall = cLinker.getMethod("downcallHandle", cMemorySegment, cFunctionDescriptor, noOptions.getClass());
+            java.lang.reflect.Method find = cSymbolLookup.getMethod("find", String.class);
+
+            Object setSym = ((Optional<?>) find.invoke(stdlib, "sched_setaffinity")).get();
+            Object getSym = ((Optional<?>) find.invoke(stdlib, "sched_getaffinity")).get();
+
+            // Adapt to (int, long, Object) -> int, so that we can call without knowing the types
+            MethodType generic = MethodType.methodType(int.class, int.class, long.class, Object.class);
+            set = ((MethodHandle) downcall.invoke(linker, setSym, desc, noOptions)).asType(generic);
+            get = ((MethodHandle) downcall.invoke(linker, getSym, desc, noOptions)).asType(generic);
+
+            ofConfined = lookup.findStatic(cArena, "ofConfined", MethodType.methodType(cArena))
+                    .asType(MethodType.methodType(Object.class));
+            allocate = lookup.findVirtual(cArena, "allocate", MethodType.methodType(cMemorySegment, long.class, long.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, long.class, long.class));
+            close = lookup.findVirtual(cArena, "close", MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+            getLong = lookup.findVirtual(cMemorySegment, "get", MethodType.methodType(long.class, cOfLong, long.class))
+                    .asType(MethodType.methodType(long.class, Object.class, Object.class, long.class));
+            setLong = lookup.findVirtual(cMemorySegment, "set", MethodType.methodType(void.class, cOfLong, long.class, long.class))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class, long.class, long.class));
+        } catch (Throwable t) {
+            // No FFM API, or it is not usable
+            set = null;
+        }
+
+        SCHED_SETAFFINITY = set;
+        SCHED_GETAFFINITY = get;
+        ARENA_OF_CONFINED = ofConfined;
+        ARENA_ALLOCATE = allocate;
+        ARENA_CLOSE = close;
+        SEGMENT_GET_LONG = getLong;
+        SEGMENT_SET_LONG = setLong;
+        JAVA_LONG = javaLong;
+    }
+
+    static boolean isAvailable() {
+        return SCHED_SETAFFINITY != null;
+    }
+
+    static void setAffinity(int tid, long[] mask) {
+        try {
+            Object arena = ARENA_OF_CONFINED.invokeExact();
+            try {
+                Object seg = ARENA_ALLOCATE.invokeExact(arena, MASK_BYTES, 8L);
+                for (int i = 0; i < MASK_LONGS; i++) {
+                    SEGMENT_SET_LONG.invokeExact(seg, JAVA_LONG, i * 8L, mask[i]);
+                }
+                int r = (int) SCHED_SETAFFINITY.invokeExact(tid, MASK_BYTES, seg);
+                if (r != 0) {
+                    throw new IllegalStateException("Failed: sched_setaffinity returned " + r);
+                }
+            } finally {
+                ARENA_CLOSE.invokeExact(arena);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static long[] getAffinity(int tid) {
+        try {
+            Object arena = ARENA_OF_CONFINED.invokeExact();
+            try {
+                Object seg = ARENA_ALLOCATE.invokeExact(arena, MASK_BYTES, 8L);
+                int r = (int) SCHED_GETAFFINITY.invokeExact(tid, MASK_BYTES, seg);
+                if (r != 0) {
+                    throw new IllegalStateException("Failed: sched_getaffinity returned " + r);
+                }
+                long[] mask = new long[MASK_LONGS];
+                for (int i = 0; i < MASK_LONGS; i++) {
+                    mask[i] = (long) SEGMENT_GET_LONG.invokeExact(seg, JAVA_LONG, i * 8L);
+                }
+                return mask;
+            } finally {
+                ARENA_CLOSE.invokeExact(arena);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static long[] mask(int... cpus) {
+        long[] mask = new long[MASK_LONGS];
+        for (int cpu : cpus) {
+            mask[cpu / 64] |= 1L << (cpu % 64);
+        }
+        return mask;
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.os;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tracks the memory taken by the running forks. The fork is admitted when it fits
+ * both the static memory limit, and the memory currently available in the system,
+ * as reported by /proc/meminfo. This keeps the host out of swap when forks heaps
+ * are large, or the system is busy with something else.
+ * <p>
+ * Forks commit their memory while starting up, e.g. when pre-touching the heap,
+ * so /proc/meminfo does not reflect them until they are up. These forks are
+ * counted as pending against the available memory until they report in.
+ */
+public class MemoryBudget {
+
+    // Poll /proc/meminfo at most this often
+    static final int POLL_MS = Integer.getInteger("jcstress.memory.pollMs", 500);
+
+    // Keep this much memory free for the rest of the system
+    static final int RESERVE_MB = Integer.getInteger("jcstress.memory.reserveMb", 512);
+
+    private final long limitMb;
+    private final int forkMb;
+    private final Path meminfo;
+
+    private long reservedMb;
+    private long pendingMb;
+    private long availableMb = -1;
+    private long lastPoll;
+
+    /**
+     * @param limitMb static memory limit for all forks, -1 if not limited
+     * @param forkMb memory one fork takes
+     * @param meminfo path to /proc/meminfo, null if it should not be consulted
+     */
+    public MemoryBudget(long limitMb, int forkMb, Path meminfo) {
+        this.limitMb = limitMb;
+        this.forkMb = forkMb;
+        this.meminfo = meminfo;
+    }
+
+    public static MemoryBudget unlimited() {
+        return new MemoryBudget(-1, 0, null);
+    }
+
+    public static MemoryBudget forSystem(long limitMb, int forkMb) {
+        File f = new File("/proc/meminfo");
+        return new MemoryBudget(limitMb, forkMb, f.exists() ? f.toPath() : null);
+    }
+
+    public synchronized boolean tryAcquire() {
+        // Always allow at least one fork, otherwise we would never make progress
+        if (reservedMb > 0) {
+            if (limitMb != -1 && reservedMb + forkMb > limitMb) {
+                return false;
+            }
+
+            // Recently started forks might not have committed their memory yet,
+            // count them against the reported available memory.
+            long avail = pollAvailable();
+            if (avail != -1 && pendingMb + forkMb > avail - RESERVE_MB) {
+                return false;
+            }
+        }
+
+        reservedMb += forkMb;
+        pendingMb += forkMb;
+        return true;
+    }
+
+    /**
+     * Notes that the acquired fork has started up and reported in. Its memory
+     * is now visible in /proc/meminfo, so it is no longer counted as pending.
+     */
+    public synchronized void reportedIn() {
+        pendingMb -= forkMb;
+
+        // Make sure the next admission sees the memory this fork had committed.
+        availableMb = -1;
+    }
+
+    /**
+     * Releases the memory of the finished fork.
+     *
+     * @param reportedIn true, if fork had reported in before
+     */
+    public synchronized void release(boolean reportedIn) {
+        reservedMb -= forkMb;
+        if (!reportedIn) {
+            pendingMb -= forkMb;
+        }
+    }
+
+    private long pollAvailable() {
+        if (meminfo == null) {
+            return -1;
+        }
+
+        long now = System.nanoTime();
+        if (availableMb == -1 || now - lastPoll > POLL_MS * 1_000_000L) {
+            long v = readAvailable(meminfo);
+            if (v != -1) {
+                availableMb = v;
+            }
+            lastPoll = now;
+        }
+        return availableMb;
+    }
+
+    static long readAvailable(Path meminfo) {
+        try {
+            List<String> lines = Files.readAllLines(meminfo);
+            long free = -1;
+            for (String line : lines) {
+                // Format: "MemAvailable:   12345678 kB"
+                String[] split = line.split("\\s+");
+                if (split.length < 2) continue;
+                if (split[0].equals("MemAvailable:")) {
+                    return Long.parseLong(split[1]) / 1024;
+                }
+                if (split[0].equals("MemFree:")) {
+                    // Old kernels do not have MemAvailable
+                    free = Long.parseLong(split[1]) / 1024;
+                }
+            }
+            return free;
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public synchronized void printStatus(PrintStream pw) {
+        pw.printf("  Memory per fork: %dM%n", forkMb);
+        pw.println("  Memory limit: " + ((limitMb != -1) ? limitMb + "M" : "unlimited"));
+        if (meminfo != null) {
+            pw.printf("  Memory available: %dM, keeping %dM free%n", readAvailable(meminfo), RESERVE_MB);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.os;
+
+public enum MemoryPlacement {
+
+    // Test state is allocated wherever the runner thread happens to be
+    FREE,
+
+    // Test state is homed on the node of the first actor
+    ACTOR,
+
+    // Test state is homed on a node that runs no actors
+    REMOTE,
+
+    // Test state is interleaved across all nodes
+    INTERLEAVED;
+
+    public String desc(NodeType nodeType) {
+        switch (this) {
+            case FREE: return "free";
+            case ACTOR: return "home on actor 0's " + nodeType.desc();
+            case REMOTE: return "home on another " + nodeType.desc();
+            case INTERLEAVED: return "interleaved across " + nodeType.desc() + "s";
+            default:
+                throw new IllegalStateException("Unknown enum");
+        }
+    }
+
+    public String shortDesc() {
+        switch (this) {
+            case FREE: return "free";
+            case ACTOR: return "A0";
+            case REMOTE: return "R";
+            case INTERLEAVED: return "I";
+            default:
+                throw new IllegalStateException("Unknown enum");
+        }
+    }
+
+}
@@ -31,6 +31,10 @@ import org.openjdk.jcstress.vm.VMSupportException;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -50,6 +54,13 @@ public class OSSupport {
         return AFFINITY_SUPPORT_AVAILABLE;
     }
 
+    private static volatile boolean MEMORY_PLACEMENT_AVAILABLE;
+    private static volatile Map<Integer, Integer> CPU_TO_NUMA_NODE = Collections.emptyMap();
+
+    public static boolean memoryPlacementAvailable() {
+        return MEMORY_PLACEMENT_AVAILABLE;
+    }
+
     public static void init() {
         System.out.println("Initializing and probing the target OS:");
         System.out.println(" (all failures are non-fatal, but may affect testing accuracy)");
@@ -58,6 +69,18 @@ public class OSSupport {
         TASKSET_AVAILABLE = detectCommand("Testing global affinity machinery (taskset)",
                 "taskset", "-c", "0");
 
+        // Memory placement binds the memory policy of the whole fork, so that
+        // heap pre-touch and GC copying keep the test state on the selected nodes.
+        CPU_TO_NUMA_NODE = readNumaNodes();
+        if (new HashSet<>(CPU_TO_NUMA_NODE.values()).size() > 1) {
+            MEMORY_PLACEMENT_AVAILABLE = detectCommand("Testing memory placement machinery (numactl)",
+                    "numactl", "--interleave=all");
+        } else {
+            System.out.printf("----- %s %s%n", "[N/A]", "Testing memory placement machinery (numactl)");
+            System.out.println("Single NUMA node");
+            MEMORY_PLACEMENT_AVAILABLE = false;
+        }
+
         try {
             // Prepare and dump affinity support files. We need to fork out to separate
             // JVM, because we need to set JVM flags.
@@ -98,6 +121,79 @@ public class OSSupport {
         System.out.println();
     }
 
+    private static Map<Integer, Integer> readNumaNodes() {
+        Map<Integer, Integer> r = new HashMap<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(Paths.get("/sys/devices/system/node"))) {
+            for (Path p : ds) {
+                String basename = p.getFileName().toString();
+                if (basename.matches("node[0-9]+")) {
+                    int node = Integer.parseInt(basename.substring(4));
+                    List<String> lines = Files.readAllLines(p.resolve("cpulist"));
+                    if (!lines.isEmpty() && !lines.get(0).trim().isEmpty()) {
+                        for (int cpu : StringUtils.decodeCpuList(lines.get(0).trim())) {
+                            r.put(cpu, node);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // No NUMA information
+            r.clear();
+        }
+        return r;
+    }
+
+    /**
+     * Computes the command prefix that sets the memory policy for the fork.
+     *
+     * @param placement requested memory placement
+     * @param memoryCPUs real CPUs on the nodes the memory should be placed on
+     * @return command prefix, empty if placement is not requested or not available
+     */
+    public static List<String> memoryPolicyCommand(MemoryPlacement placement, int[] memoryCPUs) {
+        if (!MEMORY_PLACEMENT_AVAILABLE || placement == MemoryPlacement.FREE) {
+            return Collections.emptyList();
+        }
+
+        SortedSet<Integer> nodes = new TreeSet<>();
+        for (int cpu : memoryCPUs) {
+            Integer node = CPU_TO_NUMA_NODE.get(cpu);
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            nodes.add(node);
+        }
+        if (nodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String list = StringUtils.join(nodes, ",");
+        switch (placement) {
+            case ACTOR:
+            case REMOTE:
+                return Arrays.asList("numactl", "--membind=" + list);
+            case INTERLEAVED:
+                return Arrays.asList("numactl", "--interleave=" + list);
+            default:
+                throw new IllegalStateException("Unhandled placement");
+        }
+    }
+
+    /**
+     * @return online CPUs, as reported by sysfs; null if not known
+     */
+    public static SortedSet<Integer> onlineCPUs() {
+        try {
+            List<String> lines = Files.readAllLines(Paths.get("/sys/devices/system/cpu/online"));
+            if (!lines.isEmpty() && !lines.get(0).trim().isEmpty()) {
+                return new TreeSet<>(StringUtils.decodeCpuList(lines.get(0).trim()));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or sysfs is not available; nothing to do
+        }
+        return null;
+    }
+
     public static Collection<? extends String> getJavaInvokeArguments() {
         if (AFFINITY_SUPPORT_AVAILABLE) {
             return AFFINITY_ADDITIONAL_OPTIONS;
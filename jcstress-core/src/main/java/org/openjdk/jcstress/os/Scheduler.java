@@ -31,21 +31,93 @@ import java.util.*;
 public class Scheduler {
 
     private boolean debug;
+    private boolean memoryPlacement;
 
     private final BitSet availableCPUs;
     private final int maxUse;
+    private final MemoryBudget memory;
+    private final Set<CPUMap> notReportedIn;
     private final Topology topology;
     private final BitSet availableCores;
     private int currentUse;
     private final NodeRecord[] freeMapNode;
 
+    // Indexed free lists: available cores in every node and every cache,
+    // maintained along with availableCores.
+    private final BitSet[] nodeFreeCores;
+    private final BitSet[] cacheFreeCores;
+    private final int[][] cacheFreeTypeCores;
+
+    // Topology snapshot, to avoid the map lookups on hot paths
+    private final int[] threadToCore;
+    private final int[] coreToNode;
+    private final int[] coreToCache;
+    private final int[] coreToType;
+    private final int[][] coreThreads;
+    private final BitSet isolatedCores;
+
+    // Free non-isolated threads lent to the running forks for housekeeping,
+    // counted per thread. Actors do not get the cores with lent threads.
+    private final int[] lentThreads;
+
     public Scheduler(Topology t, int max) {
+        this(t, max, MemoryBudget.unlimited());
+    }
+
+    public Scheduler(Topology t, int max, MemoryBudget memory) {
         topology = t;
         maxUse = max;
+        this.memory = memory;
+        notReportedIn = Collections.newSetFromMap(new IdentityHashMap<>());
         availableCPUs = new BitSet(topology.totalThreads());
         availableCPUs.set(0, topology.totalThreads());
         availableCores = new BitSet(topology.totalCores());
         availableCores.set(0, topology.totalCores());
+
+        int cores = topology.totalCores();
+        threadToCore = new int[topology.totalThreads()];
+        for (int thread = 0; thread < threadToCore.length; thread++) {
+            threadToCore[thread] = topology.threadToCore(thread);
+        }
+        coreToNode = new int[cores];
+        coreToCache = new int[cores];
+        coreToType = new int[cores];
+        coreThreads = new int[cores][];
+        isolatedCores = new BitSet(cores);
+        lentThreads = new int[topology.totalThreads()];
+        int caches = 0;
+        for (int c = 0; c < cores; c++) {
+            coreToNode[c] = topology.coreToNode(c);
+            coreToCache[c] = topology.coreToCache(c);
+            coreToType[c] = topology.coreToType(c);
+            caches = Math.max(caches, coreToCache[c] + 1);
+
+            Collection<Integer> threads = topology.coreThreads(c);
+            coreThreads[c] = new int[threads.size()];
+            int i = 0;
+            for (int thread : threads) {
+                coreThreads[c][i++] = thread;
+                if (topology.threadIsolated(thread)) {
+                    isolatedCores.set(c);
+                }
+            }
+        }
+
+        nodeFreeCores = new BitSet[topology.nodesPerSystem()];
+        for (int n = 0; n < nodeFreeCores.length; n++) {
+            nodeFreeCores[n] = new BitSet(cores);
+        }
+        cacheFreeCores = new BitSet[caches];
+        cacheFreeTypeCores = new int[caches][topology.coreTypes()];
+        for (int c = 0; c < caches; c++) {
+            cacheFreeCores[c] = new BitSet(cores);
+        }
+        for (int c = 0; c < cores; c++) {
+            nodeFreeCores[coreToNode[c]].set(c);
+            cacheFreeCores[coreToCache[c]].set(c);
+            cacheFreeTypeCores[coreToCache[c]][coreToType[c]]++;
+        }
+
         freeMapNode = new NodeRecord[topology.nodesPerSystem()];
         for (int p = 0; p < freeMapNode.length; p++) {
             freeMapNode[p] = new NodeRecord(-1, -1);
@@ -78,6 +150,16 @@ public class Scheduler {
                 throw new IllegalStateException("Unhandled mode");
         }
 
+        if (cpuMap != null && !memory.tryAcquire()) {
+            // Not enough memory, give the CPUs back.
+            releaseCPUs(cpuMap);
+            cpuMap = null;
+        }
+
+        if (cpuMap != null) {
+            notReportedIn.add(cpuMap);
+        }
+
         recomputeFreeMaps();
 
         checkInvariants("After acquire");
@@ -108,35 +190,41 @@ public class Scheduler {
             coreGroupToNode[scl.cores[a]] = p;
         }
 
+        // Figure out the required core types, if any.
+        int[] coreGroupToType = new int[scl.numCores()];
+        for (int a = 0; a < scl.numActors(); a++) {
+            coreGroupToType[scl.cores[a]] = scl.types[a];
+        }
+
+        // Assign cache groups to the caches in the selected nodes, if needed.
+        int[] coreGroupToCache = null;
+        if (scl.numCaches() > 0) {
+            coreGroupToCache = assignCaches(scl, coreGroupToNode, coreGroupToType);
+            if (coreGroupToCache == null) {
+                return null;
+            }
+        }
+
         // Need to find enough cores and record them as allocated
         int[] coreGroupToCore = new int[scl.numCores()];
         Arrays.fill(coreGroupToCore, -1);
 
         for (int coreGroup = 0; coreGroup < scl.numCores(); coreGroup++) {
-            // Find next core in the required node
-            int wantNode = coreGroupToNode[coreGroup];
-
-            int idx = 0;
-            boolean found = false;
-            while (true) {
-                int core = availableCores.nextSetBit(idx);
-                if (core < 0) break;
-
-                if (topology.coreToNode(core) == wantNode) {
-                    coreGroupToCore[coreGroup] = core;
-                    availableCores.set(core, false);
-                    found = true;
-                    break;
-                } else {
-                    idx = core + 1;
-                }
-            }
-
-            if (!found) {
+            // Find next core in the required cache, or in the required node
+            BitSet candidates = (coreGroupToCache != null) ?
+                    cacheFreeCores[coreGroupToCache[coreGroup]] :
+                    nodeFreeCores[coreGroupToNode[coreGroup]];
+
+            // Actors are pinned, prefer isolated cores for them
+            int core = pickCore(candidates, coreGroupToType[coreGroup], true);
+            if (core != -1) {
+                coreGroupToCore[coreGroup] = core;
+                takeCore(core);
+            } else {
                 // Allocation failed, revert everything set in this round
                 for (int c : coreGroupToCore) {
                     if (c != -1) {
-                        availableCores.set(c, true);
+                        freeCore(c);
                     }
                 }
                 return null;
@@ -150,12 +238,15 @@ public class Scheduler {
         for (int aIdx = 0; aIdx < scl.numActors(); aIdx++) {
             int core = coreGroupToCore[scl.cores[aIdx]];
 
-            for (int thread : topology.coreThreads(core)) {
-                if (availableCPUs.get(thread)) {
-                    availableCPUs.set(thread, false);
-                    actorToThread[aIdx] = thread;
-                    currentUse++;
-                    break;
+            // Take isolated threads first, then any other
+            for (int pass = 0; pass < 2 && actorToThread[aIdx] == -1; pass++) {
+                for (int thread : coreThreads[core]) {
+                    if (availableCPUs.get(thread) && (pass == 1 || topology.threadIsolated(thread))) {
+                        availableCPUs.set(thread, false);
+                        actorToThread[aIdx] = thread;
+                        currentUse++;
+                        break;
+                    }
                 }
             }
         }
@@ -164,7 +255,7 @@ public class Scheduler {
         int[] system = new int[topology.totalThreads()];
         int systemCnt = 0;
         for (int core : coreGroupToCore) {
-            for (int thread : topology.coreThreads(core)) {
+            for (int thread : coreThreads[core]) {
                 if (availableCPUs.get(thread)) {
                     availableCPUs.set(thread, false);
                     system[systemCnt++] = thread;
@@ -180,7 +271,26 @@ public class Scheduler {
             }
         }
 
-        int[] systemThreads = Arrays.copyOf(system, systemCnt);
+        int[] allocatedSystemThreads = Arrays.copyOf(system, systemCnt);
+
+        // Isolated CPUs are not load-balanced by the OS. If actors got them,
+        // let the system threads also run on the free non-isolated CPUs, without
+        // allocating them exclusively. These CPUs are lent to this fork until
+        // it is released, and no other fork gets them for actors meanwhile.
+        int[] systemThreads = allocatedSystemThreads;
+        if (topology.isolatedThreads() > 0) {
+            boolean actorsIsolated = false;
+            for (int thread : actorToThread) {
+                actorsIsolated |= topology.threadIsolated(thread);
+            }
+            if (actorsIsolated) {
+                systemThreads = withHousekeeping(allocatedSystemThreads);
+            }
+        }
+
+        // Memory threads only allocate the test state before the test starts,
+        // they are borrowed, and not allocated exclusively.
+        int[] memoryThreads = memoryThreads(scl, actorToThread, nodeGroupToNode);
 
         int[] threadToCore = new int[topology.totalThreads()];
         int[] threadToNode = new int[topology.totalThreads()];
@@ -199,16 +309,174 @@ public class Scheduler {
             threadToCore[thread] = topology.threadToCore(thread);
             threadToRealCPU[thread] = topology.threadToRealCPU(thread);
         }
+        for (int thread : memoryThreads) {
+            threadToNode[thread] = topology.threadToNode(thread);
+            threadToCore[thread] = topology.threadToCore(thread);
+            threadToRealCPU[thread] = topology.threadToRealCPU(thread);
+        }
 
-        int[] allocatedThreads = new int[actorToThread.length + systemThreads.length];
+        int[] allocatedThreads = new int[actorToThread.length + allocatedSystemThreads.length];
         System.arraycopy(actorToThread, 0, allocatedThreads, 0, actorToThread.length);
-        System.arraycopy(systemThreads, 0, allocatedThreads, actorToThread.length, systemThreads.length);
+        System.arraycopy(allocatedSystemThreads, 0, allocatedThreads, actorToThread.length, allocatedSystemThreads.length);
 
-        return new CPUMap(allocatedThreads, actorToThread, systemThreads,
+        return new CPUMap(allocatedThreads, actorToThread, systemThreads, memoryThreads,
                 threadToNode, threadToCore, threadToRealCPU,
                 topology.nodeType());
     }
 
+    private int[] memoryThreads(SchedulingClass scl, int[] actorToThread, int[] nodeGroupToNode) {
+        switch (scl.placement()) {
+            case FREE:
+                return new int[0];
+            case ACTOR:
+                return new int[] { actorToThread[0] };
+            case REMOTE:
+                // Take the least busy node without actors
+                for (NodeRecord nr : freeMapNode) {
+                    boolean used = false;
+                    for (int n : nodeGroupToNode) {
+                        used |= (n == nr.id);
+                    }
+                    if (!used) {
+                        return new int[] { nodeThread(nr.id) };
+                    }
+                }
+                throw new IllegalStateException("Scheduler error: no remote node for " + scl);
+            case INTERLEAVED:
+                int[] r = new int[topology.nodesPerSystem()];
+                for (int n = 0; n < r.length; n++) {
+                    r[n] = nodeThread(n);
+                }
+                return r;
+            default:
+                throw new IllegalStateException("Unhandled placement");
+        }
+    }
+
+    private int nodeThread(int node) {
+        // Prefer the free core, so that allocation does not disturb other tests
+        int core = nodeFreeCores[node].nextSetBit(0);
+        if (core == -1) {
+            core = topology.nodeCores(node).iterator().next();
+        }
+        return coreThreads[core][0];
+    }
+
+    private int pickCore(BitSet freeCandidates, int wantType, boolean preferIsolated) {
+        // Two passes: the preferred cores first, then any other core
+        for (int pass = 0; pass < 2; pass++) {
+            for (int core = freeCandidates.nextSetBit(0); core >= 0; core = freeCandidates.nextSetBit(core + 1)) {
+                if (!hasType(core, wantType)) continue;
+                if (isLent(core)) continue;
+                if (pass == 0 && isolatedCores.get(core) != preferIsolated) continue;
+                return core;
+            }
+        }
+        return -1;
+    }
+
+    private void takeCore(int core) {
+        if (availableCores.get(core)) {
+            availableCores.clear(core);
+            nodeFreeCores[coreToNode[core]].clear(core);
+            cacheFreeCores[coreToCache[core]].clear(core);
+            cacheFreeTypeCores[coreToCache[core]][coreToType[core]]--;
+        }
+    }
+
+    private void freeCore(int core) {
+        if (!availableCores.get(core)) {
+            availableCores.set(core);
+            nodeFreeCores[coreToNode[core]].set(core);
+            cacheFreeCores[coreToCache[core]].set(core);
+            cacheFreeTypeCores[coreToCache[core]][coreToType[core]]++;
+        }
+    }
+
+    private int[] withHousekeeping(int[] threads) {
+        // Allocated threads are not available anymore, so this only picks up
+        // the threads nobody runs actors on.
+        int[] r = Arrays.copyOf(threads, topology.totalThreads());
+        int cnt = threads.length;
+        for (int t = availableCPUs.nextSetBit(0); t >= 0; t = availableCPUs.nextSetBit(t + 1)) {
+            if (!topology.threadIsolated(t)) {
+                lentThreads[t]++;
+                r[cnt++] = t;
+            }
+        }
+        return Arrays.copyOf(r, cnt);
+    }
+
+    private boolean isLent(int core) {
+        for (int thread : coreThreads[core]) {
+            if (lentThreads[thread] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasType(int core, int type) {
+        return type == -1 || coreToType[core] == type;
+    }
+
+    private int[] assignCaches(SchedulingClass scl, int[] coreGroupToNode, int[] coreGroupToType) {
+        // Figure out how many cores every cache group needs, and of which types
+        int types = topology.coreTypes();
+        int[] cacheGroupToNode = new int[scl.numCaches()];
+        int[] cacheGroupCores = new int[scl.numCaches()];
+        int[][] cacheGroupTypeCores = new int[scl.numCaches()][types];
+        int[] coreGroupToCacheGroup = new int[scl.numCores()];
+        Arrays.fill(coreGroupToCacheGroup, -1);
+        for (int a = 0; a < scl.numActors(); a++) {
+            int coreGroup = scl.cores[a];
+            int cacheGroup = scl.caches[a];
+            if (coreGroupToCacheGroup[coreGroup] == -1) {
+                coreGroupToCacheGroup[coreGroup] = cacheGroup;
+                cacheGroupCores[cacheGroup]++;
+                if (coreGroupToType[coreGroup] != -1) {
+                    cacheGroupTypeCores[cacheGroup][coreGroupToType[coreGroup]]++;
+                }
+            }
+            cacheGroupToNode[cacheGroup] = coreGroupToNode[coreGroup];
+        }
+
+        // Take the caches with most available cores first
+        int[] cacheGroupToCache = new int[scl.numCaches()];
+        Set<Integer> taken = new HashSet<>();
+        for (int cacheGroup = 0; cacheGroup < scl.numCaches(); cacheGroup++) {
+            int best = -1;
+            int bestAvail = 0;
+            for (int cache : topology.nodeCaches(cacheGroupToNode[cacheGroup])) {
+                if (taken.contains(cache)) continue;
+                int avail = cacheFreeCores[cache].cardinality();
+                int[] typeAvail = cacheFreeTypeCores[cache];
+                boolean enoughTypes = true;
+                for (int t = 0; t < types; t++) {
+                    if (typeAvail[t] < cacheGroupTypeCores[cacheGroup][t]) {
+                        enoughTypes = false;
+                        break;
+                    }
+                }
+                if (enoughTypes && avail >= cacheGroupCores[cacheGroup] && avail > bestAvail) {
+                    best = cache;
+                    bestAvail = avail;
+                }
+            }
+            if (best == -1) {
+                return null;
+            }
+            taken.add(best);
+            cacheGroupToCache[cacheGroup] = best;
+        }
+
+        int[] coreGroupToCache = new int[scl.numCores()];
+        for (int coreGroup = 0; coreGroup < scl.numCores(); coreGroup++) {
+            coreGroupToCache[coreGroup] = cacheGroupToCache[coreGroupToCacheGroup[coreGroup]];
+        }
+        return coreGroupToCache;
+    }
+
     private CPUMap scheduleGlobalOrNone(SchedulingClass scl, boolean none) {
         // This ignores per-actor assignments completely.
         // It only allocates a separate core per actor, from the pool of all available cores.
@@ -218,15 +486,17 @@ public class Scheduler {
         Arrays.fill(actorToCore, -1);
 
         for (int a = 0; a < scl.numActors(); a++) {
-            int core = availableCores.nextSetBit(0);
+            // Actors are not pinned, and the OS does not balance them on isolated
+            // cores, prefer non-isolated cores then.
+            int core = pickCore(availableCores, -1, false);
             if (core >= 0) {
                 actorToCore[a] = core;
-                availableCores.set(core, false);
+                takeCore(core);
             } else {
                 // Allocation failed, revert everything set in this round
                 for (int c : actorToCore) {
                     if (c != -1) {
-                        availableCores.set(c, true);
+                        freeCore(c);
                     }
                 }
                 return null;
@@ -238,7 +508,7 @@ public class Scheduler {
         int cnt = 0;
 
         for (int core : actorToCore) {
-            for (int thread : topology.coreThreads(core)) {
+            for (int thread : coreThreads[core]) {
                 if (!availableCPUs.get(thread)) {
                     throw new IllegalStateException("Thread should be free");
                 }
@@ -273,7 +543,7 @@ public class Scheduler {
             threadToRealCPU[thread] = topology.threadToRealCPU(thread);
         }
 
-        return new CPUMap(allocatedThreads, actorThreads, systemThreads,
+        return new CPUMap(allocatedThreads, actorThreads, systemThreads, new int[0],
                 threadToNode, threadToCore, threadToRealCPU,
                 topology.nodeType());
     }
@@ -283,7 +553,7 @@ public class Scheduler {
 
         for (int c = 0; c < topology.totalCores(); c++) {
             if (availableCores.get(c)) {
-                for (int thread : topology.coreThreads(c)) {
+                for (int thread : coreThreads[c]) {
                     if (!availableCPUs.get(thread)) {
                         throw new IllegalStateException(when + ": Available core should have all threads free");
                     }
@@ -295,7 +565,7 @@ public class Scheduler {
         for (int t = 0; t < topology.totalThreads(); t++) {
             if (!availableCPUs.get(t)) {
                 use++;
-                if (availableCores.get(topology.threadToCore(t))) {
+                if (availableCores.get(threadToCore[t])) {
                     throw new IllegalStateException(when + ": Thread taken from the core, core should not be available");
                 }
             }
@@ -306,45 +576,70 @@ public class Scheduler {
             throw new IllegalStateException(when + ": CPU use counts are inconsistent, counter = " + expected + ", actually taken = " + use);
         }
 
-        for (int n = 0; n < topology.nodesPerSystem(); n++) {
-            int avail = 0;
-            for (int core : topology.nodeCores(n)) {
-                if (availableCores.get(core)) {
-                    avail++;
-                }
+        int[] nodeFree = new int[topology.nodesPerSystem()];
+        int[][] typeFree = new int[cacheFreeCores.length][topology.coreTypes()];
+        for (int c = 0; c < topology.totalCores(); c++) {
+            boolean avail = availableCores.get(c);
+            if (nodeFreeCores[coreToNode[c]].get(c) != avail || cacheFreeCores[coreToCache[c]].get(c) != avail) {
+                throw new IllegalStateException(when + ": Free core lists are inconsistent");
             }
-            for (NodeRecord pr : freeMapNode) {
-                if (pr.id == n && pr.avail != avail) {
-                    throw new IllegalStateException(when + ": Node-core availability counts are inconsistent");
-                }
+            if (avail) {
+                nodeFree[coreToNode[c]]++;
+                typeFree[coreToCache[c]][coreToType[c]]++;
+            }
+        }
+        if (!Arrays.deepEquals(typeFree, cacheFreeTypeCores)) {
+            throw new IllegalStateException(when + ": Free core type counts are inconsistent");
+        }
+
+        for (NodeRecord pr : freeMapNode) {
+            if (pr.avail != nodeFree[pr.id]) {
+                throw new IllegalStateException(when + ": Node-core availability counts are inconsistent");
             }
         }
     }
 
+    /**
+     * Notes that the fork running with this map has started up and reported in.
+     *
+     * @param cpuMap map returned by {@link #tryAcquire(SchedulingClass)}
+     */
+    public synchronized void reportedIn(CPUMap cpuMap) {
+        if (notReportedIn.remove(cpuMap)) {
+            memory.reportedIn();
+        }
+    }
+
     public synchronized void release(CPUMap cpuMap) {
         checkInvariants("Before release");
 
-        for (int c : cpuMap.allocatedThreads()) {
-            availableCPUs.set(c, true);
-            availableCores.set(topology.threadToCore(c), true);
-            currentUse--;
-        }
+        releaseCPUs(cpuMap);
+        memory.release(!notReportedIn.remove(cpuMap));
 
         recomputeFreeMaps();
 
         checkInvariants("After release");
     }
 
+    private void releaseCPUs(CPUMap cpuMap) {
+        BitSet allocated = new BitSet(topology.totalThreads());
+        for (int c : cpuMap.allocatedThreads()) {
+            availableCPUs.set(c, true);
+            freeCore(threadToCore[c]);
+            currentUse--;
+            allocated.set(c);
+        }
+        for (int c : cpuMap.systemThreads()) {
+            if (!allocated.get(c)) {
+                lentThreads[c]--;
+            }
+        }
+    }
+
     private void recomputeFreeMaps() {
         for (int n = 0; n < topology.nodesPerSystem(); n++) {
-            int avail = 0;
-            for (int core : topology.nodeCores(n)) {
-                if (availableCores.get(core)) {
-                    avail++;
-                }
-            }
             freeMapNode[n].id = n;
-            freeMapNode[n].avail = avail;
+            freeMapNode[n].avail = nodeFreeCores[n].cardinality();
         }
 
         Arrays.sort(freeMapNode);
@@ -377,6 +672,14 @@ public class Scheduler {
         debug = true;
     }
 
+    /**
+     * Enables memory placement classes. This should only be done when forks
+     * can be launched with the memory policy, see {@link OSSupport#memoryPolicyCommand}.
+     */
+    public void enableMemoryPlacement() {
+        memoryPlacement = true;
+    }
+
     public List<SchedulingClass> localAffinityFor(int actors, int threadLimit) {
         List<SchedulingClass> nodeCases = new ArrayList<>();
 
@@ -390,44 +693,13 @@ public class Scheduler {
             nodeCases.add(scl);
         }
 
-        // Assign core groups
-        List<SchedulingClass> coreCases = new ArrayList<>();
-        for (SchedulingClass scl : nodeCases) {
-            int numNodes = scl.numNodes();
-            int[] nodeActors = scl.nodeActors();
-
-            int[][][] nodeCoreAssignments = new int[numNodes][][];
-            for (int p = 0; p < numNodes; p++) {
-                int[][] perms = classPermutation(nodeActors[p], topology.coresPerNode());
-                nodeCoreAssignments[p] = perms;
-            }
-
-            List<SchedulingClass> temp = new ArrayList<>();
-            temp.add(scl);
-
-            for (int p = 0; p < numNodes; p++) {
-                List<SchedulingClass> newCases = new ArrayList<>();
-                for (SchedulingClass tscl : temp) {
-                    // Compute last assigned core class for other nodes
-                    int coreShift = tscl.numCores();
-                    if (coreShift < 0) coreShift = 0;
-
-                    for (int[] coreClasses : nodeCoreAssignments[p]) {
-                        SchedulingClass nscl = new SchedulingClass(tscl);
-                        int ccIdx = 0;
-                        for (int i = 0; i < actors; i++) {
-                            if (scl.getNode(i) == p) {
-                                int coreClass = coreClasses[ccIdx++] + coreShift;
-                                nscl.setCore(i, coreClass);
-                            }
-                        }
-                        newCases.add(nscl);
-                    }
-                }
-                temp = newCases;
-            }
-
-            coreCases.addAll(temp);
+        // Assign core groups, going through cache groups if topology has them
+        List<SchedulingClass> coreCases;
+        if (topology.cachesPerNode() > 1) {
+            List<SchedulingClass> cacheCases = assignGroups(nodeCases, actors, topology.cachesPerNode(), GroupLevel.NODE, GroupLevel.CACHE);
+            coreCases = assignGroups(cacheCases, actors, topology.coresPerCache(), GroupLevel.CACHE, GroupLevel.CORE);
+        } else {
+            coreCases = assignGroups(nodeCases, actors, topology.coresPerNode(), GroupLevel.NODE, GroupLevel.CORE);
         }
 
         // Assign thread groups: every thread gets its own group, by construction.
@@ -452,7 +724,210 @@ public class Scheduler {
             }
         }
 
-        return threadCases;
+        // Assign core types on hybrid systems. Core types follow the cache groups
+        // when caches are type-uniform, otherwise every core group gets its type.
+        List<SchedulingClass> typeCases = threadCases;
+        if (topology.coreTypes() > 1) {
+            GroupLevel level = topology.typedCaches() ? GroupLevel.CACHE : GroupLevel.CORE;
+            typeCases = assignTypes(threadCases, actors, level);
+        }
+
+        return assignPlacements(typeCases);
+    }
+
+    private List<SchedulingClass> assignPlacements(List<SchedulingClass> cases) {
+        // Memory placement only matters when there are several nodes to place on,
+        // and only if forks can actually be placed.
+        if (!memoryPlacement || topology.nodesPerSystem() < 2) {
+            return cases;
+        }
+
+        List<SchedulingClass> r = new ArrayList<>();
+        for (SchedulingClass scl : cases) {
+            for (MemoryPlacement mp : MemoryPlacement.values()) {
+                if (mp == MemoryPlacement.FREE) {
+                    continue;
+                }
+                if (mp == MemoryPlacement.REMOTE && scl.numNodes() >= topology.nodesPerSystem()) {
+                    // No nodes left without actors
+                    continue;
+                }
+                SchedulingClass copy = new SchedulingClass(scl);
+                copy.setPlacement(mp);
+                r.add(copy);
+            }
+        }
+        return r;
+    }
+
+    private List<SchedulingClass> assignTypes(List<SchedulingClass> cases, int actors, GroupLevel level) {
+        int types = topology.coreTypes();
+
+        // Cores of each type every cache has, at least
+        int[] typeCoresPerCache = new int[types];
+        Arrays.fill(typeCoresPerCache, Integer.MAX_VALUE);
+        for (int n = 0; n < topology.nodesPerSystem(); n++) {
+            for (int cache : topology.nodeCaches(n)) {
+                int[] counts = new int[types];
+                for (int core : topology.cacheCores(cache)) {
+                    counts[topology.coreToType(core)]++;
+                }
+                for (int t = 0; t < types; t++) {
+                    typeCoresPerCache[t] = Math.min(typeCoresPerCache[t], counts[t]);
+                }
+            }
+        }
+
+        List<SchedulingClass> result = new ArrayList<>();
+        for (SchedulingClass scl : cases) {
+            int groups = level.count(scl);
+
+            List<SchedulingClass> typed = new ArrayList<>();
+            int[] groupTypes = new int[groups];
+            while (true) {
+                if (typesFit(scl, level, groupTypes, typeCoresPerCache)) {
+                    SchedulingClass nscl = new SchedulingClass(scl);
+                    for (int a = 0; a < actors; a++) {
+                        nscl.setType(a, groupTypes[level.get(scl, a)]);
+                    }
+                    typed.add(nscl);
+                }
+
+                // Next type assignment
+                int g = 0;
+                while (g < groups && ++groupTypes[g] == types) {
+                    groupTypes[g++] = 0;
+                }
+                if (g == groups) break;
+            }
+
+            if (typed.isEmpty()) {
+                // No type assignment fits every node, leave the types free
+                result.add(scl);
+            } else {
+                result.addAll(typed);
+            }
+        }
+        return result;
+    }
+
+    private boolean typesFit(SchedulingClass scl, GroupLevel level, int[] groupTypes, int[] typeCoresPerCache) {
+        int types = topology.coreTypes();
+
+        // Count distinct typed groups in every node, and every cache group
+        int[][] nodeTypes = new int[scl.numNodes()][types];
+        int[][] cacheTypes = new int[scl.numCaches()][types];
+        boolean[] seen = new boolean[groupTypes.length];
+        for (int a = 0; a < scl.numActors(); a++) {
+            int g = level.get(scl, a);
+            if (seen[g]) continue;
+            seen[g] = true;
+            nodeTypes[scl.nodes[a]][groupTypes[g]]++;
+            if (level == GroupLevel.CORE && scl.caches[a] != -1) {
+                cacheTypes[scl.caches[a]][groupTypes[g]]++;
+            }
+        }
+
+        for (int t = 0; t < types; t++) {
+            int nodeLimit = (level == GroupLevel.CACHE) ? topology.typeCachesPerNode(t) : topology.typeCoresPerNode(t);
+            for (int[] nt : nodeTypes) {
+                if (nt[t] > nodeLimit) {
+                    return false;
+                }
+            }
+            for (int[] ct : cacheTypes) {
+                if (ct[t] > typeCoresPerCache[t]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private enum GroupLevel {
+        NODE,
+        CACHE,
+        CORE;
+
+        int get(SchedulingClass scl, int a) {
+            switch (this) {
+                case NODE:  return scl.nodes[a];
+                case CACHE: return scl.caches[a];
+                case CORE:  return scl.cores[a];
+                default:
+                    throw new IllegalStateException("Unknown enum");
+            }
+        }
+
+        void set(SchedulingClass scl, int a, int g) {
+            switch (this) {
+                case NODE:  scl.nodes[a] = g; break;
+                case CACHE: scl.caches[a] = g; break;
+                case CORE:  scl.cores[a] = g; break;
+                default:
+                    throw new IllegalStateException("Unknown enum");
+            }
+        }
+
+        int count(SchedulingClass scl) {
+            switch (this) {
+                case NODE:  return scl.numNodes();
+                case CACHE: return scl.numCaches();
+                case CORE:  return scl.numCores();
+                default:
+                    throw new IllegalStateException("Unknown enum");
+            }
+        }
+
+        int[] actors(SchedulingClass scl) {
+            switch (this) {
+                case NODE:  return scl.nodeActors();
+                case CACHE: return scl.cacheActors();
+                case CORE:  return scl.coreActors();
+                default:
+                    throw new IllegalStateException("Unknown enum");
+            }
+        }
+    }
+
+    private static List<SchedulingClass> assignGroups(List<SchedulingClass> cases, int actors, int limit,
+                                                      GroupLevel parent, GroupLevel child) {
+        List<SchedulingClass> result = new ArrayList<>();
+        for (SchedulingClass scl : cases) {
+            int numParents = parent.count(scl);
+            int[] parentActors = parent.actors(scl);
+
+            int[][][] parentAssignments = new int[numParents][][];
+            for (int p = 0; p < numParents; p++) {
+                parentAssignments[p] = classPermutation(parentActors[p], limit);
+            }
+
+            List<SchedulingClass> temp = new ArrayList<>();
+            temp.add(scl);
+
+            for (int p = 0; p < numParents; p++) {
+                List<SchedulingClass> newCases = new ArrayList<>();
+                for (SchedulingClass tscl : temp) {
+                    // Compute last assigned child class for other parents
+                    int shift = child.count(tscl);
+
+                    for (int[] childClasses : parentAssignments[p]) {
+                        SchedulingClass nscl = new SchedulingClass(tscl);
+                        int idx = 0;
+                        for (int i = 0; i < actors; i++) {
+                            if (parent.get(scl, i) == p) {
+                                child.set(nscl, i, childClasses[idx++] + shift);
+                            }
+                        }
+                        newCases.add(nscl);
+                    }
+                }
+                temp = newCases;
+            }
+
+            result.addAll(temp);
+        }
+        return result;
     }
 
     private static int max(int[] perm) {
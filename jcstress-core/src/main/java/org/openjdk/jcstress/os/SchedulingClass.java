@@ -32,25 +32,36 @@ public class SchedulingClass implements Serializable {
     final AffinityMode mode;
     final int actors;
     final int[] nodes;
+    final int[] caches;
     final int[] cores;
+    final int[] types;
     final NodeType nodeType;
+    MemoryPlacement placement;
 
     public SchedulingClass(AffinityMode mode, int actors, NodeType nodeType) {
         this.mode = mode;
         this.nodes = new int[actors];
+        this.caches = new int[actors];
         this.cores = new int[actors];
+        this.types = new int[actors];
         this.actors = actors;
         this.nodeType = nodeType;
+        this.placement = MemoryPlacement.FREE;
         Arrays.fill(nodes, -1);
+        Arrays.fill(caches, -1);
         Arrays.fill(cores, -1);
+        Arrays.fill(types, -1);
     }
 
     public SchedulingClass(SchedulingClass copy) {
         this.actors = copy.actors;
         this.mode = copy.mode;
         this.nodeType = copy.nodeType;
+        this.placement = copy.placement;
         this.nodes = Arrays.copyOf(copy.nodes, copy.nodes.length);
+        this.caches = Arrays.copyOf(copy.caches, copy.caches.length);
         this.cores = Arrays.copyOf(copy.cores, copy.cores.length);
+        this.types = Arrays.copyOf(copy.types, copy.types.length);
     }
 
     public AffinityMode mode() {
@@ -69,6 +80,14 @@ public class SchedulingClass implements Serializable {
         return m + 1;
     }
 
+    public int numCaches() {
+        int m = -1;
+        for (int c : caches) {
+            m = Math.max(m, c);
+        }
+        return m + 1;
+    }
+
     public int numCores() {
         int m = -1;
         for (int c : cores) {
@@ -85,6 +104,14 @@ public class SchedulingClass implements Serializable {
         return r;
     }
 
+    public int[] cacheActors() {
+        int[] r = new int[numCaches()];
+        for (int c : caches) {
+            if (c != -1) r[c]++;
+        }
+        return r;
+    }
+
     public int[] coreActors() {
         int[] r = new int[numCores()];
         for (int c : cores) {
@@ -101,22 +128,63 @@ public class SchedulingClass implements Serializable {
         return nodes[a];
     }
 
+    public void setCache(int a, int c) {
+        caches[a] = c;
+    }
+
+    public int getCache(int a) {
+        return caches[a];
+    }
+
     public void setCore(int a, int c) {
         cores[a] = c;
     }
 
+    public int getCore(int a) {
+        return cores[a];
+    }
+
+    public void setType(int a, int t) {
+        types[a] = t;
+    }
+
+    public int getType(int a) {
+        return types[a];
+    }
+
+    public void setPlacement(MemoryPlacement placement) {
+        this.placement = placement;
+    }
+
+    public MemoryPlacement placement() {
+        return placement;
+    }
+
+    public boolean hasTypes() {
+        for (int t : types) {
+            if (t != -1) return true;
+        }
+        return false;
+    }
+
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         SchedulingClass scl = (SchedulingClass) o;
         return Arrays.equals(nodes, scl.nodes) &&
-                Arrays.equals(cores, scl.cores);
+                Arrays.equals(caches, scl.caches) &&
+                Arrays.equals(cores, scl.cores) &&
+                Arrays.equals(types, scl.types) &&
+                placement == scl.placement;
     }
 
     @Override
     public int hashCode() {
         int result = Arrays.hashCode(nodes);
+        result = 31 * result + Arrays.hashCode(caches);
         result = 31 * result + Arrays.hashCode(cores);
+        result = 31 * result + Arrays.hashCode(types);
+        result = 31 * result + placement.hashCode();
         return result;
     }
 
@@ -137,6 +205,11 @@ public class SchedulingClass implements Serializable {
                 sb.append("free");
             }
             sb.append(", ");
+            if (caches[a] != -1) {
+                sb.append("LG ");
+                sb.append(caches[a]);
+                sb.append(", ");
+            }
             sb.append("CG ");
             int c = cores[a];
             if (c != -1) {
@@ -144,8 +217,16 @@ public class SchedulingClass implements Serializable {
             } else {
                 sb.append("free");
             }
+            if (types[a] != -1) {
+                sb.append(", T ");
+                sb.append(types[a]);
+            }
             sb.append(")");
         }
+        if (placement != MemoryPlacement.FREE) {
+            sb.append(", M ");
+            sb.append(placement.shortDesc());
+        }
         return sb.toString();
     }
 
@@ -167,6 +248,11 @@ public class SchedulingClass implements Serializable {
                 sb.append("free");
             }
             sb.append(", ");
+            if (scl.caches[a] != -1) {
+                sb.append("cache group ");
+                sb.append(scl.caches[a]);
+                sb.append(", ");
+            }
             sb.append("core group ");
             int c = scl.cores[a];
             if (c != -1) {
@@ -174,6 +260,15 @@ public class SchedulingClass implements Serializable {
             } else {
                 sb.append("free");
             }
+            if (scl.types[a] != -1) {
+                sb.append(", core type ");
+                sb.append(scl.types[a]);
+            }
+            sb.append(System.lineSeparator());
+        }
+        if (scl.placement != MemoryPlacement.FREE) {
+            sb.append("    <memory>: ");
+            sb.append(scl.placement.desc(scl.nodeType));
             sb.append(System.lineSeparator());
         }
         return sb.toString();
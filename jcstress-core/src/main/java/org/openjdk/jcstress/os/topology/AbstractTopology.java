@@ -47,13 +47,67 @@ public abstract class AbstractTopology implements Topology {
 
     private SortedMap<Integer, Integer> threadToRealCPU = new TreeMap<>();
 
+    private SortedMap<Integer, Integer> coreToCache = new TreeMap<>();
+    private Multimap<Integer, Integer> cacheToCore = new TreesetMultimap<>();
+    private Multimap<Integer, Integer> nodeToCache = new TreesetMultimap<>();
+    private String cacheDesc;
+
+    private SortedMap<Integer, Integer> coreToType = new TreeMap<>();
+    private List<String> typeDescs;
+    private int[] typeCoresPerNode;
+    private int[] typeCachesPerNode;
+    private boolean typedCaches;
+
     private int nodesPerSystem = -1;
     private int coresPerNode = -1;
     private int threadsPerCore = -1;
+    private int cachesPerNode = -1;
+    private int coresPerCache = -1;
 
     private boolean finished;
 
-    protected void add(int nodeId, int coreId, int threadId) throws TopologyParseException {
+    private Set<Integer> allowedCPUs;
+    private Set<Integer> isolatedThreads = new HashSet<>();
+
+    /**
+     * Restricts the topology to the given real CPUs. The threads for other CPUs
+     * would be silently ignored. This should be called before adding any threads.
+     *
+     * @param realCPUs allowed CPUs, null means all CPUs are allowed
+     */
+    protected void restrictTo(Collection<Integer> realCPUs) {
+        checkNotFinished();
+        allowedCPUs = (realCPUs != null) ? new HashSet<>(realCPUs) : null;
+    }
+
+    /**
+     * Marks the given real CPUs as isolated from the general OS scheduling,
+     * e.g. with isolcpus or nohz_full. This should be called after all threads
+     * are added and renumbered.
+     *
+     * @param realCPUs isolated CPUs
+     */
+    protected void setIsolated(Collection<Integer> realCPUs) {
+        checkNotFinished();
+        Set<Integer> cpus = new HashSet<>(realCPUs);
+        isolatedThreads = new HashSet<>();
+        for (Integer t : threads) {
+            if (cpus.contains(threadToRealCPU.get(t))) {
+                isolatedThreads.add(t);
+            }
+        }
+    }
+
+    /**
+     * Adds the thread to the topology.
+     *
+     * @return true, if thread was added; false, if thread is not allowed
+     */
+    protected boolean add(int nodeId, int coreId, int threadId) throws TopologyParseException {
+        if (allowedCPUs != null && !allowedCPUs.contains(threadId)) {
+            return false;
+        }
+
         String triplet = "N" + nodeId + ", C" + coreId + ", T" + threadId;
 
         if (nodeId == -1) {
@@ -105,6 +159,7 @@ public abstract class AbstractTopology implements Topology {
 
         nodeToCore.put(nodeId, coreId);
         coreToThread.put(coreId, threadId);
+        return true;
     }
 
     protected static <K, V> Multimap<K, V> remapKeys(Multimap<K, V> src, Map<K, K> remap) {
@@ -196,9 +251,116 @@ public abstract class AbstractTopology implements Topology {
         nodeToCore = remapKeys(nodeToCore, renumber);
     }
 
+    /**
+     * Tries to use the given cache sharing as cache groups. This should be called
+     * after all threads are added and renumbered. Cache sharing is rejected if it
+     * is not consistent with cores and nodes, or it does not split the nodes.
+     *
+     * @param sharedCPUs real CPU to the list of real CPUs that share the cache with it
+     * @param desc cache description
+     * @return true, if cache groups were accepted
+     */
+    protected boolean tryAddCaches(Map<Integer, List<Integer>> sharedCPUs, String desc) {
+        checkNotFinished();
+
+        Map<List<Integer>, Integer> ids = new HashMap<>();
+        SortedMap<Integer, Integer> newCoreToCache = new TreeMap<>();
+        for (Integer t : threads) {
+            List<Integer> shared = sharedCPUs.get(threadToRealCPU.get(t));
+            if (shared == null) {
+                return false;
+            }
+            Integer id = ids.get(shared);
+            if (id == null) {
+                id = ids.size();
+                ids.put(shared, id);
+            }
+            Integer ex = newCoreToCache.put(threadToCore.get(t), id);
+            if (ex != null && !ex.equals(id)) {
+                // Threads of the same core are in different caches
+                return false;
+            }
+        }
+
+        Multimap<Integer, Integer> newCacheToCore = new TreesetMultimap<>();
+        Multimap<Integer, Integer> newNodeToCache = new TreesetMultimap<>();
+        Map<Integer, Integer> cacheToNode = new HashMap<>();
+        for (Integer core : newCoreToCache.keySet()) {
+            int cache = newCoreToCache.get(core);
+            int node = coreToNode.get(core);
+            Integer ex = cacheToNode.put(cache, node);
+            if (ex != null && ex != node) {
+                // Cache is wider than the node
+                return false;
+            }
+            newCacheToCore.put(cache, core);
+            newNodeToCache.put(node, cache);
+        }
+
+        boolean splitsNode = false;
+        for (Integer node : newNodeToCache.keys()) {
+            splitsNode |= newNodeToCache.get(node).size() > 1;
+        }
+        boolean spansCores = false;
+        for (Integer cache : newCacheToCore.keys()) {
+            spansCores |= newCacheToCore.get(cache).size() > 1;
+        }
+        if (!splitsNode || !spansCores) {
+            return false;
+        }
+
+        coreToCache = newCoreToCache;
+        cacheToCore = newCacheToCore;
+        nodeToCache = newNodeToCache;
+        cacheDesc = desc;
+        return true;
+    }
+
+    /**
+     * Tries to use the given core types. This should be called after all threads
+     * are added and renumbered. Core types are rejected if they are not consistent
+     * with the cores, or there is only one type.
+     *
+     * @param cpuToType real CPU to core type, 0 is the most capable type
+     * @param descs core type descriptions
+     * @return true, if core types were accepted
+     */
+    protected boolean tryAddCoreTypes(Map<Integer, Integer> cpuToType, List<String> descs) {
+        checkNotFinished();
+
+        SortedMap<Integer, Integer> newCoreToType = new TreeMap<>();
+        Set<Integer> types = new HashSet<>();
+        for (Integer t : threads) {
+            Integer type = cpuToType.get(threadToRealCPU.get(t));
+            if (type == null || type < 0 || type >= descs.size()) {
+                return false;
+            }
+            Integer ex = newCoreToType.put(threadToCore.get(t), type);
+            if (ex != null && !ex.equals(type)) {
+                // Threads of the same core are of different types
+                return false;
+            }
+            types.add(type);
+        }
+
+        if (types.size() != descs.size() || types.size() <= 1) {
+            return false;
+        }
+
+        coreToType = newCoreToType;
+        typeDescs = descs;
+        return true;
+    }
+
     protected void finish() throws TopologyParseException {
         checkNotFinished();
 
+        if (threads.isEmpty()) {
+            throw new TopologyParseException((allowedCPUs != null) ?
+                    "No CPUs left after restricting to allowed CPUs: " + new TreeSet<>(allowedCPUs) :
+                    "No CPUs found");
+        }
+
         if (nodes.first() != 0 || nodes.last() != nodes.size() - 1) {
             throw new TopologyParseException("Node IDs are not consecutive: " + nodes);
         }
@@ -231,6 +393,73 @@ public abstract class AbstractTopology implements Topology {
             }
         }
 
+        if (cacheDesc == null) {
+            // No cache groups, every node is its own cache group
+            coreToCache = new TreeMap<>(coreToNode);
+            cacheToCore = nodeToCore;
+            nodeToCache = new TreesetMultimap<>();
+            for (Integer n : nodes) {
+                nodeToCache.put(n, n);
+            }
+        }
+
+        for (Integer n : nodeToCache.keys()) {
+            int size = nodeToCache.get(n).size();
+            if (cachesPerNode == -1) {
+                cachesPerNode = size;
+            } else {
+                cachesPerNode = Math.min(cachesPerNode, size);
+            }
+        }
+
+        for (Integer c : cacheToCore.keys()) {
+            int size = cacheToCore.get(c).size();
+            if (coresPerCache == -1) {
+                coresPerCache = size;
+            } else {
+                coresPerCache = Math.min(coresPerCache, size);
+            }
+        }
+
+        if (typeDescs == null) {
+            // No core types, all cores are the same
+            for (Integer c : cores) {
+                coreToType.put(c, 0);
+            }
+            typeDescs = Collections.singletonList("regular");
+        }
+
+        int types = typeDescs.size();
+
+        // Caches are typed if all cores in them are of the same type
+        typedCaches = (cacheDesc != null);
+        for (Integer l : cacheToCore.keys()) {
+            Set<Integer> ts = new HashSet<>();
+            for (Integer c : cacheToCore.get(l)) {
+                ts.add(coreToType.get(c));
+            }
+            typedCaches &= (ts.size() == 1);
+        }
+
+        typeCoresPerNode = new int[types];
+        typeCachesPerNode = new int[types];
+        Arrays.fill(typeCoresPerNode, Integer.MAX_VALUE);
+        Arrays.fill(typeCachesPerNode, Integer.MAX_VALUE);
+        for (Integer n : nodes) {
+            int[] coreCounts = new int[types];
+            for (Integer c : nodeToCore.get(n)) {
+                coreCounts[coreToType.get(c)]++;
+            }
+            int[] cacheCounts = new int[types];
+            for (Integer l : nodeToCache.get(n)) {
+                cacheCounts[coreToType.get(cacheToCore.get(l).iterator().next())]++;
+            }
+            for (int t = 0; t < types; t++) {
+                typeCoresPerNode[t] = Math.min(typeCoresPerNode[t], coreCounts[t]);
+                typeCachesPerNode[t] = Math.min(typeCachesPerNode[t], cacheCounts[t]);
+            }
+        }
+
         finished = true;
     }
 
@@ -258,15 +487,41 @@ public abstract class AbstractTopology implements Topology {
                 nodeType().desc(),
                 threadsPerCore,
                 threadsPerCore > 1 ? "s" : "");
+        if (allowedCPUs != null) {
+            pw.printf("  Restricted to %d allowed CPU%s%n", threads.size(), threads.size() > 1 ? "s" : "");
+        }
+        if (!isolatedThreads.isEmpty()) {
+            pw.printf("  %d isolated CPU%s, preferred for actors%n", isolatedThreads.size(), isolatedThreads.size() > 1 ? "s" : "");
+        }
+        if (cacheDesc != null) {
+            pw.printf("  %d %s group%s per %s, %d core%s per group%n",
+                    cachesPerNode,
+                    cacheDesc,
+                    cachesPerNode > 1 ? "s" : "",
+                    nodeType().desc(),
+                    coresPerCache,
+                    coresPerCache > 1 ? "s" : "");
+        }
+        if (typeDescs.size() > 1) {
+            pw.printf("  %d core types:", typeDescs.size());
+            for (int t = 0; t < typeDescs.size(); t++) {
+                pw.printf(" #%d %s%s", t, typeDescs.get(t), t < typeDescs.size() - 1 ? "," : "");
+            }
+            pw.println();
+        }
         pw.println();
         pw.println("  CPU topology:");
         for (Integer pack : nodes) {
             for (Integer core : nodeToCore.get(pack)) {
                 for (Integer thread : coreToThread.get(core)) {
-                    pw.printf("    CPU %s: %s #%d, core #%d, thread #%d%n",
+                    pw.printf("    CPU %s: %s #%d, %score #%d, thread #%d%s%s%n",
                             String.format("%3s", "#" + threadToRealCPU.get(thread)),
                             nodeType().desc(),
-                            pack, core, thread);
+                            pack,
+                            (cacheDesc != null) ? cacheDesc + " #" + coreToCache.get(core) + ", " : "",
+                            core, thread,
+                            (typeDescs.size() > 1) ? ", core type #" + coreToType.get(core) : "",
+                            isolatedThreads.contains(thread) ? ", isolated" : "");
                 }
             }
         }
@@ -346,6 +601,97 @@ public abstract class AbstractTopology implements Topology {
         return v;
     }
 
+    @Override
+    public int cachesPerNode() {
+        checkFinished();
+        return cachesPerNode;
+    }
+
+    @Override
+    public int coresPerCache() {
+        checkFinished();
+        return coresPerCache;
+    }
+
+    @Override
+    public Collection<Integer> nodeCaches(int nodeId) {
+        checkFinished();
+        return nodeToCache.get(nodeId);
+    }
+
+    @Override
+    public Collection<Integer> cacheCores(int cacheId) {
+        checkFinished();
+        return cacheToCore.get(cacheId);
+    }
+
+    @Override
+    public int coreToCache(int coreId) {
+        checkFinished();
+        Integer v = coreToCache.get(coreId);
+        if (v == null) {
+            throw new IllegalArgumentException("Cannot find cache mapping for core " + coreId);
+        }
+        return v;
+    }
+
+    @Override
+    public String cacheDesc() {
+        return cacheDesc;
+    }
+
+    @Override
+    public boolean threadIsolated(int threadId) {
+        checkFinished();
+        return isolatedThreads.contains(threadId);
+    }
+
+    @Override
+    public int isolatedThreads() {
+        checkFinished();
+        return isolatedThreads.size();
+    }
+
+    @Override
+    public int coreTypes() {
+        checkFinished();
+        return typeDescs.size();
+    }
+
+    @Override
+    public int coreToType(int coreId) {
+        checkFinished();
+        Integer v = coreToType.get(coreId);
+        if (v == null) {
+            throw new IllegalArgumentException("Cannot find type mapping for core " + coreId);
+        }
+        return v;
+    }
+
+    @Override
+    public String coreTypeDesc(int type) {
+        checkFinished();
+        return typeDescs.get(type);
+    }
+
+    @Override
+    public int typeCoresPerNode(int type) {
+        checkFinished();
+        return typeCoresPerNode[type];
+    }
+
+    @Override
+    public int typeCachesPerNode(int type) {
+        checkFinished();
+        return typeCachesPerNode[type];
+    }
+
+    @Override
+    public boolean typedCaches() {
+        checkFinished();
+        return typedCaches;
+    }
+
     @Override
     public NodeType nodeType() {
         return NodeType.PACKAGE;
@@ -24,6 +24,8 @@
  */
 package org.openjdk.jcstress.os.topology;
 
+import org.openjdk.jcstress.os.CGroups;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -38,12 +40,17 @@ public class LinuxProcfsTopology extends AbstractTopology {
     private final String file;
 
     public LinuxProcfsTopology() throws TopologyParseException {
-        this("/proc/cpuinfo");
+        this("/proc/cpuinfo", CGroups.get().effectiveCPUs());
     }
 
-    @SuppressWarnings("this-escape")
     public LinuxProcfsTopology(String file) throws TopologyParseException {
+        this(file, null);
+    }
+
+    @SuppressWarnings("this-escape")
+    public LinuxProcfsTopology(String file, Collection<Integer> allowedCPUs) throws TopologyParseException {
         this.file = file;
+        restrictTo(allowedCPUs);
         try {
             List<String> lines = Files.readAllLines(new File(file).toPath(), Charset.defaultCharset());
 
@@ -24,6 +24,7 @@
  */
 package org.openjdk.jcstress.os.topology;
 
+import org.openjdk.jcstress.os.CGroups;
 import org.openjdk.jcstress.os.NodeType;
 import org.openjdk.jcstress.util.StringUtils;
 
@@ -60,11 +61,16 @@ public class LinuxSysfsTopology extends AbstractTopology {
     }
 
     public LinuxSysfsTopology() throws TopologyParseException {
-        this(new File("/sys/devices/system/").toPath());
+        this(new File("/sys/devices/system/").toPath(), CGroups.get().effectiveCPUs());
     }
 
-    @SuppressWarnings("this-escape")
     public LinuxSysfsTopology(Path root) throws TopologyParseException {
+        this(root, null);
+    }
+
+    @SuppressWarnings("this-escape")
+    public LinuxSysfsTopology(Path root, Collection<Integer> allowedCPUs) throws TopologyParseException {
+        restrictTo(allowedCPUs);
         this.cpuRoot = root.resolve("cpu");
         this.nodeRoot = root.resolve("node");
 
@@ -184,8 +190,9 @@ public class LinuxSysfsTopology extends AbstractTopology {
                             nodeId = knownPackage.get(list);
                         }
                     }
-                    add(nodeId, nodeId*cpuCount + coreId, threadId);
-                    found = true;
+                    if (add(nodeId, nodeId*cpuCount + coreId, threadId)) {
+                        found = true;
+                    }
                 }
             }
             if (!found) {
@@ -196,9 +203,122 @@ public class LinuxSysfsTopology extends AbstractTopology {
         }
 
         renumberAll();
+
+        // Parse cache sharing. Try the widest caches first, the first one
+        // that splits the nodes into the multi-core groups wins.
+        SortedMap<Integer, Map<Integer, List<Integer>>> cacheLevels = parseCaches();
+        for (int level : cacheLevels.keySet()) {
+            if (tryAddCaches(cacheLevels.get(level), "L" + level + " cache")) {
+                break;
+            }
+        }
+
+        // Parse core types on hybrid systems. Prefer the capacities reported
+        // by the kernel, and fall back to hybrid PMU CPU lists.
+        if (!tryAddTypeGroups(parseCapacities(), "capacity")) {
+            tryAddTypeGroups(parseHybridPMUs(root), null);
+        }
+
+        setIsolated(parseIsolated());
+
         finish();
     }
 
+    private boolean tryAddTypeGroups(SortedMap<Integer, List<Integer>> typeCPUs, String desc) {
+        Map<Integer, Integer> cpuToType = new HashMap<>();
+        List<String> descs = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> e : typeCPUs.entrySet()) {
+            for (Integer cpu : e.getValue()) {
+                cpuToType.put(cpu, descs.size());
+            }
+            descs.add((desc != null) ? desc + " " + e.getKey() : HYBRID_PMU_NAMES[e.getKey()]);
+        }
+        return tryAddCoreTypes(cpuToType, descs);
+    }
+
+    private Set<Integer> parseIsolated() {
+        Set<Integer> isolated = new TreeSet<>();
+        for (String file : new String[] { "isolated", "nohz_full" }) {
+            try {
+                List<String> lines = Files.readAllLines(cpuRoot.resolve(file));
+                if (!lines.isEmpty() && !lines.get(0).trim().isEmpty()) {
+                    isolated.addAll(StringUtils.decodeCpuList(lines.get(0).trim()));
+                }
+            } catch (Exception e) {
+                // No isolation information, or "(null)" for nohz_full; nothing to do
+            }
+        }
+        return isolated;
+    }
+
+    private SortedMap<Integer, List<Integer>> parseCapacities() {
+        // Higher capacity goes first
+        SortedMap<Integer, List<Integer>> capacities = new TreeMap<>(Comparator.reverseOrder());
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(cpuRoot)) {
+            for (Path d : ds) {
+                String basename = d.getFileName().toString();
+                if (!basename.matches("cpu[0-9]+")) continue;
+                if (!Files.exists(d.resolve("cpu_capacity"))) continue;
+
+                int cpu = Integer.parseInt(basename.substring(3));
+                int capacity = readInt(d.resolve("cpu_capacity"));
+                capacities.computeIfAbsent(capacity, k -> new ArrayList<>()).add(cpu);
+            }
+        } catch (Exception e) {
+            // No capacity information, nothing to do
+            capacities.clear();
+        }
+        return capacities;
+    }
+
+    private static final String[] HYBRID_PMUS = { "cpu_core", "cpu_atom" };
+    private static final String[] HYBRID_PMU_NAMES = { "P-core", "E-core" };
+
+    private SortedMap<Integer, List<Integer>> parseHybridPMUs(Path root) {
+        SortedMap<Integer, List<Integer>> types = new TreeMap<>();
+        try {
+            for (int t = 0; t < HYBRID_PMUS.length; t++) {
+                Path p = root.resolveSibling(HYBRID_PMUS[t]).resolve("cpus");
+                if (Files.exists(p)) {
+                    types.put(t, readList(p));
+                }
+            }
+        } catch (Exception e) {
+            // No hybrid PMU information, nothing to do
+            types.clear();
+        }
+        return types;
+    }
+
+    private SortedMap<Integer, Map<Integer, List<Integer>>> parseCaches() {
+        SortedMap<Integer, Map<Integer, List<Integer>>> levels = new TreeMap<>(Comparator.reverseOrder());
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(cpuRoot)) {
+            for (Path d : ds) {
+                String basename = d.getFileName().toString();
+                if (!basename.matches("cpu[0-9]+")) continue;
+                if (!Files.isDirectory(d.resolve("cache"))) continue;
+
+                int cpu = Integer.parseInt(basename.substring(3));
+                try (DirectoryStream<Path> cds = Files.newDirectoryStream(d.resolve("cache"))) {
+                    for (Path c : cds) {
+                        if (!c.getFileName().toString().matches("index[0-9]+")) continue;
+
+                        List<String> type = Files.readAllLines(c.resolve("type"));
+                        if (!type.isEmpty() && type.get(0).equals("Instruction")) continue;
+
+                        int level = readInt(c.resolve("level"));
+                        List<Integer> shared = readList(c.resolve("shared_cpu_list"));
+                        levels.computeIfAbsent(level, k -> new HashMap<>()).put(cpu, shared);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // No cache information, nothing to do
+            levels.clear();
+        }
+        return levels;
+    }
+
     public void printStatus(PrintStream pw) {
         pw.println("  Linux, using " + cpuRoot + ", " + nodeRoot);
         super.printStatus(pw);
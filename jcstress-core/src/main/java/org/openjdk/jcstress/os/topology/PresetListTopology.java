@@ -24,14 +24,40 @@
  */
 package org.openjdk.jcstress.os.topology;
 
+import java.util.*;
+
 public class PresetListTopology extends AbstractTopology {
 
-    public void add(int nodeId, int coreId, int threadId) throws TopologyParseException {
+    private final Map<Integer, Integer> threadToType = new HashMap<>();
+    private int coreTypes;
+    private final Set<Integer> isolated = new HashSet<>();
+
+    public boolean add(int nodeId, int coreId, int threadId) throws TopologyParseException {
+        return super.add(nodeId, coreId, threadId);
+    }
+
+    public void add(int nodeId, int coreId, int threadId, int coreType) throws TopologyParseException {
         super.add(nodeId, coreId, threadId);
+        threadToType.put(threadId, coreType);
+        coreTypes = Math.max(coreTypes, coreType + 1);
+    }
+
+    public void isolate(int threadId) {
+        isolated.add(threadId);
     }
 
     public void finish() throws TopologyParseException {
         renumberAll();
+        setIsolated(isolated);
+        if (!threadToType.isEmpty()) {
+            List<String> descs = new ArrayList<>();
+            for (int t = 0; t < coreTypes; t++) {
+                descs.add("type " + t);
+            }
+            if (!tryAddCoreTypes(threadToType, descs)) {
+                throw new TopologyParseException("Inconsistent core types");
+            }
+        }
         super.finish();
     }
 
@@ -24,18 +24,70 @@
  */
 package org.openjdk.jcstress.os.topology;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class PresetRegularTopology extends AbstractTopology {
 
-    @SuppressWarnings("this-escape")
     public PresetRegularTopology(int nodesPerSystem, int coresPerNode, int threadsPerCore) throws TopologyParseException {
+        this(nodesPerSystem, 1, coresPerNode, threadsPerCore);
+    }
+
+    public PresetRegularTopology(int nodesPerSystem, int cachesPerNode, int coresPerCache, int threadsPerCore) throws TopologyParseException {
+        this(nodesPerSystem, cachesPerNode, coresPerCache, threadsPerCore, 1);
+    }
+
+    /**
+     * Simulates the hybrid system. Core types are interleaved across the cache
+     * groups, if there are several groups per node, otherwise across the cores.
+     */
+    @SuppressWarnings("this-escape")
+    public PresetRegularTopology(int nodesPerSystem, int cachesPerNode, int coresPerCache, int threadsPerCore, int coreTypes) throws TopologyParseException {
+        int coresPerNode = cachesPerNode * coresPerCache;
+        int totalCores = coresPerNode * nodesPerSystem;
+
+        Map<Integer, List<Integer>> sharedCPUs = new HashMap<>();
+        Map<Integer, Integer> cpuToType = new HashMap<>();
         for (int t = 0; t < threadsPerCore; t++) {
             for (int p = 0; p < nodesPerSystem; p++) {
                 for (int c = 0; c < coresPerNode; c++) {
-                    add(p, c + p*coresPerNode, t*coresPerNode*nodesPerSystem + c + p*coresPerNode);
+                    int core = c + p*coresPerNode;
+                    int thread = t*totalCores + core;
+                    add(p, core, thread);
+
+                    // All threads of all cores in the same cache group
+                    int firstCore = core - core % coresPerCache;
+                    List<Integer> shared = new ArrayList<>();
+                    for (int st = 0; st < threadsPerCore; st++) {
+                        for (int sc = firstCore; sc < firstCore + coresPerCache; sc++) {
+                            shared.add(st*totalCores + sc);
+                        }
+                    }
+                    sharedCPUs.put(thread, shared);
+
+                    if (cachesPerNode > 1) {
+                        cpuToType.put(thread, (c / coresPerCache) % coreTypes);
+                    } else {
+                        cpuToType.put(thread, c % coreTypes);
+                    }
                 }
             }
         }
 
+        tryAddCaches(sharedCPUs, "cache");
+
+        if (coreTypes > 1) {
+            List<String> descs = new ArrayList<>();
+            for (int t = 0; t < coreTypes; t++) {
+                descs.add("type " + t);
+            }
+            if (!tryAddCoreTypes(cpuToType, descs)) {
+                throw new TopologyParseException("Cannot set up " + coreTypes + " core types");
+            }
+        }
+
         finish();
     }
 
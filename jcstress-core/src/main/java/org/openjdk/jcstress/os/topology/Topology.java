@@ -24,19 +24,31 @@
  */
 package org.openjdk.jcstress.os.topology;
 
+import org.openjdk.jcstress.os.CGroups;
 import org.openjdk.jcstress.os.NodeType;
 import org.openjdk.jcstress.vm.VMSupport;
 
+import java.io.File;
 import java.io.PrintStream;
 import java.util.Collection;
 
 public interface Topology {
 
     static Topology get() {
+        return get(null);
+    }
+
+    /**
+     * @param cpus real CPUs to use, null if all
+     * @return topology restricted to the given CPUs
+     */
+    static Topology get(Collection<Integer> cpus) {
         if (VMSupport.isLinux()) {
+            Collection<Integer> allowed = CGroups.get().restrict(cpus);
+
             // Try to parse sysfs
             try {
-                return new LinuxSysfsTopology();
+                return new LinuxSysfsTopology(new File("/sys/devices/system/").toPath(), allowed);
             } catch (TopologyParseException tpe) {
                 // No dice...
             }
@@ -44,7 +56,7 @@ public interface Topology {
             // Try to parse /proc/cpuinfo
             // (both Linux, and Windows can show this)
             try {
-                return new LinuxProcfsTopology();
+                return new LinuxProcfsTopology("/proc/cpuinfo", allowed);
             } catch (TopologyParseException tpe) {
                 // No dice...
             }
@@ -75,6 +87,48 @@ public interface Topology {
     int threadToNode(int threadId);
     int coreToNode(int coreId);
 
+    /*
+     * Cache groups are the cores sharing the cache that is wider than a core,
+     * but narrower than a node, e.g. L3 slices (CCXs) in a package, or shared
+     * L2 clusters. If there is no such cache, every node is a single cache group.
+     */
+    int cachesPerNode();
+    int coresPerCache();
+
+    Collection<Integer> nodeCaches(int nodeId);
+    Collection<Integer> cacheCores(int cacheId);
+
+    int coreToCache(int coreId);
+
+    /**
+     * @return cache group description, or null if node is a single cache group
+     */
+    String cacheDesc();
+
+    /*
+     * Isolated CPUs are excluded from the general OS scheduling (isolcpus, nohz_full).
+     * Pinned actor threads run there with less interference.
+     */
+    boolean threadIsolated(int threadId);
+    int isolatedThreads();
+
+    /*
+     * Core types are the classes of cores with different performance on hybrid
+     * CPUs, ordered from the most capable to the least capable one. Homogeneous
+     * systems have a single core type.
+     */
+    int coreTypes();
+    int coreToType(int coreId);
+    String coreTypeDesc(int type);
+
+    int typeCoresPerNode(int type);
+    int typeCachesPerNode(int type);
+
+    /**
+     * @return true, if there are cache groups, and all cores in every cache group are of the same type
+     */
+    boolean typedCaches();
+
     int threadToRealCPU(int threadId);
 
     NodeType nodeType();
@@ -30,6 +30,7 @@ import java.io.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.ObjLongConsumer;
 
 /**
  * Computes the histogram on arbitrary results.
@@ -235,6 +236,23 @@ public final class Counter<R> implements Serializable {
         return res;
     }
 
+    /**
+     * Visits all accumulated unique results with their counts.
+     * Unlike {@link #elementSet()}, does not allocate.
+     *
+     * @param action action to call for every result
+     */
+    public final void forEach(ObjLongConsumer<R> action) {
+        for (int c = 0; c < keys.length; c++) {
+            Object k = keys[c];
+            if (k != null) {
+                @SuppressWarnings("unchecked")
+                R e = (R) k;
+                action.accept(e, counts[c]);
+            }
+        }
+    }
+
     public long totalCount() {
         long s = 0;
         for (long c : counts) {
@@ -25,6 +25,8 @@
 package org.openjdk.jcstress.vm;
 
 import org.openjdk.jcstress.Options;
+import org.openjdk.jcstress.os.CGroups;
+import org.openjdk.jcstress.os.CPUMap;
 import org.openjdk.jcstress.util.ArrayUtils;
 import org.openjdk.jcstress.util.InputStreamDrainer;
 
@@ -60,6 +62,9 @@ public class VMSupport {
     private static volatile boolean ENABLE_NATIVE_ACCESS_AVAILABLE;
     private static final String ENABLE_NATIVE_ACCESS_OPT = "--enable-native-access=ALL-UNNAMED";
 
+    private static volatile boolean ACTIVE_PROCESSOR_COUNT_AVAILABLE;
+    private static final String ACTIVE_PROCESSOR_COUNT_OPT = "-XX:ActiveProcessorCount=";
+
     public static boolean spinWaitHintAvailable() {
         return THREAD_SPIN_WAIT_AVAILABLE;
     }
@@ -80,6 +85,10 @@ public class VMSupport {
         return C2_AVAILABLE;
     }
 
+    public static boolean stressSeedAvailable() {
+        return STRESS_SEED_AVAILABLE;
+    }
+
     public static boolean enableNativeAccessAvailable() {
         return ENABLE_NATIVE_ACCESS_AVAILABLE;
     }
@@ -88,6 +97,35 @@ public class VMSupport {
         return ENABLE_NATIVE_ACCESS_OPT;
     }
 
+    /**
+     * Computes the flags that size the forked VM for the CPUs allocated to it.
+     * Otherwise, the VM would size its thread pools and other internals for the
+     * entire host, while running on just a few CPUs.
+     *
+     * @param cpuMap CPUs allocated to the fork
+     * @param jvmArgs fork JVM arguments, user choices there take precedence
+     * @return flags to add to the fork command line
+     */
+    public static List<String> forkErgonomicsFlags(CPUMap cpuMap, List<String> jvmArgs) {
+        return forkErgonomicsFlags(ACTIVE_PROCESSOR_COUNT_AVAILABLE, cpuMap, jvmArgs);
+    }
+
+    static List<String> forkErgonomicsFlags(boolean activeProcessorCountAvailable, CPUMap cpuMap, List<String> jvmArgs) {
+        if (!activeProcessorCountAvailable) {
+            return Collections.emptyList();
+        }
+        for (String arg : jvmArgs) {
+            if (arg.startsWith(ACTIVE_PROCESSOR_COUNT_OPT)) {
+                return Collections.emptyList();
+            }
+        }
+
+        // Never go below 2 CPUs: VM ergonomics would then consider the machine
+        // a client one, and select another GC, which would skew the testing.
+        int cpus = Math.max(2, cpuMap.allocatedThreads().length);
+        return Collections.singletonList(ACTIVE_PROCESSOR_COUNT_OPT + cpus);
+    }
+
     public static void initFlags(Options opts) {
         System.out.println("Initializing and probing the target VM:");
         System.out.println(" (all failures are non-fatal, but may affect testing accuracy)");
@@ -206,6 +244,17 @@ public class VMSupport {
             );
         }
 
+        // The thread counts above are global, but the rest of VM ergonomics still
+        // looks at the number of CPUs. The forks override it with the number of
+        // CPUs they actually got, if VM supports it.
+
+        ACTIVE_PROCESSOR_COUNT_AVAILABLE = detect("Checking for active processor count override",
+                false,
+                SimpleTestMain.class,
+                null,
+                ACTIVE_PROCESSOR_COUNT_OPT + "2"
+        );
+
         detect("Testing @Contended works on all results and infra objects",
                 true,
                 ContendedTestMain.class,
@@ -625,6 +674,17 @@ public class VMSupport {
         service.shutdown();
 
         System.out.println(" done!");
+
+        // In containers, cgroup limits may allow fewer CPUs than are visible
+        CGroups cgroups = CGroups.get();
+        if (cgroups.effectiveCPUs() != null && cgroups.effectiveCPUs().size() < max) {
+            max = cgroups.effectiveCPUs().size();
+            System.out.println("Limited to " + max + " CPUs by cgroup CPU set.");
+        }
+        if (cgroups.cpuLimit() != -1 && cgroups.cpuLimit() < max) {
+            max = cgroups.cpuLimit();
+            System.out.println("Limited to " + max + " CPUs by cgroup CPU quota.");
+        }
         System.out.println();
 
         HOT_CPUS = max;
@@ -701,8 +761,6 @@ public class VMSupport {
     }
 
     public static class Config {
-        private static final Random SEED_RANDOM = new Random();
-
         private final List<String> args;
         private final Runtimes availableRuntimes;
         private final Runtimes requiredRuntimes;
@@ -747,13 +805,14 @@ public class VMSupport {
         }
 
         public List<String> args() {
-            if (addStressSeed) {
-                List<String> na = new ArrayList<>(args);
-                na.add("-XX:StressSeed=" + SEED_RANDOM.nextInt(Integer.MAX_VALUE));
-                return na;
-            } else {
-                return args;
-            }
+            return args;
+        }
+
+        /**
+         * @return true, if forks should get the explicit stress seed
+         */
+        public boolean needsStressSeed() {
+            return addStressSeed;
         }
 
         @Override
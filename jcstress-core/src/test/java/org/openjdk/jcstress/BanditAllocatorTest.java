@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.infra.runners.TestList;
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.NodeType;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.vm.CompileMode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+
+public class BanditAllocatorTest {
+
+    /**
+     * Arms differ by JVM args, tests are the ones from the test TestList,
+     * so that their results can be graded.
+     */
+    private static List<TestConfig> configs(String test, int arms, int forks) throws IOException {
+        Options opts = new Options(new String[0]);
+        opts.parse();
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.NONE, 2, NodeType.PACKAGE);
+        List<TestConfig> r = new ArrayList<>();
+        for (int a = 0; a < arms; a++) {
+            for (int f = 0; f < forks; f++) {
+                r.add(new TestConfig(opts, TestList.getInfo(test), f, Collections.singletonList("-Darm=" + a),
+                        CompileMode.UNIFIED, scl));
+            }
+        }
+        return r;
+    }
+
+    private static List<TestConfig> configs(int arms, int forks) throws IOException {
+        return configs("FailFastTest", arms, forks);
+    }
+
+    private static String arm(TestConfig cfg) {
+        return cfg.jvmArgs.get(0);
+    }
+
+    private static TestResult result(TestConfig cfg, String state) {
+        TestResult r = new TestResult(Status.NORMAL);
+        r.setConfig(cfg);
+        r.addState(state, 1000);
+        return r;
+    }
+
+    /**
+     * Results for the rewarded arm have the forbidden outcome, the rest are fine.
+     */
+    private static TestResult result(TestConfig cfg, boolean rewarded) {
+        return result(cfg, rewarded ? "1, 1" : "0, 0");
+    }
+
+    private static void recordAll(BanditAllocator bandit, List<TestConfig> cfgs, String rewarded) {
+        for (TestConfig cfg : cfgs) {
+            bandit.record(cfg, result(cfg, arm(cfg).equals(rewarded)));
+        }
+    }
+
+    private static Map<String, Integer> allocate(BanditAllocator bandit, String rewarded) {
+        Map<String, Integer> counts = new HashMap<>();
+        List<TestConfig> batch;
+        while (!(batch = bandit.nextBatch(4, n -> false)).isEmpty()) {
+            for (TestConfig cfg : batch) {
+                counts.merge(arm(cfg), 1, Integer::sum);
+            }
+            recordAll(bandit, batch, rewarded);
+            Assert.assertTrue(bandit.hasFeedback());
+        }
+        return counts;
+    }
+
+    @Test
+    public void rewards() throws IOException {
+        TestConfig cfg = configs(1, 1).get(0);
+        Assert.assertEquals(1, BanditAllocator.reward(result(cfg, "1, 1")), 0);
+        Assert.assertEquals(0, BanditAllocator.reward(result(cfg, "0, 0")), 0);
+
+        TestResult error = new TestResult(Status.VM_ERROR);
+        error.setConfig(cfg);
+        Assert.assertEquals(0, BanditAllocator.reward(error), 0);
+    }
+
+    @Test
+    public void rewardedGetsMost() throws IOException {
+        List<TestConfig> cfgs = configs(10, 5);
+        BanditAllocator bandit = new BanditAllocator(cfgs, 100);
+        recordAll(bandit, cfgs, "-Darm=3");
+
+        Map<String, Integer> counts = allocate(bandit, "-Darm=3");
+        Assert.assertEquals(0, bandit.remaining());
+        Assert.assertEquals(100, counts.values().stream().mapToInt(Integer::intValue).sum());
+
+        int best = counts.get("-Darm=3");
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            if (!e.getKey().equals("-Darm=3")) {
+                Assert.assertTrue(e.getKey() + " got " + e.getValue() + ", more than the rewarded one " + best,
+                        e.getValue() < best);
+            }
+        }
+    }
+
+    @Test
+    public void everyoneExplored() throws IOException {
+        List<TestConfig> cfgs = configs(10, 5);
+        BanditAllocator bandit = new BanditAllocator(cfgs, 200);
+        recordAll(bandit, cfgs, "-Darm=3");
+
+        Map<String, Integer> counts = allocate(bandit, "-Darm=3");
+        Assert.assertEquals(10, counts.size());
+    }
+
+    @Test
+    public void newForkIds() throws IOException {
+        List<TestConfig> cfgs = configs(1, 5);
+        BanditAllocator bandit = new BanditAllocator(cfgs, 3);
+        List<TestConfig> next = bandit.nextBatch(100, n -> false);
+        Assert.assertEquals(3, next.size());
+        for (int i = 0; i < next.size(); i++) {
+            Assert.assertEquals(5 + i, next.get(i).forkId);
+            Assert.assertEquals(cfgs.get(0), next.get(i));
+        }
+    }
+
+    @Test
+    public void skipAndDrain() throws IOException {
+        List<TestConfig> cfgs = new ArrayList<>();
+        cfgs.addAll(configs("FailFastTest", 1, 1));
+        cfgs.addAll(configs("LiveTest", 1, 1));
+
+        BanditAllocator bandit = new BanditAllocator(cfgs, 10);
+        for (TestConfig cfg : bandit.nextBatch(100, n -> n.equals("FailFastTest"))) {
+            Assert.assertEquals("LiveTest", cfg.name);
+        }
+        Assert.assertEquals(0, bandit.remaining());
+
+        bandit = new BanditAllocator(cfgs, 10);
+        Assert.assertTrue(bandit.nextBatch(100, n -> true).isEmpty());
+        Assert.assertEquals(10, bandit.drain());
+        Assert.assertEquals(0, bandit.remaining());
+    }
+
+    @Test
+    public void batchFillsCpus() throws IOException {
+        List<TestConfig> cfgs = configs(2, 1);
+        BanditAllocator bandit = new BanditAllocator(cfgs, 10);
+
+        // 2-actor tests: two forks fit into 5 CPUs
+        Assert.assertEquals(2, bandit.nextBatch(5, n -> false).size());
+
+        // At least one fork, even when the machine is smaller than the test
+        Assert.assertEquals(1, bandit.nextBatch(1, n -> false).size());
+        Assert.assertEquals(7, bandit.remaining());
+    }
+
+    @Test
+    public void waitsForFeedback() throws IOException {
+        List<TestConfig> cfgs = configs(2, 5);
+        BanditAllocator bandit = new BanditAllocator(cfgs, 10);
+        Assert.assertFalse(bandit.hasFeedback());
+
+        recordAll(bandit, cfgs.subList(0, 5), "");
+        Assert.assertTrue(bandit.hasFeedback());
+
+        // New forks have no results yet
+        List<TestConfig> batch = bandit.nextBatch(100, n -> false);
+        Assert.assertFalse(bandit.hasFeedback());
+
+        // Until they report back
+        recordAll(bandit, batch, "");
+        Assert.assertTrue(bandit.hasFeedback());
+    }
+
+    @Test
+    public void drainWhenNothingEligible() throws IOException {
+        List<TestConfig> cfgs = configs(2, 1);
+        BanditAllocator bandit = new BanditAllocator(cfgs, 10);
+        Assert.assertEquals(2, bandit.nextBatch(4, n -> false).size());
+
+        // Both tests have failed, nothing is eligible
+        Assert.assertTrue(bandit.nextBatch(4, n -> true).isEmpty());
+        Assert.assertEquals(8, bandit.drain());
+        Assert.assertEquals(0, bandit.remaining());
+        Assert.assertTrue(bandit.nextBatch(4, n -> false).isEmpty());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bandit.printStatsOn(new PrintStream(bos, true));
+        String stats = bos.toString();
+        Assert.assertTrue(stats, stats.contains("2 of 10 allocated"));
+        Assert.assertTrue(stats, stats.contains("8 forks given up"));
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class CoveragePlannerTest {
+
+    private static List<int[]> product(int... levels) {
+        List<int[]> rows = new ArrayList<>();
+        rows.add(new int[0]);
+        for (int l : levels) {
+            List<int[]> next = new ArrayList<>();
+            for (int[] row : rows) {
+                for (int v = 0; v < l; v++) {
+                    int[] n = Arrays.copyOf(row, row.length + 1);
+                    n[row.length] = v;
+                    next.add(n);
+                }
+            }
+            rows = next;
+        }
+        return rows;
+    }
+
+    private static Set<List<Integer>> combinations(List<int[]> rows, int t) {
+        Set<List<Integer>> r = new HashSet<>();
+        int factors = rows.get(0).length;
+        for (int[] row : rows) {
+            for (int mask = 0; mask < (1 << factors); mask++) {
+                if (Integer.bitCount(mask) != t) continue;
+                List<Integer> key = new ArrayList<>();
+                for (int f = 0; f < factors; f++) {
+                    if ((mask & (1 << f)) != 0) {
+                        key.add(f);
+                        key.add(row[f]);
+                    }
+                }
+                r.add(key);
+            }
+        }
+        return r;
+    }
+
+    private static void check(List<int[]> candidates, int t) {
+        List<int[]> plan = new CoveragePlanner(t).plan(candidates);
+        Assert.assertEquals(combinations(candidates, t), combinations(plan, t));
+        for (int[] row : plan) {
+            Assert.assertTrue(candidates.contains(row));
+        }
+    }
+
+    @Test
+    public void pairwise() {
+        // 2 configs, 4 actors with 3 modes each, 5 scheduling classes
+        List<int[]> candidates = product(2, 3, 3, 3, 3, 5);
+        List<int[]> plan = new CoveragePlanner(2).plan(candidates);
+        check(candidates, 2);
+
+        // At least the largest pair of factors, and much less than the product
+        Assert.assertTrue(plan.size() >= 15);
+        Assert.assertTrue("Plan size: " + plan.size(), plan.size() < 40);
+    }
+
+    @Test
+    public void threeWise() {
+        List<int[]> candidates = product(2, 3, 3, 3, 3, 5);
+        List<int[]> plan = new CoveragePlanner(3).plan(candidates);
+        check(candidates, 3);
+        Assert.assertTrue("Plan size: " + plan.size(), plan.size() < candidates.size() / 2);
+    }
+
+    @Test
+    public void constrained() {
+        // Drop some combinations, as if the config does not support some modes
+        List<int[]> candidates = product(2, 3, 3, 3, 4);
+        candidates.removeIf(r -> r[0] == 1 && (r[1] == 2 || r[2] == 2 || r[3] == 2));
+        check(candidates, 2);
+    }
+
+    @Test
+    public void seeded() {
+        List<int[]> candidates = product(2, 3, 3, 3, 3, 5);
+        CoveragePlanner planner = new CoveragePlanner(2);
+
+        Set<List<String>> plans = new HashSet<>();
+        for (long seed = 0; seed < 10; seed++) {
+            List<int[]> plan = planner.plan(candidates, seed);
+            Assert.assertEquals(combinations(candidates, 2), combinations(plan, 2));
+            Assert.assertEquals(rows(plan), rows(planner.plan(candidates, seed)));
+            plans.add(rows(plan));
+        }
+
+        // Different seeds should pick different rows
+        Assert.assertTrue("Distinct plans: " + plans.size(), plans.size() > 1);
+    }
+
+    private static List<String> rows(List<int[]> plan) {
+        List<String> r = new ArrayList<>();
+        for (int[] row : plan) {
+            r.add(Arrays.toString(row));
+        }
+        return r;
+    }
+
+    @Test
+    public void fullProduct() {
+        List<int[]> candidates = product(2, 3, 4);
+        Assert.assertEquals(candidates.size(), new CoveragePlanner(3).plan(candidates).size());
+        Assert.assertEquals(candidates.size(), new CoveragePlanner(0).plan(candidates).size());
+    }
+
+}
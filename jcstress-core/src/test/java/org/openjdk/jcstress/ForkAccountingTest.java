@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jcstress.infra.collectors.ForkStats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+
+public class ForkAccountingTest {
+
+    private static String print(ForkAccounting acc) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PrintStream ps = new PrintStream(bos, true);
+        acc.printOn(ps);
+        return bos.toString();
+    }
+
+    @Test
+    public void empty() {
+        Assert.assertEquals("", print(new ForkAccounting()));
+    }
+
+    @Test
+    public void utilization() {
+        ForkAccounting acc = new ForkAccounting();
+
+        // 4 CPUs for 2 seconds, actors took half of it
+        acc.record(new ForkStats(4, 2, 0, 2000, 100, 6000));
+
+        // Fork with no result: reserved for its startup, no actor time, CPU time unknown
+        acc.record(new ForkStats(4, 2, 1000, 0, 0, ForkStats.UNKNOWN));
+
+        String s = print(acc);
+        Assert.assertTrue(s, s.contains("over 2 forks"));
+        Assert.assertTrue(s, s.matches("(?s).*Reserved: +12\\.0 CPU-s.*"));
+        Assert.assertTrue(s, s.matches("(?s).*Used by actors: +4\\.0 CPU-s \\(33\\.3% of reserved\\).*"));
+
+        // Only the measured fork counts against its own reservation
+        Assert.assertTrue(s, s.matches("(?s).*Used by forks: +6\\.0 CPU-s \\(75\\.0% of reserved, measured in 1 forks\\).*"));
+        Assert.assertTrue(s, s.contains("startup 500 ms, run 1000 ms, shutdown 50 ms"));
+    }
+
+    @Test
+    public void cpuTimeUnknown() {
+        ForkAccounting acc = new ForkAccounting();
+        acc.record(new ForkStats(2, 2, 100, 1000, 0, ForkStats.UNKNOWN));
+
+        String s = print(acc);
+        Assert.assertTrue(s, s.contains("Used by actors:"));
+        Assert.assertFalse(s, s.contains("Used by forks:"));
+    }
+
+    private static Process fakeProcess() {
+        return new Process() {
+            @Override
+            public OutputStream getOutputStream() {
+                return null;
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return null;
+            }
+
+            @Override
+            public InputStream getErrorStream() {
+                return null;
+            }
+
+            @Override
+            public int waitFor() {
+                return 0;
+            }
+
+            @Override
+            public int exitValue() {
+                return 0;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+    }
+
+    @Test
+    public void cpuTimeNoProcessHandle() {
+        // Lookup had failed, as it does before JDK 9
+        Assert.assertEquals(ForkStats.UNKNOWN, ForkAccounting.cpuTimeMs(fakeProcess(), null, null, null));
+    }
+
+    @Test
+    public void cpuTimeHandleFails() throws Exception {
+        Method toHandle;
+        Method info;
+        Method totalCpuDuration;
+        try {
+            toHandle = Process.class.getMethod("toHandle");
+            info = Class.forName("java.lang.ProcessHandle").getMethod("info");
+            totalCpuDuration = Class.forName("java.lang.ProcessHandle$Info").getMethod("totalCpuDuration");
+        } catch (ReflectiveOperationException e) {
+            Assume.assumeNoException(e);
+            return;
+        }
+
+        // Custom Process implementations do not support handles
+        Assert.assertEquals(ForkStats.UNKNOWN, ForkAccounting.cpuTimeMs(fakeProcess(), toHandle, info, totalCpuDuration));
+        Assert.assertEquals(ForkStats.UNKNOWN, ForkAccounting.cpuTimeMs(fakeProcess()));
+    }
+
+}
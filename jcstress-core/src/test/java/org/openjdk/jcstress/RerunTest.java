@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.DiskWriteCollector;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.infra.runners.TestList;
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.NodeType;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.vm.CompileMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+public class RerunTest {
+
+    private static final SchedulingClass SCL = new SchedulingClass(AffinityMode.NONE, 2, NodeType.PACKAGE);
+
+    private static TestResult result(Options opts, String test, List<String> jvmArgs, int seed, String state) {
+        TestConfig cfg = new TestConfig(opts, TestList.getInfo(test), 0, jvmArgs, CompileMode.UNIFIED, SCL);
+        cfg.setStressSeed(seed);
+        TestResult r = new TestResult(Status.NORMAL);
+        r.setConfig(cfg);
+        r.addState(state, 1000);
+        return r;
+    }
+
+    private static File rerunFile(TestResult... results) throws IOException {
+        File file = File.createTempFile("jcstress", "results");
+        file.deleteOnExit();
+
+        DiskWriteCollector dwc = new DiskWriteCollector(file.getAbsolutePath());
+        for (TestResult r : results) {
+            dwc.add(r);
+        }
+        dwc.close();
+        return file;
+    }
+
+    private static Options rerunOptions(File file) throws IOException {
+        Options opts = new Options(new String[] {"-rerun", file.getAbsolutePath(), "-f", "1"});
+        Assert.assertTrue(opts.parse());
+        return opts;
+    }
+
+    @Test
+    public void replaysFailingSeeds() throws IOException {
+        Options base = new Options(new String[0]);
+        base.parse();
+        List<String> args = Collections.singletonList("-XX:+StressArgs");
+
+        File file = rerunFile(
+                result(base, "FailFastTest", args, 11, "1, 1"),
+                result(base, "FailFastTest", args, 22, "1, 1"),
+                result(base, "FailFastTest", args, 33, "0, 0"),
+                result(base, "LiveTest", args, 44, "1, 1"));
+
+        Set<String> tests = new HashSet<>(Arrays.asList("FailFastTest", "LiveTest"));
+        Map<Integer, List<SchedulingClass>> scls = Collections.singletonMap(2, Collections.singletonList(SCL));
+
+        List<TestConfig> configs = new JCStress(rerunOptions(file)).prepareRerunProgram(scls, tests);
+
+        // Forks with different seeds are the same configuration
+        Assert.assertEquals(JCStress.RERUN_FORKS_MULTIPLIER, configs.size());
+
+        List<Integer> seeds = new ArrayList<>();
+        for (TestConfig c : configs) {
+            Assert.assertEquals("FailFastTest", c.name);
+            Assert.assertEquals(args, c.jvmArgs);
+            Assert.assertEquals(SCL, c.shClass);
+            Assert.assertTrue(c.hasStressSeed());
+            seeds.add(c.stressSeed);
+        }
+
+        // Both failing seeds are replayed once, the passing one is not
+        Assert.assertEquals(1, Collections.frequency(seeds, 11));
+        Assert.assertEquals(1, Collections.frequency(seeds, 22));
+        Assert.assertEquals(0, Collections.frequency(seeds, 33));
+    }
+
+    @Test
+    public void skipsUnavailableActors() throws IOException {
+        Options base = new Options(new String[0]);
+        base.parse();
+
+        File file = rerunFile(result(base, "FailFastTest", Collections.emptyList(), 11, "1, 1"));
+
+        List<TestConfig> configs = new JCStress(rerunOptions(file))
+                .prepareRerunProgram(Collections.emptyMap(), Collections.singleton("FailFastTest"));
+        Assert.assertTrue(configs.isEmpty());
+    }
+
+}
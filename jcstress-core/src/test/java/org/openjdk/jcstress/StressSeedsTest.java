@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+public class StressSeedsTest {
+
+    @Test
+    public void rotateDistinct() {
+        StressSeeds seeds = new StressSeeds(StressSeeds.ROTATE);
+        Set<Integer> seen = new HashSet<>();
+        for (int c = 0; c < 100_000; c++) {
+            int s = seeds.next();
+            Assert.assertTrue(s >= 0);
+            Assert.assertTrue("Duplicate seed " + s, seen.add(s));
+        }
+    }
+
+    @Test
+    public void fixed() {
+        StressSeeds seeds = new StressSeeds("12345");
+        for (int c = 0; c < 10; c++) {
+            Assert.assertEquals(12345, seeds.next());
+        }
+    }
+
+    @Test
+    public void random() {
+        StressSeeds seeds = new StressSeeds(StressSeeds.RANDOM);
+        for (int c = 0; c < 10; c++) {
+            Assert.assertTrue(seeds.next() >= 0);
+        }
+    }
+
+    @Test
+    public void removesStaleFile() throws IOException {
+        File file = File.createTempFile("stress-seeds", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "12345 FAILED Test, unified, []\n".getBytes());
+
+        new StressSeeds(StressSeeds.ROTATE).writeTo(file);
+        Assert.assertFalse(file.exists());
+
+        // Nothing to remove is fine too
+        new StressSeeds(StressSeeds.ROTATE).writeTo(file);
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test
+    public void valid() {
+        Assert.assertTrue(StressSeeds.isValid("random"));
+        Assert.assertTrue(StressSeeds.isValid("rotate"));
+        Assert.assertTrue(StressSeeds.isValid("0"));
+        Assert.assertTrue(StressSeeds.isValid("42"));
+        Assert.assertFalse(StressSeeds.isValid("-1"));
+        Assert.assertFalse(StressSeeds.isValid("foo"));
+    }
+
+}
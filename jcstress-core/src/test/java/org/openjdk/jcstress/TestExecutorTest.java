@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.infra.runners.TestList;
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.NodeType;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.util.HashMultimap;
+import org.openjdk.jcstress.util.Multimap;
+import org.openjdk.jcstress.vm.CompileMode;
+
+import java.io.IOException;
+import java.util.*;
+
+public class TestExecutorTest {
+
+    private static Options opts;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        opts = new Options(new String[0]);
+        opts.parse();
+    }
+
+    private static TestConfig config(String test, SchedulingClass scl, int fork) {
+        return new TestConfig(opts, TestList.getInfo(test), fork, Collections.emptyList(), CompileMode.UNIFIED, scl);
+    }
+
+    private static TestResult result(String state, Status status) {
+        TestResult r = new TestResult(status);
+        r.addState(state, 100);
+        return r;
+    }
+
+    @Test
+    public void forbidden() {
+        SchedulingClass scl = new SchedulingClass(AffinityMode.NONE, 2, NodeType.PACKAGE);
+
+        TestResult ok = result("0, 0", Status.NORMAL);
+        ok.setConfig(config("FailFastTest", scl, 0));
+        Assert.assertFalse(TestExecutor.hasForbidden(ok));
+
+        TestResult broken = result("1, 1", Status.NORMAL);
+        broken.setConfig(config("FailFastTest", scl, 0));
+        Assert.assertTrue(TestExecutor.hasForbidden(broken));
+
+        // Errors are not the forbidden outcomes, even with samples
+        TestResult error = result("1, 1", Status.TEST_ERROR);
+        error.setConfig(config("FailFastTest", scl, 0));
+        Assert.assertFalse(TestExecutor.hasForbidden(error));
+    }
+
+    @Test
+    public void dropFailed() {
+        SchedulingClass scl1 = new SchedulingClass(AffinityMode.NONE, 2, NodeType.PACKAGE);
+        SchedulingClass scl2 = new SchedulingClass(AffinityMode.NONE, 3, NodeType.PACKAGE);
+        List<SchedulingClass> scls = Arrays.asList(scl1, scl2);
+
+        Multimap<SchedulingClass, TestConfig> byScl = new HashMultimap<>();
+        for (int f = 0; f < 3; f++) {
+            byScl.put(scl1, config("FailFastTest", scl1, f));
+            byScl.put(scl1, config("LiveTest", scl1, f));
+            byScl.put(scl2, config("FailFastTest", scl2, f));
+        }
+
+        Assert.assertEquals(0, TestExecutor.dropFailed(byScl, scls, Collections.emptySet()));
+        Assert.assertEquals(6, byScl.get(scl1).size());
+        Assert.assertEquals(3, byScl.get(scl2).size());
+
+        Assert.assertEquals(6, TestExecutor.dropFailed(byScl, scls, Collections.singleton("FailFastTest")));
+        Assert.assertEquals(3, byScl.get(scl1).size());
+        for (TestConfig cfg : byScl.get(scl1)) {
+            Assert.assertEquals("LiveTest", cfg.name);
+        }
+        Assert.assertFalse("Class with no configs left should be gone", byScl.containsKey(scl2));
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.util.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+public class TimeBudgetTest {
+
+    @Test
+    public void cancelRedistributes() {
+        TimeBudget tb = new TimeBudget(10, new TimeValue(100, TimeUnit.SECONDS));
+        int before = tb.targetTestTimeMs();
+
+        for (int c = 0; c < 5; c++) {
+            tb.cancelTest();
+        }
+        int after = tb.targetTestTimeMs();
+
+        // Half of the tests are cancelled, the rest should get about twice the time
+        Assert.assertTrue(before + " -> " + after, after > before * 19 / 10);
+        Assert.assertTrue(before + " -> " + after, after <= before * 2 + TimeBudget.MIN_TIME_MS);
+    }
+
+    @Test
+    public void cancelDoesNotTouchInflight() {
+        TimeBudget tb = new TimeBudget(10, new TimeValue(100, TimeUnit.SECONDS));
+        tb.startTest();
+        tb.cancelTest();
+        Assert.assertEquals(1, tb.inflightTests());
+        tb.finishTest();
+        Assert.assertEquals(0, tb.inflightTests());
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.annotations.Expect;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+public class StateCaseMatcherTest {
+
+    private static StateCase sc(String pattern) {
+        return new StateCase(Pattern.compile(pattern), Expect.ACCEPTABLE, pattern);
+    }
+
+    @Test
+    public void exactFirst() {
+        StateCase any = sc("1, .*");
+        StateCase exact = sc("1, 1");
+        StateCaseMatcher m = new StateCaseMatcher(Arrays.asList(any, exact));
+
+        Assert.assertSame(exact, m.match("1, 1"));
+        Assert.assertSame(any, m.match("1, 2"));
+        Assert.assertNull(m.match("2, 1"));
+
+        // Memoized answers are the same
+        Assert.assertSame(exact, m.match("1, 1"));
+        Assert.assertSame(any, m.match("1, 2"));
+        Assert.assertNull(m.match("2, 1"));
+    }
+
+    @Test
+    public void firstPatternWins() {
+        StateCase a = sc("[0-9], 0");
+        StateCase b = sc("1, [0-9]");
+        StateCaseMatcher m = new StateCaseMatcher(Arrays.asList(a, b));
+
+        Assert.assertSame(a, m.match("1, 0"));
+        Assert.assertSame(b, m.match("1, 1"));
+    }
+
+    @Test
+    public void inlineFlagsAreScoped() {
+        StateCase a = sc("(?i)a");
+        StateCase b = sc("b");
+        StateCaseMatcher m = new StateCaseMatcher(Arrays.asList(a, b));
+
+        Assert.assertSame(a, m.match("A"));
+        Assert.assertSame(b, m.match("b"));
+        Assert.assertNull(m.match("B"));
+    }
+
+    @Test
+    public void backReferences() {
+        StateCase a = sc("(.), \\1");
+        StateCase b = sc("(.), (.)");
+        StateCaseMatcher m = new StateCaseMatcher(Arrays.asList(a, b));
+
+        Assert.assertSame(a, m.match("1, 1"));
+        Assert.assertSame(b, m.match("1, 2"));
+    }
+
+    @Test
+    public void empty() {
+        StateCaseMatcher m = new StateCaseMatcher(Collections.emptyList());
+        Assert.assertNull(m.match("1, 1"));
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.infra.Status;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+public class DiskCollectorsTest {
+
+    private static TestResult result(int id) {
+        TestResult r = new TestResult(Status.NORMAL);
+        r.addState("state" + id, id);
+        r.addMessage("message " + id);
+        return r;
+    }
+
+    private static int readBack(File file) throws IOException, ClassNotFoundException {
+        InProcessCollector collector = new InProcessCollector();
+        DiskReadCollector drc = new DiskReadCollector(file.getAbsolutePath(), collector);
+        drc.dump();
+        drc.close();
+
+        int idx = 0;
+        for (TestResult r : collector.getTestResults()) {
+            Assert.assertEquals(idx, r.getCount("state" + idx));
+            Assert.assertEquals("message " + idx, r.getMessages().get(0));
+            Assert.assertNotNull(r.getEnv());
+            idx++;
+        }
+        return idx;
+    }
+
+    @Test
+    public void roundTrip() throws IOException, ClassNotFoundException {
+        File file = File.createTempFile("jcstress", "results");
+        file.deleteOnExit();
+
+        DiskWriteCollector dwc = new DiskWriteCollector(file.getAbsolutePath());
+        for (int c = 0; c < 1000; c++) {
+            dwc.add(result(c));
+        }
+        dwc.close();
+
+        Assert.assertEquals(1000, readBack(file));
+    }
+
+    @Test
+    public void truncatedTail() throws IOException, ClassNotFoundException {
+        File file = File.createTempFile("jcstress", "results");
+        file.deleteOnExit();
+
+        DiskWriteCollector dwc = new DiskWriteCollector(file.getAbsolutePath());
+        for (int c = 0; c < 1000; c++) {
+            dwc.add(result(c));
+        }
+        dwc.close();
+
+        // Emulate the crash in the middle of writing the last frame
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+
+        int count = readBack(file);
+        Assert.assertTrue("Should recover complete frames: " + count, count > 0 && count < 1000);
+    }
+
+    @Test
+    public void corruptedLength() throws IOException, ClassNotFoundException {
+        File file = File.createTempFile("jcstress", "results");
+        file.deleteOnExit();
+
+        DiskWriteCollector dwc = new DiskWriteCollector(file.getAbsolutePath());
+        for (int c = 0; c < 100; c++) {
+            dwc.add(result(c));
+        }
+        dwc.close();
+
+        // Emulate the garbage in the unprotected frame header:
+        // the payload length should not be trusted for allocation
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            raf.writeInt(Integer.MAX_VALUE - 16);
+        }
+
+        Assert.assertEquals(0, readBack(file));
+    }
+
+    @Test
+    public void corruptedCount() throws IOException, ClassNotFoundException {
+        File file = File.createTempFile("jcstress", "results");
+        file.deleteOnExit();
+
+        DiskWriteCollector dwc = new DiskWriteCollector(file.getAbsolutePath());
+        for (int c = 0; c < 100; c++) {
+            dwc.add(result(c));
+        }
+        dwc.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.writeInt(1000);
+        }
+
+        // Results in the first frame are recovered, the rest is ignored
+        int count = readBack(file);
+        Assert.assertTrue("Should recover the first frame: " + count, count > 0 && count <= 100);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class ForkStatsTest {
+
+    private static final long LAUNCH = TimeUnit.SECONDS.toNanos(1000);
+
+    private static long at(long ms) {
+        return LAUNCH + TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+
+    @Test
+    public void allPhases() {
+        ForkStats s = ForkStats.fromTimestamps(4, 2, LAUNCH, at(300), at(1300), at(1350), 2500);
+        Assert.assertEquals(300, s.startupMs());
+        Assert.assertEquals(1000, s.runMs());
+        Assert.assertEquals(50, s.shutdownMs());
+        Assert.assertEquals(1350, s.wallMs());
+        Assert.assertEquals(2500, s.cpuTimeMs());
+
+        // CPUs are reserved until the result arrives, actors only run in the run phase
+        Assert.assertEquals(4 * 1300, s.reservedCpuMs());
+        Assert.assertEquals(2 * 1000, s.actorCpuMs());
+    }
+
+    @Test
+    public void noResult() {
+        // Fork crashed while running: no shutdown phase
+        ForkStats s = ForkStats.fromTimestamps(4, 2, LAUNCH, at(300), 0, at(800), ForkStats.UNKNOWN);
+        Assert.assertEquals(300, s.startupMs());
+        Assert.assertEquals(500, s.runMs());
+        Assert.assertEquals(0, s.shutdownMs());
+        Assert.assertEquals(4 * 800, s.reservedCpuMs());
+        Assert.assertEquals(2 * 500, s.actorCpuMs());
+    }
+
+    @Test
+    public void noJob() {
+        // Fork died during startup: all the time is startup
+        ForkStats s = ForkStats.fromTimestamps(4, 2, LAUNCH, 0, 0, at(200), ForkStats.UNKNOWN);
+        Assert.assertEquals(200, s.startupMs());
+        Assert.assertEquals(0, s.runMs());
+        Assert.assertEquals(0, s.shutdownMs());
+        Assert.assertEquals(4 * 200, s.reservedCpuMs());
+        Assert.assertEquals(0, s.actorCpuMs());
+    }
+
+    @Test
+    public void description() {
+        Assert.assertEquals("startup 300 ms, run 1000 ms, shutdown 50 ms, 2500 ms CPU time on 4 CPUs",
+                new ForkStats(4, 2, 300, 1000, 50, 2500).toString());
+        Assert.assertEquals("startup 300 ms, run 0 ms, shutdown 0 ms, unknown CPU time on 4 CPUs",
+                new ForkStats(4, 2, 300, 0, 0, ForkStats.UNKNOWN).toString());
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.collectors;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openjdk.jcstress.Options;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.TestInfo;
+import org.openjdk.jcstress.infra.grading.ReportUtils;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.NodeType;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.vm.CompileMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+public class MergingCollectorTest {
+
+    private static TestConfig cfgA;
+    private static TestConfig cfgA2;
+    private static TestConfig cfgB;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        Options opts = new Options(new String[0]);
+        opts.parse();
+
+        List<String> actors = Arrays.asList("actor1", "actor2");
+        SchedulingClass scl = new SchedulingClass(AffinityMode.NONE, 2, NodeType.PACKAGE);
+        TestInfo infoA = new TestInfo("TestA", "TestA", "TestA_jcstress", "", 2, actors, false);
+        cfgA = new TestConfig(opts, infoA, 0, Collections.emptyList(), CompileMode.UNIFIED, scl);
+        cfgA2 = new TestConfig(opts, infoA, 0, Collections.singletonList("-Xint"), CompileMode.UNIFIED, scl);
+        cfgB = new TestConfig(opts, new TestInfo("TestB", "TestB", "TestB_jcstress", "", 2, actors, false),
+                0, Collections.emptyList(), CompileMode.UNIFIED, scl);
+    }
+
+    private static File tempDir() throws IOException {
+        File dir = Files.createTempDirectory("jcstress-overflow").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static TestResult result(TestConfig cfg, Status status, int lines) {
+        TestResult r = new TestResult(status);
+        r.setConfig(cfg);
+        r.addState("state", 10);
+        for (int c = 0; c < lines; c++) {
+            r.addMessage("message " + c);
+            r.addVMOuts(Collections.singletonList("out " + c));
+        }
+        return r;
+    }
+
+    private static TestResult find(Collection<TestResult> results, TestConfig cfg) {
+        for (TestResult r : results) {
+            if (r.getConfig().equals(cfg)) {
+                return r;
+            }
+        }
+        throw new IllegalStateException("Not found: " + cfg);
+    }
+
+    @Test
+    public void mergesByConfig() throws IOException {
+        MergingCollector mc = new MergingCollector(tempDir());
+        mc.add(result(cfgA, Status.NORMAL, 1));
+        mc.add(result(cfgB, Status.NORMAL, 1));
+        mc.add(result(new TestConfig(cfgA, 1), Status.TIMEOUT_ERROR, 1));
+
+        Collection<TestResult> results = mc.getTestResults();
+        Assert.assertEquals(2, results.size());
+
+        TestResult a = find(results, cfgA);
+        Assert.assertEquals(20, a.getCount("state"));
+        Assert.assertEquals(Status.TIMEOUT_ERROR, a.status());
+        Assert.assertEquals(2, a.getMessages().size());
+
+        TestResult b = find(results, cfgB);
+        Assert.assertEquals(10, b.getCount("state"));
+        Assert.assertEquals(Status.NORMAL, b.status());
+    }
+
+    @Test
+    public void capsAndSpills() throws IOException {
+        File dir = tempDir();
+        MergingCollector mc = new MergingCollector(dir);
+        for (int f = 0; f < 10; f++) {
+            mc.add(result(new TestConfig(cfgA, f), Status.NORMAL, 100));
+        }
+
+        TestResult a = find(mc.getTestResults(), cfgA);
+
+        // 500 retained lines, and the pointer to the spilled rest
+        List<String> msgs = a.getMessages();
+        Assert.assertEquals(501, msgs.size());
+        String pointer = msgs.get(500);
+        Assert.assertTrue(pointer, pointer.startsWith("(500 more lines in "));
+
+        File[] spills = dir.listFiles();
+        Assert.assertNotNull(spills);
+        Assert.assertEquals(2, spills.length);
+
+        for (File f : spills) {
+            f.deleteOnExit();
+            Assert.assertTrue(f.getName(), f.getName().startsWith("TestA-0-"));
+            Assert.assertEquals(500, Files.readAllLines(f.toPath()).size());
+        }
+        Assert.assertTrue(pointer, pointer.contains(new File(dir, "TestA-0-messages.txt").getAbsolutePath()));
+    }
+
+    @Test
+    public void overwritesStaleSpills() throws IOException {
+        File dir = tempDir();
+        File stale = new File(dir, "TestA-0-messages.txt");
+        stale.deleteOnExit();
+        Files.write(stale.toPath(), Collections.nCopies(1000, "stale"));
+
+        MergingCollector mc = new MergingCollector(dir);
+        mc.add(result(cfgA, Status.NORMAL, 501));
+        mc.getTestResults();
+
+        Assert.assertEquals(Collections.singletonList("message 500"), Files.readAllLines(stale.toPath()));
+        for (File f : dir.listFiles()) {
+            f.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void sharesBudgetAcrossConfigs() throws IOException {
+        File dir = tempDir();
+        MergingCollector mc = new MergingCollector(dir);
+        mc.add(result(cfgA, Status.NORMAL, 400));
+        mc.add(result(cfgA2, Status.NORMAL, 400));
+        mc.add(result(cfgB, Status.NORMAL, 400));
+
+        Collection<TestResult> results = mc.getTestResults();
+        Assert.assertEquals(400, find(results, cfgA).getMessages().size());
+        Assert.assertEquals(101, find(results, cfgA2).getMessages().size());
+        Assert.assertEquals(400, find(results, cfgB).getMessages().size());
+
+        // 500 retained lines for the test, and the pointer to the spilled rest
+        for (TestResult r : ReportUtils.mergedByName(results)) {
+            if (r.getName().equals("TestA")) {
+                List<String> msgs = r.getMessages();
+                Assert.assertEquals(501, msgs.size());
+                Assert.assertTrue(msgs.get(500), msgs.get(500).startsWith("(300 more lines in "));
+            }
+        }
+
+        for (File f : dir.listFiles()) {
+            f.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void clearsStaleSpills() throws IOException {
+        File dir = tempDir();
+        File stale = new File(dir, "TestZ-3-vmerr.txt");
+        stale.deleteOnExit();
+        Files.write(stale.toPath(), Collections.nCopies(10, "stale"));
+
+        MergingCollector mc = new MergingCollector(dir);
+        Assert.assertFalse(stale.exists());
+
+        mc.add(result(cfgA, Status.NORMAL, 1));
+        mc.getTestResults();
+        Assert.assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void snapshotsByName() throws IOException {
+        MergingCollector mc = new MergingCollector(tempDir());
+        mc.add(result(cfgA, Status.NORMAL, 1));
+        mc.add(result(cfgA2, Status.NORMAL, 1));
+        mc.add(result(cfgB, Status.NORMAL, 1));
+        mc.add(result(new TestConfig(cfgA, 1), Status.NORMAL, 1));
+
+        List<TestResult> a = mc.snapshot("TestA");
+        Assert.assertEquals(2, a.size());
+        Assert.assertEquals(20, find(a, cfgA).getCount("state"));
+        Assert.assertEquals(10, find(a, cfgA2).getCount("state"));
+
+        Assert.assertEquals(1, mc.snapshot("TestB").size());
+        Assert.assertTrue(mc.snapshot("TestC").isEmpty());
+
+        // Still accepts new results after the snapshot
+        mc.add(result(cfgB, Status.NORMAL, 1));
+        Assert.assertEquals(20, find(mc.getTestResults(), cfgB).getCount("state"));
+        Assert.assertEquals(1, mc.snapshot("TestB").size());
+    }
+
+}
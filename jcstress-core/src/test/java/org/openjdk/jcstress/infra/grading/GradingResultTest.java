@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.grading;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.annotations.Expect;
+
+public class GradingResultTest {
+
+    @Test
+    public void ruleOfThree() {
+        // For large sample counts, the bound converges to 3/n
+        Assert.assertEquals(3e-6, GradingResult.unobservedRateBound(1_000_000), 1e-8);
+        Assert.assertEquals(1, GradingResult.unobservedRateBound(0), 0);
+        Assert.assertEquals(0.95, GradingResult.unobservedRateBound(1), 1e-9);
+    }
+
+    @Test
+    public void observed() {
+        GradingResult r = new GradingResult("1, 0", Expect.ACCEPTABLE_INTERESTING, 100, 1_000_000, "");
+        Assert.assertEquals(1e-4, r.rate, 1e-12);
+        Assert.assertTrue(r.rateLow < r.rate);
+        Assert.assertTrue(r.rateHigh > r.rate);
+        Assert.assertTrue(r.rateLow > 0.7e-4);
+        Assert.assertTrue(r.rateHigh < 1.3e-4);
+        Assert.assertEquals(10_000, r.expectedSamples(), 1e-6);
+    }
+
+    @Test
+    public void unobserved() {
+        GradingResult r = new GradingResult("1, 0", Expect.FORBIDDEN, 0, 1_000_000, "");
+        Assert.assertEquals(0, r.rate, 0);
+        Assert.assertEquals(0, r.rateLow, 0);
+        Assert.assertEquals(GradingResult.unobservedRateBound(1_000_000), r.rateHigh, 0);
+        Assert.assertTrue(r.expectedSamples() > 300_000);
+    }
+
+    @Test
+    public void formatting() {
+        Assert.assertEquals("0%", ReportUtils.formatRate(0));
+        Assert.assertEquals("50.00%", ReportUtils.formatRate(0.5));
+        Assert.assertEquals("3.0e-04%", ReportUtils.formatRate(3e-6));
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.grading;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.Options;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.infra.runners.TestList;
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.NodeType;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.util.Environment;
+import org.openjdk.jcstress.vm.CompileMode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+public class LiveHTMLReportPrinterTest {
+
+    private static TestResult result(TestConfig cfg, int lines) {
+        TestResult r = new TestResult(Status.NORMAL);
+        r.setConfig(cfg);
+        r.setEnv(Environment.getInstance());
+        r.addState("1, 0", 100);
+        for (int c = 0; c < lines; c++) {
+            r.addMessage("message " + c);
+        }
+        return r;
+    }
+
+    private static String awaitPage(File page, String marker) throws IOException, InterruptedException {
+        for (int c = 0; c < 200; c++) {
+            if (page.exists()) {
+                String s = new String(Files.readAllBytes(page.toPath()), StandardCharsets.UTF_8);
+                if (s.contains(marker)) {
+                    return s;
+                }
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Page " + page + " was not updated with " + marker);
+    }
+
+    private static TestConfig config() throws IOException {
+        Options opts = new Options(new String[0]);
+        opts.parse();
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.NONE, 2, NodeType.PACKAGE);
+        return new TestConfig(opts, TestList.getInfo("LiveTest"), 0,
+                Collections.emptyList(), CompileMode.UNIFIED, scl);
+    }
+
+    @Test
+    public void updatesPages() throws Exception {
+        File dir = Files.createTempDirectory("jcstress-live").toFile();
+        TestConfig cfg = config();
+
+        LiveHTMLReportPrinter printer = new LiveHTMLReportPrinter(dir.getAbsolutePath(), 10);
+        try {
+            for (int f = 0; f < 10; f++) {
+                printer.add(result(new TestConfig(cfg, f), 100));
+            }
+
+            File index = new File(dir, "index.html");
+            awaitPage(index, "LiveTest");
+
+            // Retained lines are capped, and the rest is spilled
+            String page = awaitPage(new File(dir, "LiveTest.html"), "(500 more lines in ");
+            Assert.assertTrue(page.contains("message 99"));
+
+            File spilled = new File(new File(dir, "overflow-live"), "LiveTest-0-messages.txt");
+            Assert.assertTrue(spilled.exists());
+            Assert.assertEquals(500, Files.readAllLines(spilled.toPath()).size());
+
+            // More results arrive, the page gets rewritten
+            printer.add(result(new TestConfig(cfg, 10), 100));
+            awaitPage(new File(dir, "LiveTest.html"), "(600 more lines in ");
+        } finally {
+            printer.close();
+        }
+
+        // Pages are written through the temporary files, none should be left
+        for (File f : dir.listFiles()) {
+            Assert.assertFalse(f.getName(), f.getName().endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    public void reportsIndexFailureOnce() throws Exception {
+        File dir = Files.createTempDirectory("jcstress-live").toFile();
+        TestConfig cfg = config();
+
+        // Non-empty directory in place of the index cannot be replaced
+        File index = new File(dir, "index.html");
+        Assert.assertTrue(new File(index, "blocker").mkdirs());
+
+        PrintStream oldErr = System.err;
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(bos, true));
+
+        LiveHTMLReportPrinter printer = new LiveHTMLReportPrinter(dir.getAbsolutePath(), 10);
+        try {
+            printer.add(result(cfg, 1));
+            awaitPage(new File(dir, "LiveTest.html"), "message 0");
+            printer.add(result(new TestConfig(cfg, 1), 2));
+            awaitPage(new File(dir, "LiveTest.html"), "message 1");
+        } finally {
+            printer.close();
+            System.setErr(oldErr);
+        }
+
+        String err = bos.toString();
+        String marker = "Cannot update the live HTML report index";
+        Assert.assertTrue(err, err.contains(marker));
+        Assert.assertEquals(err, err.indexOf(marker), err.lastIndexOf(marker));
+    }
+
+}
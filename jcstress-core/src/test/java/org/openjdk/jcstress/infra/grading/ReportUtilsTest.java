@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.grading;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.Options;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.collectors.ForkStats;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.infra.runners.TestList;
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.CPUMap;
+import org.openjdk.jcstress.os.NodeType;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.util.Environment;
+import org.openjdk.jcstress.vm.CompileMode;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+
+public class ReportUtilsTest {
+
+    private static TestResult result() throws IOException {
+        Options opts = new Options(new String[0]);
+        opts.parse();
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.NONE, 2, NodeType.PACKAGE);
+        TestConfig cfg = new TestConfig(opts, TestList.getInfo("LiveTest"), 0,
+                Collections.emptyList(), CompileMode.UNIFIED, scl);
+        int[] threads = { 0, 1 };
+        int[] none = new int[0];
+        cfg.setCPUMap(new CPUMap(threads, threads, none, none, new int[2], threads, threads, NodeType.PACKAGE));
+
+        TestResult r = new TestResult(Status.NORMAL);
+        r.setConfig(cfg);
+        r.setEnv(Environment.getInstance());
+        r.addState("1, 0", 100);
+        return r;
+    }
+
+    private static String print(TestResult r) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        ReportUtils.printResult(pw, r, false);
+        pw.flush();
+        return sw.toString();
+    }
+
+    @Test
+    public void forkTime() throws IOException {
+        TestResult r = result();
+        r.setForkStats(new ForkStats(2, 2, 300, 1000, 50, ForkStats.UNKNOWN));
+
+        String s = print(r);
+        Assert.assertTrue(s, s.contains("  Fork time: startup 300 ms, run 1000 ms, shutdown 50 ms, unknown CPU time on 2 CPUs"));
+    }
+
+    @Test
+    public void noForkTime() throws IOException {
+        String s = print(result());
+        Assert.assertTrue(s, s.contains("  Fork: #1"));
+        Assert.assertFalse(s, s.contains("Fork time:"));
+    }
+
+}
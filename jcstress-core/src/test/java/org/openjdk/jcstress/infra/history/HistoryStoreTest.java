@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.history;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openjdk.jcstress.Options;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.TestInfo;
+import org.openjdk.jcstress.infra.collectors.DiskWriteCollector;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.NodeType;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.vm.CompileMode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.regex.Pattern;
+
+public class HistoryStoreTest {
+
+    private static TestConfig cfgA;
+    private static TestConfig cfgB;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        Options opts = new Options(new String[0]);
+        opts.parse();
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.NONE, 2, NodeType.PACKAGE);
+        List<String> actors = Arrays.asList("actor1", "actor2");
+        cfgA = new TestConfig(opts, new TestInfo("TestA", "TestA", "TestA_jcstress", "", 2, actors, false),
+                0, Collections.emptyList(), CompileMode.UNIFIED, scl);
+        cfgB = new TestConfig(opts, new TestInfo("TestB", "TestB", "TestB_jcstress", "", 2, actors, false),
+                0, Collections.emptyList(), CompileMode.UNIFIED, scl);
+    }
+
+    private static File resultFile(boolean withInteresting) throws IOException {
+        File file = File.createTempFile("jcstress", "results");
+        file.deleteOnExit();
+
+        DiskWriteCollector dwc = new DiskWriteCollector(file.getAbsolutePath());
+        for (int f = 0; f < 3; f++) {
+            TestResult a = new TestResult(Status.NORMAL);
+            a.setConfig(cfgA);
+            a.addState("0, 0", 100);
+            if (withInteresting) {
+                a.addState("1, 0", 1);
+            }
+            dwc.add(a);
+
+            TestResult b = new TestResult(Status.NORMAL);
+            b.setConfig(cfgB);
+            b.addState("1, 1", 50);
+            dwc.add(b);
+        }
+        dwc.close();
+        return file;
+    }
+
+    @Test
+    public void ingestAndQuery() throws Exception {
+        File dir = Files.createTempDirectory("jcstress-history").toFile();
+
+        HistoryStore store = new HistoryStore(dir);
+        store.ingest(resultFile(false).getAbsolutePath(), "first");
+        store.ingest(resultFile(true).getAbsolutePath(), "second");
+
+        // Reopen to check the index is persisted
+        store = new HistoryStore(dir);
+        Assert.assertEquals(2, store.runs().size());
+        Assert.assertEquals(Arrays.asList("TestA", "TestB"), new ArrayList<>(store.tests()));
+
+        SortedMap<HistoryStore.Run, List<HistoryStore.Record>> history = store.query("TestA");
+        Assert.assertEquals(2, history.size());
+
+        List<HistoryStore.Record> first = history.get(store.runs().get(0));
+        Assert.assertEquals(1, first.size());
+        Assert.assertEquals(300, first.get(0).counter.count("0, 0"));
+        Assert.assertEquals(0, first.get(0).counter.count("1, 0"));
+
+        List<HistoryStore.Record> second = history.get(store.runs().get(1));
+        Assert.assertEquals(3, second.get(0).counter.count("1, 0"));
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        store.printTrends(new PrintStream(bos, true), Pattern.compile("TestA"), false);
+        String out = bos.toString();
+        Assert.assertTrue(out, out.contains("TestA"));
+        Assert.assertFalse(out, out.contains("TestB"));
+        Assert.assertTrue(out, out.contains("#1"));
+    }
+
+}
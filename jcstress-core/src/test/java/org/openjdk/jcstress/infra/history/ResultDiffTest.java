@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.history;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openjdk.jcstress.Options;
+import org.openjdk.jcstress.infra.Status;
+import org.openjdk.jcstress.infra.TestInfo;
+import org.openjdk.jcstress.infra.collectors.DiskWriteCollector;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.runners.TestConfig;
+import org.openjdk.jcstress.os.AffinityMode;
+import org.openjdk.jcstress.os.NodeType;
+import org.openjdk.jcstress.os.SchedulingClass;
+import org.openjdk.jcstress.vm.CompileMode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ResultDiffTest {
+
+    private static TestConfig cfg;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        Options opts = new Options(new String[0]);
+        opts.parse();
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.NONE, 2, NodeType.PACKAGE);
+        cfg = new TestConfig(opts, new TestInfo("Test", "Test", "Test_jcstress", "", 2, Arrays.asList("actor1", "actor2"), false),
+                0, Collections.emptyList(), CompileMode.UNIFIED, scl);
+    }
+
+    private static String resultFile(long... counts) throws IOException {
+        File file = File.createTempFile("jcstress", "results");
+        file.deleteOnExit();
+
+        DiskWriteCollector dwc = new DiskWriteCollector(file.getAbsolutePath());
+        TestResult r = new TestResult(Status.NORMAL);
+        r.setConfig(cfg);
+        for (int s = 0; s < counts.length; s++) {
+            if (counts[s] > 0) {
+                r.addState("state" + s, counts[s]);
+            }
+        }
+        dwc.add(r);
+        dwc.close();
+        return file.getAbsolutePath();
+    }
+
+    @Test
+    public void same() throws Exception {
+        ResultDiff diff = new ResultDiff(resultFile(1_000_000, 1000), resultFile(1_000_000, 1000));
+        Assert.assertTrue(diff.compute().isEmpty());
+    }
+
+    @Test
+    public void noise() throws Exception {
+        ResultDiff diff = new ResultDiff(resultFile(1_000_000, 1000), resultFile(1_000_000, 1010));
+        Assert.assertTrue(diff.compute().isEmpty());
+    }
+
+    @Test
+    public void rareAppearance() throws Exception {
+        // A single sample in a billion is not significant, but still reported
+        ResultDiff diff = new ResultDiff(resultFile(1_000_000_000L, 0), resultFile(1_000_000_000L, 1));
+        List<ResultDiff.Change> changes = diff.compute();
+
+        Assert.assertEquals(1, changes.size());
+        ResultDiff.Change ch = changes.get(0);
+        Assert.assertEquals(ResultDiff.Kind.APPEARED, ch.kind);
+        Assert.assertEquals("state1", ch.state);
+        Assert.assertEquals(0, ch.baseCount);
+        Assert.assertEquals(1, ch.candCount);
+        Assert.assertTrue("z = " + ch.z, ch.z > 0 && ch.z < 3);
+        Assert.assertTrue(ch.ci > 0);
+
+        // And the other way around
+        diff = new ResultDiff(resultFile(1_000_000_000L, 1), resultFile(1_000_000_000L, 0));
+        changes = diff.compute();
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(ResultDiff.Kind.DISAPPEARED, changes.get(0).kind);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        diff.printOn(new PrintStream(bos, true));
+        Assert.assertTrue(bos.toString().contains("0 outcomes appeared, 1 disappeared, 0 significant changes"));
+    }
+
+    @Test
+    public void appearedAndChanged() throws Exception {
+        ResultDiff diff = new ResultDiff(resultFile(1_000_000, 1000, 0), resultFile(1_000_000, 5000, 100));
+        List<ResultDiff.Change> changes = diff.compute();
+
+        Assert.assertEquals(3, changes.size());
+
+        // Ranked by significance
+        for (int c = 1; c < changes.size(); c++) {
+            Assert.assertTrue(Math.abs(changes.get(c - 1).z) >= Math.abs(changes.get(c).z));
+        }
+
+        ResultDiff.Change appeared = changes.stream().filter(c -> c.state.equals("state2")).findFirst().get();
+        Assert.assertEquals(ResultDiff.Kind.APPEARED, appeared.kind);
+        Assert.assertTrue(appeared.z > 0);
+
+        ResultDiff.Change changed = changes.stream().filter(c -> c.state.equals("state1")).findFirst().get();
+        Assert.assertEquals(ResultDiff.Kind.CHANGED, changed.kind);
+        Assert.assertTrue(changed.delta() - changed.ci > 0);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.infra.runners;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.util.Counter;
+
+public class ConvergenceDetectorTest {
+
+    @SafeVarargs
+    private static boolean epoch(ConvergenceDetector<String> d, Counter<String>... counters) {
+        d.begin();
+        for (Counter<String> c : counters) {
+            d.add(c);
+        }
+        return d.end();
+    }
+
+    @Test
+    public void stationary() {
+        ConvergenceDetector<String> d = new ConvergenceDetector<>(3, 0.001);
+        Counter<String> c = new Counter<>();
+
+        for (int e = 0; e < 10; e++) {
+            c.record("A", 900);
+            c.record("B", 100);
+            boolean stable = epoch(d, c);
+
+            // Needs two full windows to compare
+            Assert.assertEquals("Epoch " + e, e >= 6, stable);
+        }
+    }
+
+    @Test
+    public void drift() {
+        ConvergenceDetector<String> d = new ConvergenceDetector<>(3, 0.001);
+        Counter<String> c = new Counter<>();
+
+        // Cumulative frequencies move less than the tolerance per epoch
+        // here after a few hundred epochs, but the distribution still drifts
+        for (int e = 0; e < 2000; e++) {
+            long a = 900_000 - e * 400;
+            c.record("A", a);
+            c.record("B", 1_000_000 - a);
+            Assert.assertFalse("Epoch " + e, epoch(d, c));
+        }
+    }
+
+    @Test
+    public void newOutcome() {
+        ConvergenceDetector<String> d = new ConvergenceDetector<>(2, 0.001);
+        Counter<String> c = new Counter<>();
+
+        for (int e = 0; e < 20; e++) {
+            c.record("A", 1_000_000);
+            if (e == 10) {
+                c.record("B", 1);
+            }
+            boolean stable = epoch(d, c);
+
+            // Stable since epoch 4, then the windows should clear the new outcome
+            boolean expected = (e >= 4 && e < 10) || e >= 14;
+            Assert.assertEquals("Epoch " + e, expected, stable);
+        }
+    }
+
+    @Test
+    public void sumsWorkers() {
+        ConvergenceDetector<String> d = new ConvergenceDetector<>(1, 0.001);
+        Counter<String> c1 = new Counter<>();
+        Counter<String> c2 = new Counter<>();
+
+        // Every worker alone is unstable, but the sum is stable
+        for (int e = 0; e < 10; e++) {
+            c1.record("A", (e % 2 == 0) ? 100 : 0);
+            c2.record("A", (e % 2 == 0) ? 0 : 100);
+            c1.record("B", (e % 2 == 0) ? 0 : 100);
+            c2.record("B", (e % 2 == 0) ? 100 : 0);
+            Assert.assertEquals("Epoch " + e, e >= 2, epoch(d, c1, c2));
+        }
+    }
+
+}
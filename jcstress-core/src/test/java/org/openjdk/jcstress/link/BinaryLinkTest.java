@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.link;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jcstress.infra.collectors.TestResult;
+import org.openjdk.jcstress.infra.runners.ForkedTestConfig;
+
+import java.util.Set;
+import java.util.concurrent.*;
+
+public class BinaryLinkTest {
+
+    private Set<Integer> failed;
+    private BinaryLinkServer server;
+    private BinaryLinkClient client;
+    private ExecutorService pool;
+
+    @Before
+    public void setup() throws Exception {
+        failed = ConcurrentHashMap.newKeySet();
+        server = new BinaryLinkServer(new ServerListener() {
+            @Override
+            public ForkedTestConfig onJobRequest(int token) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void onResult(int token, TestResult result) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean onStopRequest(int token) {
+                return failed.contains(token);
+            }
+        });
+        client = new BinaryLinkClient(server.getHost(), server.getPort());
+        pool = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void teardown() {
+        pool.shutdownNow();
+        server.terminate();
+    }
+
+    private Future<Boolean> awaitStop(int token) throws InterruptedException {
+        Future<Boolean> f = pool.submit(() -> client.awaitStop(token));
+
+        // Give the request time to get parked on server
+        Thread.sleep(500);
+        Assert.assertFalse("Should be waiting", f.isDone());
+        return f;
+    }
+
+    @Test
+    public void stopped() throws Exception {
+        Future<Boolean> f = awaitStop(1);
+        server.notifyStop(1);
+        Assert.assertTrue(f.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void released() throws Exception {
+        Future<Boolean> f = awaitStop(1);
+        server.releaseStop(1);
+        Assert.assertFalse(f.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void alreadyFailed() throws Exception {
+        failed.add(1);
+        Assert.assertTrue(pool.submit(() -> client.awaitStop(1)).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void independentForks() throws Exception {
+        Future<Boolean> f1 = awaitStop(1);
+        Future<Boolean> f2 = awaitStop(2);
+
+        server.notifyStop(2);
+        Assert.assertTrue(f2.get(10, TimeUnit.SECONDS));
+        Assert.assertFalse(f1.isDone());
+
+        // Releasing the unknown fork is fine
+        server.releaseStop(3);
+
+        server.releaseStop(1);
+        Assert.assertFalse(f1.get(10, TimeUnit.SECONDS));
+    }
+
+}
@@ -100,6 +100,19 @@ public class AbstractSchedulerAffinityTest {
                         Assert.assertNotEquals("Should be scheduled at the different packages",
                                 topo.threadToNode(actorMap[a1]), topo.threadToNode(actorMap[a2]));
                     }
+                    if (scl.caches[a1] != -1) {
+                        int c1 = topo.coreToCache(topo.threadToCore(actorMap[a1]));
+                        int c2 = topo.coreToCache(topo.threadToCore(actorMap[a2]));
+                        if (scl.caches[a1] == scl.caches[a2]) {
+                            Assert.assertEquals("Should be scheduled at the same cache: " + scl, c1, c2);
+                        } else {
+                            Assert.assertNotEquals("Should be scheduled at the different caches: " + scl, c1, c2);
+                        }
+                    }
+                    if (scl.types[a1] != -1) {
+                        Assert.assertEquals("Should be scheduled at the core of requested type: " + scl,
+                                scl.types[a1], topo.coreToType(topo.threadToCore(actorMap[a1])));
+                    }
                     if (scl.cores[a1] == scl.cores[a2]) {
                         Assert.assertEquals("Should be scheduled at the same core: " + scl,
                                 topo.threadToCore(actorMap[a1]), topo.threadToCore(actorMap[a2]));
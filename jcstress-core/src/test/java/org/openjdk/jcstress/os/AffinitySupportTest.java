@@ -24,11 +24,15 @@
  */
 package org.openjdk.jcstress.os;
 
+import org.junit.Assert;
 import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.openjdk.jcstress.vm.VMSupport;
 
+import java.util.HashSet;
+import java.util.Set;
+
 public class AffinitySupportTest {
 
     @Before
@@ -45,4 +49,43 @@ public class AffinitySupportTest {
     public void tryBind() {
         AffinitySupport.tryBind();
     }
+
+    @Test
+    public void bindOthers() {
+        Assume.assumeTrue(AffinitySupport.canBindOthers());
+
+        // Allow all CPUs, so that the rest of the tests are not affected
+        int[] cpus = new int[1024];
+        for (int c = 0; c < cpus.length; c++) {
+            cpus[c] = c;
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        AffinitySupport.bindOthers(cpus, seen);
+        Assert.assertTrue("Should see this thread", seen.contains(AffinitySupport.Linux.currentTid()));
+
+        int size = seen.size();
+        AffinitySupport.bindOthers(cpus, seen);
+        Assert.assertTrue("Should only add new threads", seen.size() >= size);
+    }
+
+    @Test
+    public void foreignMask() {
+        long[] mask = ForeignAffinity.mask(0, 3, 64, 130);
+        Assert.assertEquals(0b1001L, mask[0]);
+        Assert.assertEquals(1L, mask[1]);
+        Assert.assertEquals(1L << 2, mask[2]);
+        for (int c = 3; c < mask.length; c++) {
+            Assert.assertEquals(0L, mask[c]);
+        }
+    }
+
+    @Test
+    public void foreignRoundtrip() {
+        Assume.assumeTrue(ForeignAffinity.isAvailable());
+
+        long[] mask = ForeignAffinity.getAffinity(0);
+        ForeignAffinity.setAffinity(0, mask);
+        Assert.assertArrayEquals(mask, ForeignAffinity.getAffinity(0));
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.os;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class CGroupsTest {
+
+    private FileSystem fs;
+
+    private void write(String file, String contents) throws IOException {
+        Path path = fs.getPath(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, Collections.singletonList(contents));
+    }
+
+    private CGroups parse() {
+        return new CGroups(fs.getPath("/proc/self/cgroup"), fs.getPath("/sys/fs/cgroup"));
+    }
+
+    @Test
+    public void noCgroup() throws IOException {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        write("/proc/self/cgroup", "1:cpu,cpuacct:/user.slice");
+
+        CGroups cg = parse();
+        Assert.assertNull(cg.effectiveCPUs());
+        Assert.assertEquals(-1, cg.cpuLimit());
+        Assert.assertEquals(-1, cg.memoryLimit());
+    }
+
+    @Test
+    public void unlimited() throws IOException {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        write("/proc/self/cgroup", "0::/");
+        write("/sys/fs/cgroup/cpu.max", "max 100000");
+        write("/sys/fs/cgroup/memory.max", "max");
+
+        CGroups cg = parse();
+        Assert.assertNull(cg.effectiveCPUs());
+        Assert.assertEquals(-1, cg.cpuLimit());
+        Assert.assertEquals(-1, cg.memoryLimit());
+    }
+
+    @Test
+    public void container() throws IOException {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        write("/proc/self/cgroup", "0::/");
+        write("/sys/fs/cgroup/cpuset.cpus.effective", "2-4,7");
+        write("/sys/fs/cgroup/cpu.max", "250000 100000");
+        write("/sys/fs/cgroup/memory.max", "2147483648");
+
+        CGroups cg = parse();
+        Assert.assertEquals(Arrays.asList(2, 3, 4, 7), Arrays.asList(cg.effectiveCPUs().toArray()));
+        Assert.assertEquals(3, cg.cpuLimit());
+        Assert.assertEquals(2147483648L, cg.memoryLimit());
+    }
+
+    @Test
+    public void nested() throws IOException {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        write("/proc/self/cgroup", "0::/parent/child");
+        write("/sys/fs/cgroup/parent/cpu.max", "100000 100000");
+        write("/sys/fs/cgroup/parent/memory.max", "1073741824");
+        write("/sys/fs/cgroup/parent/cpuset.cpus.effective", "0-7");
+        write("/sys/fs/cgroup/parent/child/cpu.max", "max 100000");
+        write("/sys/fs/cgroup/parent/child/memory.max", "4294967296");
+        write("/sys/fs/cgroup/parent/child/cpuset.cpus.effective", "0-3");
+
+        CGroups cg = parse();
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), Arrays.asList(cg.effectiveCPUs().toArray()));
+        Assert.assertEquals(1, cg.cpuLimit());
+        Assert.assertEquals(1073741824L, cg.memoryLimit());
+    }
+
+    @Test
+    public void invisibleGroup() throws IOException {
+        fs = Jimfs.newFileSystem(Configuration.unix());
+        write("/proc/self/cgroup", "0::/system.slice/docker-1234.scope");
+        write("/sys/fs/cgroup/memory.max", "536870912");
+
+        CGroups cg = parse();
+        Assert.assertEquals(536870912L, cg.memoryLimit());
+    }
+
+}
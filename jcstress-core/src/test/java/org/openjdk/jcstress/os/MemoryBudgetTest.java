@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.os;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class MemoryBudgetTest {
+
+    private Path meminfo(long availableMb) throws IOException {
+        FileSystem fs = Jimfs.newFileSystem(Configuration.unix());
+        Path path = fs.getPath("/proc/meminfo");
+        Files.createDirectories(path.getParent());
+        Files.write(path, Arrays.asList(
+                "MemTotal:       65536000 kB",
+                "MemFree:         1024000 kB",
+                "MemAvailable:   " + availableMb * 1024 + " kB",
+                "Buffers:          123456 kB"));
+        return path;
+    }
+
+    @Test
+    public void unlimited() {
+        MemoryBudget mb = MemoryBudget.unlimited();
+        for (int c = 0; c < 1000; c++) {
+            Assert.assertTrue(mb.tryAcquire());
+        }
+    }
+
+    @Test
+    public void staticLimit() {
+        MemoryBudget mb = new MemoryBudget(3000, 1000, null);
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertFalse(mb.tryAcquire());
+        mb.release(true);
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertFalse(mb.tryAcquire());
+    }
+
+    @Test
+    public void alwaysOne() {
+        MemoryBudget mb = new MemoryBudget(0, 1000, null);
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertFalse(mb.tryAcquire());
+        mb.release(true);
+        Assert.assertTrue(mb.tryAcquire());
+    }
+
+    @Test
+    public void available() throws IOException {
+        // Room for two more forks after the first one had reported in, while keeping the reserve
+        long avail = MemoryBudget.RESERVE_MB + 2500;
+        MemoryBudget mb = new MemoryBudget(-1, 1000, meminfo(avail));
+        Assert.assertTrue(mb.tryAcquire());
+        mb.reportedIn();
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertFalse(mb.tryAcquire());
+    }
+
+    @Test
+    public void pendingUntilReportedIn() throws IOException {
+        // Available memory does not change, as if forks are still starting up
+        long avail = MemoryBudget.RESERVE_MB + 2500;
+        MemoryBudget mb = new MemoryBudget(-1, 1000, meminfo(avail));
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertTrue(mb.tryAcquire());
+
+        // Later polls do not forget the pending forks
+        sleepOverPoll();
+        Assert.assertFalse(mb.tryAcquire());
+
+        // Fork that has exited without reporting in is not pending anymore
+        mb.release(false);
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertFalse(mb.tryAcquire());
+
+        // Reported in forks are accounted by /proc/meminfo, which is unchanged here
+        mb.reportedIn();
+        Assert.assertTrue(mb.tryAcquire());
+        Assert.assertFalse(mb.tryAcquire());
+    }
+
+    private static void sleepOverPoll() {
+        try {
+            Thread.sleep(MemoryBudget.POLL_MS + 100);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void readAvailable() throws IOException {
+        Assert.assertEquals(4242, MemoryBudget.readAvailable(meminfo(4242)));
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.os;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.openjdk.jcstress.os.topology.PresetListTopology;
+import org.openjdk.jcstress.os.topology.PresetRegularTopology;
+import org.openjdk.jcstress.os.topology.Topology;
+import org.openjdk.jcstress.os.topology.TopologyParseException;
+
+import java.util.*;
+
+@RunWith(Parameterized.class)
+public class SchedulerAffinityTypesTest extends AbstractSchedulerAffinityTest {
+
+    @Parameterized.Parameters(name = "p={0} l={1} c={2} t={3}")
+    public static Iterable<Object[]> data() {
+        List<Object[]> r = new ArrayList<>();
+        for (int p = 1; p <= 2; p++) {
+            for (int l = 1; l <= 3; l++) {
+                for (int c : new int[] { 2, 4 }) {
+                    for (int t : new int[] { 1, 2 }) {
+                        r.add(new Object[] { p, l, c, t });
+                    }
+                }
+            }
+        }
+        return r;
+    }
+
+    @Parameterized.Parameter(0)
+    public int p;
+
+    @Parameterized.Parameter(1)
+    public int l;
+
+    @Parameterized.Parameter(2)
+    public int c;
+
+    @Parameterized.Parameter(3)
+    public int t;
+
+    @Test
+    public void test_Local() throws TopologyParseException {
+        Topology topo = new PresetRegularTopology(p, l, c, t, 2);
+        Scheduler s = new Scheduler(topo, topo.totalThreads());
+        s.enableDebug();
+
+        runLocal(topo, s, topo.totalThreads());
+    }
+
+    @Test
+    public void test_Classes() throws TopologyParseException {
+        Topology topo = new PresetRegularTopology(p, l, c, t, 2);
+        Scheduler s = new Scheduler(topo, topo.totalThreads());
+
+        Set<SchedulingClass> seen = new HashSet<>();
+        boolean sameType = false;
+        boolean mixedType = false;
+
+        for (int a = 1; a <= 4; a++) {
+            for (SchedulingClass scl : s.localAffinityFor(a, topo.totalThreads())) {
+                Assert.assertTrue("Duplicate class: " + scl, seen.add(scl));
+
+                for (int a1 = 0; a1 < a; a1++) {
+                    Assert.assertNotEquals("Types should be assigned: " + scl, -1, scl.types[a1]);
+                    for (int a2 = 0; a2 < a; a2++) {
+                        if (scl.cores[a1] == scl.cores[a2]) {
+                            Assert.assertEquals("Same core classes should yield same types: " + scl,
+                                    scl.types[a1], scl.types[a2]);
+                        }
+                        if (topo.typedCaches() && scl.caches[a1] == scl.caches[a2]) {
+                            Assert.assertEquals("Same cache classes should yield same types: " + scl,
+                                    scl.types[a1], scl.types[a2]);
+                        }
+                        if (scl.cores[a1] != scl.cores[a2]) {
+                            sameType |= scl.types[a1] == scl.types[a2];
+                            mixedType |= scl.types[a1] != scl.types[a2];
+                        }
+                    }
+                }
+            }
+        }
+
+        // Same type on different cores needs several cores of that type
+        boolean canSameType = topo.nodesPerSystem() > 1;
+        for (int type = 0; type < topo.coreTypes(); type++) {
+            canSameType |= topo.typeCoresPerNode(type) > 1;
+        }
+
+        Assert.assertEquals("Should have same type classes", canSameType, sameType);
+        Assert.assertTrue("Should have mixed type classes", mixedType);
+    }
+
+    @Test
+    public void test_Hybrid() throws TopologyParseException {
+        // P-cores with SMT, E-cores without
+        PresetListTopology topo = new PresetListTopology();
+        topo.add(0, 0, 0, 0);
+        topo.add(0, 0, 1, 0);
+        topo.add(0, 1, 2, 0);
+        topo.add(0, 1, 3, 0);
+        for (int c = 2; c < 6; c++) {
+            topo.add(0, c, c + 2, 1);
+        }
+        topo.finish();
+
+        Scheduler s = new Scheduler(topo, topo.totalThreads());
+        s.enableDebug();
+
+        runLocal(topo, s, topo.totalThreads());
+    }
+
+}
@@ -28,6 +28,9 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.openjdk.jcstress.os.topology.*;
 
+import java.util.HashSet;
+import java.util.Set;
+
 public class SchedulerTest {
 
     @Test
@@ -265,4 +268,183 @@ public class SchedulerTest {
         Assert.assertArrayEquals(new int[] {0, 1, 2, 3}, ints[14]);
     }
 
+    @Test
+    public void memoryLimit() throws TopologyParseException {
+        Topology t = new PresetRegularTopology(1, 8, 1);
+        Scheduler s = new Scheduler(t, t.totalThreads(), new MemoryBudget(2048, 1024, null));
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.LOCAL, 1, NodeType.PACKAGE);
+        scl.setNode(0, 0);
+        scl.setCore(0, 0);
+
+        CPUMap m1 = s.tryAcquire(scl);
+        CPUMap m2 = s.tryAcquire(scl);
+        Assert.assertNotNull("Should be scheduled", m1);
+        Assert.assertNotNull("Should be scheduled", m2);
+        Assert.assertNull("Should not be scheduled over the memory limit", s.tryAcquire(scl));
+
+        Assert.assertEquals("CPUs should be given back", 2, s.getCpus());
+
+        s.release(m1);
+        Assert.assertNotNull("Should be scheduled after release", s.tryAcquire(scl));
+    }
+
+    @Test
+    public void placement_classes() throws TopologyParseException {
+        Topology t = new PresetRegularTopology(2, 4, 1);
+        Scheduler s = new Scheduler(t, t.totalThreads());
+
+        // Placement cannot be enforced until enabled
+        for (SchedulingClass scl : s.localAffinityFor(2, t.totalThreads())) {
+            Assert.assertEquals("Placement should be free: " + scl, MemoryPlacement.FREE, scl.placement());
+        }
+
+        s.enableMemoryPlacement();
+        for (SchedulingClass scl : s.localAffinityFor(2, t.totalThreads())) {
+            Assert.assertNotEquals("Placement should be set: " + scl, MemoryPlacement.FREE, scl.placement());
+            if (scl.numNodes() == 2) {
+                Assert.assertNotEquals("No remote node: " + scl, MemoryPlacement.REMOTE, scl.placement());
+            }
+        }
+
+        Topology single = new PresetRegularTopology(1, 4, 1);
+        Scheduler ss = new Scheduler(single, single.totalThreads());
+        ss.enableMemoryPlacement();
+        for (SchedulingClass scl : ss.localAffinityFor(2, single.totalThreads())) {
+            Assert.assertEquals("Placement should be free: " + scl, MemoryPlacement.FREE, scl.placement());
+        }
+    }
+
+    @Test
+    public void placement_threads() throws TopologyParseException {
+        Topology t = new PresetRegularTopology(3, 4, 1);
+        Scheduler s = new Scheduler(t, t.totalThreads());
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.LOCAL, 1, NodeType.PACKAGE);
+        scl.setNode(0, 0);
+        scl.setCore(0, 0);
+
+        scl.setPlacement(MemoryPlacement.ACTOR);
+        CPUMap actor = s.tryAcquire(scl);
+        Assert.assertArrayEquals(actor.actorThreads(), actor.memoryThreads());
+
+        scl.setPlacement(MemoryPlacement.REMOTE);
+        CPUMap remote = s.tryAcquire(scl);
+        Assert.assertEquals(1, remote.memoryThreads().length);
+        Assert.assertNotEquals("Should be on another node",
+                t.threadToNode(remote.actorThreads()[0]), t.threadToNode(remote.memoryThreads()[0]));
+
+        scl.setPlacement(MemoryPlacement.INTERLEAVED);
+        CPUMap interleaved = s.tryAcquire(scl);
+        Set<Integer> nodes = new HashSet<>();
+        for (int thread : interleaved.memoryThreads()) {
+            nodes.add(t.threadToNode(thread));
+        }
+        Assert.assertEquals("Should cover all nodes", 3, nodes.size());
+
+        Assert.assertEquals("Memory threads are not allocated", 3, s.getCpus());
+    }
+
+    private PresetListTopology isolatedTopology() throws TopologyParseException {
+        // 4 cores, 2 threads each; cores 2 and 3 are isolated
+        PresetListTopology t = new PresetListTopology();
+        for (int c = 0; c < 4; c++) {
+            t.add(0, c, c);
+            t.add(0, c, c + 4);
+        }
+        for (int cpu : new int[] { 2, 3, 6, 7 }) {
+            t.isolate(cpu);
+        }
+        t.finish();
+        return t;
+    }
+
+    @Test
+    public void isolated_localPrefersIsolated() throws TopologyParseException {
+        Topology t = isolatedTopology();
+        Scheduler s = new Scheduler(t, t.totalThreads());
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.LOCAL, 2, NodeType.PACKAGE);
+        scl.setNode(0, 0);
+        scl.setNode(1, 0);
+        scl.setCore(0, 0);
+        scl.setCore(1, 1);
+
+        CPUMap cpuMap = s.tryAcquire(scl);
+        Assert.assertNotNull("Should be scheduled", cpuMap);
+        for (int thread : cpuMap.actorThreads()) {
+            Assert.assertTrue("Actors should be on isolated CPUs", t.threadIsolated(thread));
+        }
+
+        boolean housekeeping = false;
+        for (int thread : cpuMap.systemThreads()) {
+            housekeeping |= !t.threadIsolated(thread);
+        }
+        Assert.assertTrue("System threads should include non-isolated CPUs", housekeeping);
+        Assert.assertEquals("Only actor cores should be taken", 4, s.getCpus());
+
+        // Isolated cores are exhausted, and the rest is lent for housekeeping
+        Assert.assertNull("Should not be scheduled", s.tryAcquire(scl));
+
+        s.release(cpuMap);
+        CPUMap other = s.tryAcquire(scl);
+        Assert.assertNotNull("Should be scheduled", other);
+        for (int thread : other.actorThreads()) {
+            Assert.assertTrue("Actors should be on isolated CPUs", t.threadIsolated(thread));
+        }
+    }
+
+    @Test
+    public void isolated_housekeepingOnlyFree() throws TopologyParseException {
+        Topology t = isolatedTopology();
+        Scheduler s = new Scheduler(t, t.totalThreads());
+
+        // Takes the non-isolated cores
+        CPUMap global = s.tryAcquire(new SchedulingClass(AffinityMode.GLOBAL, 2, NodeType.PACKAGE));
+        Assert.assertNotNull("Should be scheduled", global);
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.LOCAL, 2, NodeType.PACKAGE);
+        scl.setNode(0, 0);
+        scl.setNode(1, 0);
+        scl.setCore(0, 0);
+        scl.setCore(1, 1);
+
+        CPUMap local = s.tryAcquire(scl);
+        Assert.assertNotNull("Should be scheduled", local);
+
+        Set<Integer> taken = new HashSet<>();
+        for (int thread : global.allocatedThreads()) {
+            taken.add(thread);
+        }
+        for (int thread : local.systemThreads()) {
+            Assert.assertFalse("System threads should not run on other forks CPUs: " + thread, taken.contains(thread));
+        }
+
+        // Non-isolated cores were not lent, and can be taken again
+        s.release(global);
+        CPUMap again = s.tryAcquire(new SchedulingClass(AffinityMode.GLOBAL, 2, NodeType.PACKAGE));
+        Assert.assertNotNull("Should be scheduled", again);
+        for (int thread : again.allocatedThreads()) {
+            Assert.assertFalse("Unpinned actors should avoid isolated CPUs", t.threadIsolated(thread));
+        }
+
+        s.release(again);
+        s.release(local);
+        Assert.assertEquals(0, s.getCpus());
+    }
+
+    @Test
+    public void isolated_globalAvoidsIsolated() throws TopologyParseException {
+        Topology t = isolatedTopology();
+        Scheduler s = new Scheduler(t, t.totalThreads());
+
+        SchedulingClass scl = new SchedulingClass(AffinityMode.GLOBAL, 2, NodeType.PACKAGE);
+
+        CPUMap cpuMap = s.tryAcquire(scl);
+        Assert.assertNotNull("Should be scheduled", cpuMap);
+        for (int thread : cpuMap.allocatedThreads()) {
+            Assert.assertFalse("Unpinned actors should avoid isolated CPUs", t.threadIsolated(thread));
+        }
+    }
+
 }
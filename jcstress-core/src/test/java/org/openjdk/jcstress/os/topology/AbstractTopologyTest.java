@@ -36,6 +36,7 @@ public class AbstractTopologyTest {
         for (int c = 0; c < topo.totalCores(); c++) {
             Collection<Integer> coreThreads = topo.coreThreads(c);
             Assert.assertEquals(topo.threadsPerCore(), coreThreads.size());
+            Assert.assertTrue(topo.coreToType(c) >= 0 && topo.coreToType(c) < topo.coreTypes());
             for (int t : coreThreads) {
                 Assert.assertEquals(c, topo.threadToCore(t));
             }
@@ -53,6 +54,17 @@ public class AbstractTopologyTest {
                     Assert.assertEquals(n, topo.threadToNode(t));
                 }
             }
+
+            Collection<Integer> nodeCaches = topo.nodeCaches(n);
+            Assert.assertTrue(topo.cachesPerNode() <= nodeCaches.size());
+            for (int l : nodeCaches) {
+                Collection<Integer> cacheCores = topo.cacheCores(l);
+                Assert.assertTrue(topo.coresPerCache() <= cacheCores.size());
+                for (int c : cacheCores) {
+                    Assert.assertEquals(l, topo.coreToCache(c));
+                    Assert.assertEquals(n, topo.coreToNode(c));
+                }
+            }
         }
     }
 
@@ -36,6 +36,7 @@ import java.io.*;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
 
 public class LinuxSysfsTopologyTest extends AbstractTopologyTest {
@@ -228,6 +229,108 @@ public class LinuxSysfsTopologyTest extends AbstractTopologyTest {
         checkGenericInvariants(topo);
     }
 
+    @Test
+    public void test_Saved_10() throws TopologyParseException, IOException {
+        // Synthetic: two L3 slices (CCXs) per package
+        FileSystem fs = parse("/topology/sysfs-10.txt");
+        LinuxSysfsTopology topo = new LinuxSysfsTopology(fs.getPath(""));
+
+        Assert.assertEquals(1,  topo.nodesPerSystem());
+        Assert.assertEquals(8,  topo.coresPerNode());
+        Assert.assertEquals(2,  topo.threadsPerCore());
+        Assert.assertEquals(8,  topo.totalCores());
+        Assert.assertEquals(16, topo.totalThreads());
+        Assert.assertEquals(2,  topo.cachesPerNode());
+        Assert.assertEquals(4,  topo.coresPerCache());
+        Assert.assertEquals("L3 cache", topo.cacheDesc());
+
+        for (int t = 0; t < topo.totalThreads(); t++) {
+            Assert.assertEquals(0, topo.threadToNode(t));
+            Assert.assertEquals(t % 8, topo.threadToCore(t));
+            Assert.assertEquals((t % 8) / 4, topo.coreToCache(topo.threadToCore(t)));
+        }
+
+        checkGenericInvariants(topo);
+    }
+
+    @Test
+    public void test_Saved_10_Restricted() throws TopologyParseException, IOException {
+        // Only the first CCX is allowed
+        FileSystem fs = parse("/topology/sysfs-10.txt");
+        LinuxSysfsTopology topo = new LinuxSysfsTopology(fs.getPath(""), Arrays.asList(0, 1, 2, 3, 8, 9, 10, 11));
+
+        Assert.assertEquals(1,  topo.nodesPerSystem());
+        Assert.assertEquals(4,  topo.coresPerNode());
+        Assert.assertEquals(2,  topo.threadsPerCore());
+        Assert.assertEquals(4,  topo.totalCores());
+        Assert.assertEquals(8,  topo.totalThreads());
+        Assert.assertEquals(1,  topo.cachesPerNode());
+        Assert.assertNull(topo.cacheDesc());
+
+        for (int t = 0; t < topo.totalThreads(); t++) {
+            int cpu = topo.threadToRealCPU(t);
+            Assert.assertTrue("Should be allowed: " + cpu, cpu % 8 < 4);
+        }
+
+        checkGenericInvariants(topo);
+    }
+
+    @Test(expected = TopologyParseException.class)
+    public void test_Saved_10_RestrictedDisjoint() throws TopologyParseException, IOException {
+        // None of the allowed CPUs exist
+        FileSystem fs = parse("/topology/sysfs-10.txt");
+        new LinuxSysfsTopology(fs.getPath(""), Arrays.asList(200, 201, 202));
+    }
+
+    @Test
+    public void test_Saved_10_Isolated() throws TopologyParseException, IOException {
+        // Second CCX is isolated
+        FileSystem fs = parse("/topology/sysfs-10.txt");
+        Files.write(fs.getPath("cpu/isolated"), Collections.singletonList("4-7,12-15"));
+        Files.write(fs.getPath("cpu/nohz_full"), Collections.singletonList("(null)"));
+        LinuxSysfsTopology topo = new LinuxSysfsTopology(fs.getPath(""));
+
+        Assert.assertEquals(8, topo.isolatedThreads());
+        for (int t = 0; t < topo.totalThreads(); t++) {
+            int cpu = topo.threadToRealCPU(t);
+            Assert.assertEquals(cpu % 8 >= 4, topo.threadIsolated(t));
+        }
+
+        checkGenericInvariants(topo);
+    }
+
+    @Test
+    public void test_Saved_11() throws TopologyParseException, IOException {
+        // Synthetic: hybrid package, 2 P-cores with SMT and private L2,
+        // 4 E-cores sharing the L2 cluster
+        FileSystem fs = parse("/topology/sysfs-11.txt");
+        LinuxSysfsTopology topo = new LinuxSysfsTopology(fs.getPath(""));
+
+        Assert.assertEquals(1,  topo.nodesPerSystem());
+        Assert.assertEquals(6,  topo.coresPerNode());
+        Assert.assertEquals(6,  topo.totalCores());
+        Assert.assertEquals(8,  topo.totalThreads());
+        Assert.assertEquals(1,  topo.threadsPerCore());
+        Assert.assertEquals(3,  topo.cachesPerNode());
+        Assert.assertEquals("L2 cache", topo.cacheDesc());
+
+        Assert.assertEquals(2, topo.coreTypes());
+        Assert.assertEquals("capacity 1024", topo.coreTypeDesc(0));
+        Assert.assertEquals("capacity 768", topo.coreTypeDesc(1));
+        Assert.assertEquals(2, topo.typeCoresPerNode(0));
+        Assert.assertEquals(4, topo.typeCoresPerNode(1));
+        Assert.assertEquals(2, topo.typeCachesPerNode(0));
+        Assert.assertEquals(1, topo.typeCachesPerNode(1));
+        Assert.assertTrue(topo.typedCaches());
+
+        for (int t = 0; t < topo.totalThreads(); t++) {
+            int cpu = topo.threadToRealCPU(t);
+            Assert.assertEquals(cpu < 4 ? 0 : 1, topo.coreToType(topo.threadToCore(t)));
+        }
+
+        // Irregular: only P-cores have SMT, generic invariants do not apply
+    }
+
     private FileSystem parse(String resource) throws IOException {
         FileSystem fs = Jimfs.newFileSystem(Configuration.unix());
         try (InputStream is = LinuxSysfsTopologyTest.class.getResourceAsStream(resource);
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2021, Red Hat, Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jcstress.vm;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jcstress.os.CPUMap;
+import org.openjdk.jcstress.os.NodeType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class VMSupportTest {
+
+    private static CPUMap cpuMap(int cpus) {
+        int[] threads = new int[cpus];
+        for (int t = 0; t < cpus; t++) {
+            threads[t] = t;
+        }
+        int[] zeros = new int[cpus];
+        return new CPUMap(threads, threads, new int[0], new int[0], zeros, threads, threads, NodeType.PACKAGE);
+    }
+
+    @Test
+    public void allocatedCPUs() {
+        List<String> flags = VMSupport.forkErgonomicsFlags(true, cpuMap(4), Collections.emptyList());
+        Assert.assertEquals(Collections.singletonList("-XX:ActiveProcessorCount=4"), flags);
+    }
+
+    @Test
+    public void clampedToTwo() {
+        Assert.assertEquals(Collections.singletonList("-XX:ActiveProcessorCount=2"),
+                VMSupport.forkErgonomicsFlags(true, cpuMap(1), Collections.emptyList()));
+        Assert.assertEquals(Collections.singletonList("-XX:ActiveProcessorCount=2"),
+                VMSupport.forkErgonomicsFlags(true, cpuMap(0), Collections.emptyList()));
+    }
+
+    @Test
+    public void notAvailable() {
+        List<String> flags = VMSupport.forkErgonomicsFlags(false, cpuMap(4), Collections.emptyList());
+        Assert.assertTrue(flags.toString(), flags.isEmpty());
+    }
+
+    @Test
+    public void userOverride() {
+        List<String> jvmArgs = Arrays.asList("-Xint", "-XX:ActiveProcessorCount=16");
+        List<String> flags = VMSupport.forkErgonomicsFlags(true, cpuMap(4), jvmArgs);
+        Assert.assertTrue(flags.toString(), flags.isEmpty());
+    }
+
+}